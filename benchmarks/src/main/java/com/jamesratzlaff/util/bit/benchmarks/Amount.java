@@ -0,0 +1,39 @@
+package com.jamesratzlaff.util.bit.benchmarks;
+
+/**
+ * The kinds of rotation amounts every suite is run with. Amounts are derived
+ * from the number of bits being rotated so each kind means the same thing at
+ * every size.
+ */
+public enum Amount {
+	/**
+	 * a whole number of <code>long</code>s, about a third of the bits
+	 */
+	WORD_ALIGNED,
+	/**
+	 * {@link #WORD_ALIGNED} plus 13 bits, so every word has to be split
+	 */
+	SUB_WORD,
+	/**
+	 * {@link #SUB_WORD} to the left
+	 */
+	NEGATIVE;
+
+	private static final int SUB_WORD_BITS = 13;
+
+	public long of(long size) {
+		long aligned = Math.max(Long.SIZE, (size / 3) & -Long.SIZE);
+		switch (this) {
+		case WORD_ALIGNED:
+			return aligned;
+		case SUB_WORD:
+			return aligned + SUB_WORD_BITS;
+		default:
+			return -(aligned + SUB_WORD_BITS);
+		}
+	}
+
+	public int of(int size) {
+		return (int) of((long) size);
+	}
+}
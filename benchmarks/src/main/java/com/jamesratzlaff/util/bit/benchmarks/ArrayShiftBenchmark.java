@@ -0,0 +1,129 @@
+package com.jamesratzlaff.util.bit.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jamesratzlaff.util.bit.arrays.IntArrayShift;
+import com.jamesratzlaff.util.bit.arrays.LongArrayShift;
+
+/**
+ * The <code>long[]</code> and <code>int[]</code> rotation engines. Every
+ * benchmark rotates the same array in place over and over, the cost of a
+ * rotation does not depend on the bits so the result stays comparable.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g", "--enable-preview", "--add-modules=jdk.incubator.vector" })
+@State(Scope.Thread)
+public class ArrayShiftBenchmark {
+
+	/**
+	 * bits inside the array rotated by the inner bits benchmarks
+	 */
+	private static final int WINDOW = 1000;
+
+	@Param({ "64", "4096", "1048576", "1073741824" })
+	public int size;
+
+	@Param
+	public Amount amount;
+
+	private long[] longs;
+	private long[] otherLongs;
+	private long[] scratchLongs;
+	private int[] ints;
+	private long longAmount;
+	private int intAmount;
+	private int innerOffset;
+	private int innerEndOffsetExcl;
+
+	@Setup
+	public void setup() {
+		SplittableRandom random = new SplittableRandom(size);
+		longs = new long[(size + Long.SIZE - 1) / Long.SIZE];
+		for (int i = 0; i < longs.length; i++) {
+			longs[i] = random.nextLong();
+		}
+		otherLongs = new long[longs.length];
+		for (int i = 0; i < otherLongs.length; i++) {
+			otherLongs[i] = random.nextLong();
+		}
+		scratchLongs = new long[longs.length];
+		ints = new int[(size + Integer.SIZE - 1) / Integer.SIZE];
+		for (int i = 0; i < ints.length; i++) {
+			ints[i] = random.nextInt();
+		}
+		longAmount = amount.of((long) size);
+		intAmount = amount.of(size);
+		int window = Math.min(size, WINDOW);
+		innerOffset = (size - window) / 2;
+		innerEndOffsetExcl = innerOffset + window;
+	}
+
+	@Benchmark
+	public long[] longBitwiseRotate() {
+		return LongArrayShift.bitwiseRotate(longs, size, longAmount);
+	}
+
+	@Benchmark
+	public int[] intBitwiseRotate() {
+		return IntArrayShift.bitwiseRotate(ints, size, intAmount);
+	}
+
+	@Benchmark
+	public long[] longBitwiseRotateUsingSubArrays() {
+		return LongArrayShift.bitwiseRotateUsingSubArrays(longs, size, longAmount);
+	}
+
+	@Benchmark
+	public int[] intBitwiseRotateUsingSubArrays() {
+		return IntArrayShift.bitwiseRotateUsingSubArrays(ints, size, intAmount);
+	}
+
+	@Benchmark
+	public long[] longBitwiseRotateInnerBits() {
+		return LongArrayShift.bitwiseRotateInnerBits(longs, size, longAmount, innerOffset, innerEndOffsetExcl);
+	}
+
+	@Benchmark
+	public int[] intBitwiseRotateInnerBits() {
+		return IntArrayShift.bitwiseRotateInnerBits(ints, size, intAmount, innerOffset, innerEndOffsetExcl);
+	}
+
+	@Benchmark
+	public long[] longXorRotated() {
+		return LongArrayShift.xorRotated(longs, otherLongs, size, longAmount, scratchLongs);
+	}
+
+	/**
+	 * What {@link #longXorRotated()} replaces, a rotated copy and then a second
+	 * pass
+	 */
+	@Benchmark
+	public long[] longXorRotatedCopy() {
+		long[] rotated = LongArrayShift.nonMutatingBitwiseRotate(otherLongs, size, longAmount);
+		for (int i = 0; i < rotated.length; i++) {
+			scratchLongs[i] = longs[i] ^ rotated[i];
+		}
+		return scratchLongs;
+	}
+
+	@Benchmark
+	public long longAndRotatedCardinality() {
+		return LongArrayShift.andRotatedCardinality(longs, otherLongs, size, longAmount);
+	}
+}
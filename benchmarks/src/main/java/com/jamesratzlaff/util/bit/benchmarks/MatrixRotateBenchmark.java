@@ -0,0 +1,62 @@
+package com.jamesratzlaff.util.bit.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jamesratzlaff.util.bit.LongQuickBitMatrix;
+
+/**
+ * Rotating every row or every column of a square {@link LongQuickBitMatrix}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g", "--enable-preview", "--add-modules=jdk.incubator.vector" })
+@State(Scope.Thread)
+public class MatrixRotateBenchmark {
+
+	@Param({ "64", "1024", "16384" })
+	public int dimension;
+
+	@Param
+	public Amount amount;
+
+	private LongQuickBitMatrix matrix;
+	private int shift;
+
+	@Setup
+	public void setup() {
+		SplittableRandom random = new SplittableRandom(dimension);
+		matrix = new LongQuickBitMatrix(dimension);
+		long[] bits = matrix.getBits();
+		for (int i = 0; i < bits.length; i++) {
+			bits[i] = random.nextLong();
+		}
+		shift = amount.of(dimension);
+	}
+
+	@Benchmark
+	public LongQuickBitMatrix rotateRowsCyclic() {
+		matrix.rotateRowsCyclic(shift);
+		return matrix;
+	}
+
+	@Benchmark
+	public LongQuickBitMatrix rotateColumnsCyclic() {
+		matrix.rotateColumnsCyclic(shift);
+		return matrix;
+	}
+}
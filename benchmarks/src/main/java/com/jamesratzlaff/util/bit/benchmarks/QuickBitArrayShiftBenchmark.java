@@ -0,0 +1,68 @@
+package com.jamesratzlaff.util.bit.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jamesratzlaff.util.bit.arrays.LongQuickBitArray;
+import com.jamesratzlaff.util.bit.arrays.QuickBitArray;
+
+/**
+ * {@link QuickBitArray#shift(int)} and {@link LongQuickBitArray#shift(int)},
+ * the entry points most callers use.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g", "--enable-preview", "--add-modules=jdk.incubator.vector" })
+@State(Scope.Thread)
+public class QuickBitArrayShiftBenchmark {
+
+	@Param({ "64", "4096", "1048576", "1073741824" })
+	public int size;
+
+	@Param
+	public Amount amount;
+
+	private QuickBitArray quickBitArray;
+	private LongQuickBitArray longQuickBitArray;
+	private int shift;
+
+	@Setup
+	public void setup() {
+		SplittableRandom random = new SplittableRandom(size);
+		quickBitArray = new QuickBitArray(size);
+		longQuickBitArray = new LongQuickBitArray(size);
+		for (int i = 0; i < size; i += Long.SIZE) {
+			long word = random.nextLong();
+			longQuickBitArray.setBulk(i, word);
+			quickBitArray.setBulk(i, (int) word);
+			if (i + Integer.SIZE < size) {
+				quickBitArray.setBulk(i + Integer.SIZE, (int) (word >>> Integer.SIZE));
+			}
+		}
+		shift = amount.of(size);
+	}
+
+	@Benchmark
+	public QuickBitArray quickBitArrayShift() {
+		return quickBitArray.shift(shift);
+	}
+
+	@Benchmark
+	public LongQuickBitArray longQuickBitArrayShift() {
+		return longQuickBitArray.shift(shift);
+	}
+}
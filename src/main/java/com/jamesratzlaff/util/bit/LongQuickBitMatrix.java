@@ -1,9 +1,14 @@
 package com.jamesratzlaff.util.bit;
 
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+import com.jamesratzlaff.util.bit.arrays.BitRotationEngine;
+import com.jamesratzlaff.util.bit.arrays.BitStore;
 import com.jamesratzlaff.util.bit.arrays.LongArrayShift;
 import com.jamesratzlaff.util.bit.arrays.LongQuickBitArray;
+import com.jamesratzlaff.util.bit.arrays.ParallelArrayShift;
 
 public class LongQuickBitMatrix {
 	private static final BitUnit unit = BitUnit.LONG;
@@ -344,29 +349,56 @@ public class LongQuickBitMatrix {
 			rotate180();
 			return;
 		case 270:
-			rotate90();
-			rotate180();
+			rotate270();
 			return;
 		}
 		throw new IllegalArgumentException("degrees must be a multiple of 0, 90, 180, or 270");
 	}
 
 	/**
-	 * Modifies this {@code BitMatrix} to represent the same but rotated 180 degrees
+	 * Writes this {@code BitMatrix} rotated the given degrees into
+	 * <code>destination</code>, leaving this matrix as it is. The destination is
+	 * resized to fit and its <code>long[]</code> is reused when it already has the
+	 * right length, so rotating many matrices of the same size through one
+	 * destination does not allocate.
+	 *
+	 * @param degrees     number of degrees to rotate through counter-clockwise (0,
+	 *                    90, 180, 270)
+	 * @param destination the matrix to write the rotated bits to
+	 * @return <code>destination</code>
 	 */
-	public void rotate180() {
-		LongQuickBitArray topRow = new LongQuickBitArray(width);
-		LongQuickBitArray bottomRow = new LongQuickBitArray(width);
-		int maxHeight = (height + 1) / 2;
-		for (int i = 0; i < maxHeight; i++) {
-			topRow = getRow(i, topRow);
-			int bottomRowIndex = height - 1 - i;
-			bottomRow = getRow(bottomRowIndex, bottomRow);
-			topRow.reverse();
-			bottomRow.reverse();
-			setRow(i, bottomRow);
-			setRow(bottomRowIndex, topRow);
+	public LongQuickBitMatrix rotate(int degrees, LongQuickBitMatrix destination) {
+		switch (degrees % 360) {
+		case 0:
+			return destination.copyOf(this);
+		case 90:
+			return rotate90(destination);
+		case 180:
+			return rotate180(destination);
+		case 270:
+			return rotate270(destination);
 		}
+		throw new IllegalArgumentException("degrees must be a multiple of 0, 90, 180, or 270");
+	}
+
+	/**
+	 * Modifies this {@code BitMatrix} to represent the same but rotated 180
+	 * degrees, by reversing the order of the rows and the bits of every row
+	 */
+	public void rotate180() {
+		reverseRowOrder();
+		reverseRowBits();
+	}
+
+	/**
+	 * @param destination the matrix to write the rotated bits to
+	 * @return <code>destination</code>
+	 * @see #rotate(int, LongQuickBitMatrix)
+	 */
+	public LongQuickBitMatrix rotate180(LongQuickBitMatrix destination) {
+		destination.copyOf(this);
+		destination.rotate180();
+		return destination;
 	}
 
 	/**
@@ -374,26 +406,164 @@ public class LongQuickBitMatrix {
 	 * counterclockwise
 	 */
 	public void rotate90() {
-		int newWidth = height;
-		int newHeight = width;
-		int newRowSize = (newWidth + unit.limitMask())>>>unit.multOrDivShift();
-		long[] newBits = new long[newRowSize * newHeight];
+		adopt(rotate90(new LongQuickBitMatrix(height, width)));
+	}
 
-		for (int y = 0; y < height; y++) {
-			for (int x = 0; x < width; x++) {
-				int offset = y * rowSize + (x >>> unit.multOrDivShift());
-				if (((bits[offset] >>> (x & 0x1f)) & 1) != 0) {
-					int newOffset = (newHeight - 1 - x) * newRowSize + (y >>> unit.multOrDivShift());
-					newBits[newOffset] |= 1l << (y & unit.limitMask());
-				}
-			}
+	/**
+	 * The matrix is transposed into <code>destination</code> and the order of its
+	 * rows is reversed
+	 *
+	 * @param destination the matrix to write the rotated bits to
+	 * @return <code>destination</code>
+	 * @see #rotate(int, LongQuickBitMatrix)
+	 */
+	public LongQuickBitMatrix rotate90(LongQuickBitMatrix destination) {
+		if (destination == this) {
+			rotate90();
+			return this;
 		}
+		transposeInto(destination);
+		destination.reverseRowOrder();
+		return destination;
+	}
+
+	/**
+	 * Modifies this {@code BitMatrix} to represent the same but rotated 270
+	 * degrees counterclockwise (90 degrees clockwise)
+	 */
+	public void rotate270() {
+		adopt(rotate270(new LongQuickBitMatrix(height, width)));
+	}
+
+	/**
+	 * The matrix is transposed into <code>destination</code> and the bits of every
+	 * row are reversed
+	 *
+	 * @param destination the matrix to write the rotated bits to
+	 * @return <code>destination</code>
+	 * @see #rotate(int, LongQuickBitMatrix)
+	 */
+	public LongQuickBitMatrix rotate270(LongQuickBitMatrix destination) {
+		if (destination == this) {
+			rotate270();
+			return this;
+		}
+		transposeInto(destination);
+		destination.reverseRowBits();
+		return destination;
+	}
+
+	private void transposeInto(LongQuickBitMatrix destination) {
+		destination.resize(height, width);
+		transposeBits(bits, width, height, rowSize, destination.bits, destination.rowSize);
+	}
+
+	private LongQuickBitMatrix copyOf(LongQuickBitMatrix source) {
+		if (source != this) {
+			resize(source.width, source.height);
+			System.arraycopy(source.bits, 0, bits, 0, bits.length);
+		}
+		return this;
+	}
+
+	private void resize(int newWidth, int newHeight) {
 		width = newWidth;
 		height = newHeight;
+		rowSize = (newWidth + unit.limitMask()) >>> unit.multOrDivShift();
+		if (bits.length != rowSize * newHeight) {
+			bits = new long[rowSize * newHeight];
+		}
+	}
+
+	private void adopt(LongQuickBitMatrix other) {
+		width = other.width;
+		height = other.height;
+		rowSize = other.rowSize;
+		bits = other.bits;
+	}
+
+	private void reverseRowOrder() {
+		for (int top = 0, bottom = height - 1; top < bottom; top++, bottom--) {
+			int topOffset = top * rowSize;
+			int bottomOffset = bottom * rowSize;
+			for (int x = 0; x < rowSize; x++) {
+				long tmp = bits[topOffset + x];
+				bits[topOffset + x] = bits[bottomOffset + x];
+				bits[bottomOffset + x] = tmp;
+			}
+		}
+	}
+
+	private void reverseRowBits() {
+		BitStore store = BitStore.of(bits);
+		for (int y = 0; y < height; y++) {
+			int rowOffset = getRowOffset(y);
+			store.reverseBits(rowOffset, rowOffset + width);
+		}
+	}
+
+	/**
+	 * Modifies this {@code BitMatrix} to be its own transpose, bit (x, y) moves to
+	 * (y, x) and the width and height are swapped. The matrix is transposed one
+	 * 64x64 block at a time with {@link #transpose64(long[])}.
+	 */
+	public void transpose() {
+		int newRowSize = (height + unit.limitMask()) >>> unit.multOrDivShift();
+		long[] newBits = new long[newRowSize * width];
+		transposeBits(bits, width, height, rowSize, newBits, newRowSize);
+		int newWidth = height;
+		height = width;
+		width = newWidth;
 		rowSize = newRowSize;
 		bits = newBits;
 	}
 
+	/**
+	 * Writes the transpose of a <code>width</code> x <code>height</code> matrix
+	 * into <code>destination</code>, every word of the first <code>width</code>
+	 * destination rows is overwritten
+	 */
+	private static void transposeBits(long[] source, int width, int height, int sourceRowSize, long[] destination,
+			int destinationRowSize) {
+		long[] block = new long[unit.bits()];
+		for (int by = 0; by < destinationRowSize; by++) {
+			int top = by << unit.multOrDivShift();
+			int rows = Math.min(unit.bits(), height - top);
+			for (int bx = 0; bx < sourceRowSize; bx++) {
+				for (int r = 0; r < rows; r++) {
+					block[r] = source[(top + r) * sourceRowSize + bx];
+				}
+				Arrays.fill(block, rows, unit.bits(), 0l);
+				transpose64(block);
+				int left = bx << unit.multOrDivShift();
+				int columns = Math.min(unit.bits(), width - left);
+				for (int c = 0; c < columns; c++) {
+					destination[(left + c) * destinationRowSize + by] = block[c];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Transposes a 64x64 bit block in place, bit <code>c</code> of
+	 * <code>block[r]</code> is swapped with bit <code>r</code> of
+	 * <code>block[c]</code>. Uses the recursive mask-and-swap: the off-diagonal
+	 * 32x32 quadrants are swapped, then the 16x16 quadrants of every quadrant and
+	 * so on, which takes 6 passes of 32 swaps.
+	 *
+	 * @param block 64 rows of 64 bits
+	 */
+	public static void transpose64(long[] block) {
+		long mask = 0x00000000FFFFFFFFl;
+		for (int j = unit.bits() >>> 1; j != 0; j >>>= 1, mask ^= (mask << j)) {
+			for (int k = 0; k < unit.bits(); k = ((k | j) + 1) & ~j) {
+				long swap = ((block[k] >>> j) ^ block[k | j]) & mask;
+				block[k] ^= swap << j;
+				block[k | j] ^= swap;
+			}
+		}
+	}
+
 	/**
 	 * This is useful in detecting the enclosing rectangle of a 'pure' barcode.
 	 *
@@ -588,20 +758,109 @@ public class LongQuickBitMatrix {
 	public void rotateCyclic(int amount) {
 		LongArrayShift.rotate(bits, amount);
 	}
+	/**
+	 * Rotates one row in place, only the words of that row are touched
+	 * 
+	 * @param amount if negative it rotates left, positive right
+	 * @param row    the row to rotate, cyclic
+	 */
 	public void rotateRowCyclic(int amount, int row) {
 		int rowOffset = this.getRowOffset(row);
-		LongArrayShift.bitwiseRotateInnerBits(this.getBits(), this.getWidth(), amount, rowOffset, this.getWidth()+rowOffset);
+		BitRotationEngine.rotateRange(BitStore.of(bits), rowOffset, rowOffset + width, amount);
 	}
+
+	/**
+	 * @param amount       if negative it rotates left, positive right
+	 * @param startRow     the first row to rotate, cyclic
+	 * @param numberOfRows how many rows to rotate, at most {@link #getHeight()}
+	 */
 	public void rotateRowsCyclic(int amount, int startRow, int numberOfRows) {
-		numberOfRows=LongArrayShift.normalizeCyclicI(numberOfRows, this.getHeight());
-		for(int i=0;i<numberOfRows;i++) {
-			this.rotateRowCyclic(amount, i+startRow);
-		}
+		rotateRowsCyclic(amount, startRow, numberOfRows, null);
 	}
+
 	public void rotateRowsCyclic(int amount) {
-		this.rotateRowsCyclic(amount,0,this.getHeight());
+		this.rotateRowsCyclic(amount, 0, this.getHeight());
 	}
-	
+
+	/**
+	 * Rotates every row in one sweep, splitting the rows over <code>pool</code>
+	 * when the matrix has at least
+	 * {@link ParallelArrayShift#DEFAULT_THRESHOLD_WORDS} <code>long</code>s.
+	 * Rows start on a word boundary so they can be rotated independently.
+	 * 
+	 * @param amount if negative it rotates left, positive right
+	 * @param pool   the pool to rotate the rows in
+	 */
+	public void rotateRowsCyclic(int amount, ForkJoinPool pool) {
+		this.rotateRowsCyclic(amount, 0, this.getHeight(), pool);
+	}
+
+	/**
+	 * @param amount       if negative it rotates left, positive right
+	 * @param startRow     the first row to rotate, cyclic
+	 * @param numberOfRows how many rows to rotate, at most {@link #getHeight()}
+	 * @param pool         the pool to rotate the rows in, or <code>null</code> to
+	 *                     rotate them on the calling thread
+	 */
+	public void rotateRowsCyclic(int amount, int startRow, int numberOfRows, ForkJoinPool pool) {
+		numberOfRows = Math.min(numberOfRows, this.getHeight());
+		int shift = LongArrayShift.normalizeCyclicI(amount, this.getWidth());
+		if (numberOfRows <= 0 || shift == 0) {
+			return;
+		}
+		if (pool == null || (long) numberOfRows * rowSize < ParallelArrayShift.DEFAULT_THRESHOLD_WORDS) {
+			rotateRows(bits, width, height, rowSize, shift, startRow, startRow + numberOfRows);
+		} else {
+			pool.invoke(new RowRotateTask(bits, width, height, rowSize, shift, startRow, startRow + numberOfRows));
+		}
+	}
+
+	/**
+	 * Static so {@link RowRotateTask} only has to hold the words and the
+	 * dimensions, not the matrix
+	 */
+	private static void rotateRows(long[] bits, int width, int height, int rowSize, int shift, int fromRow,
+			int toRowExcl) {
+		BitStore store = BitStore.of(bits);
+		for (int y = fromRow; y < toRowExcl; y++) {
+			int rowOffset = (LongArrayShift.normalizeCyclicI(y, height) * rowSize) << unit.multOrDivShift();
+			BitRotationEngine.rotateRange(store, rowOffset, rowOffset + width, shift);
+		}
+	}
+
+	private static final class RowRotateTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final long[] bits;
+		private final int width;
+		private final int height;
+		private final int rowSize;
+		private final int shift;
+		private final int fromRow;
+		private final int toRowExcl;
+
+		RowRotateTask(long[] bits, int width, int height, int rowSize, int shift, int fromRow, int toRowExcl) {
+			this.bits = bits;
+			this.width = width;
+			this.height = height;
+			this.rowSize = rowSize;
+			this.shift = shift;
+			this.fromRow = fromRow;
+			this.toRowExcl = toRowExcl;
+		}
+
+		@Override
+		protected void compute() {
+			int rows = toRowExcl - fromRow;
+			if (rows < 2 || (long) rows * rowSize <= ParallelArrayShift.CHUNK_WORDS) {
+				rotateRows(bits, width, height, rowSize, shift, fromRow, toRowExcl);
+				return;
+			}
+			int mid = fromRow + (rows >>> 1);
+			invokeAll(new RowRotateTask(bits, width, height, rowSize, shift, fromRow, mid),
+					new RowRotateTask(bits, width, height, rowSize, shift, mid, toRowExcl));
+		}
+	}
+
 	public void rotateColumnCyclic(int amount, int column) {
 		int columnOffset=LongArrayShift.normalizeCyclicI(column, this.getWidth());
 		LongQuickBitArray columnArr = this.getColumn(columnOffset, null);
@@ -609,17 +868,33 @@ public class LongQuickBitMatrix {
 		this.setColumn(columnOffset, columnArr);
 	}
 	
+	/**
+	 * Rotates the columns as rows: the matrix is transposed, the rows are rotated
+	 * with {@link #rotateRowsCyclic(int, int, int)} and the result is transposed
+	 * back, so every step works on whole words.
+	 *
+	 * @param amount          if negative it rotates up, positive down
+	 * @param startColumn     the first column to rotate, cyclic
+	 * @param numberOfColumns how many columns to rotate, at most
+	 *                        {@link #getWidth()}
+	 */
 	public void rotateColumnsCyclic(int amount, int startColumn, int numberOfColumns) {
-		numberOfColumns=LongArrayShift.normalizeCyclicI(numberOfColumns, this.getHeight());
-		for(int i=0;i<numberOfColumns;i++) {
-			this.rotateColumnCyclic(amount, i+startColumn);
+		numberOfColumns = Math.min(numberOfColumns, this.getWidth());
+		if (numberOfColumns <= 0 || LongArrayShift.normalizeCyclicI(amount, this.getHeight()) == 0) {
+			return;
 		}
+		int transposedRowSize = (height + unit.limitMask()) >>> unit.multOrDivShift();
+		LongQuickBitMatrix transposed = new LongQuickBitMatrix(height, width, transposedRowSize,
+				new long[transposedRowSize * width]);
+		transposeBits(bits, width, height, rowSize, transposed.bits, transposedRowSize);
+		transposed.rotateRowsCyclic(amount, startColumn, numberOfColumns);
+		transposeBits(transposed.bits, height, width, transposedRowSize, bits, rowSize);
 	}
+
 	public void rotateColumnsCyclic(int amount) {
-		this.rotateColumnsCyclic(amount,0,this.getHeight());
+		this.rotateColumnsCyclic(amount, 0, this.getWidth());
 	}
-	
-	
+
 	public static void main(String[] args) {
 		LongQuickBitMatrix lqbm = new LongQuickBitMatrix(100);
 		for(int i=0;i<lqbm.getWidth();i++) {
@@ -0,0 +1,123 @@
+package com.jamesratzlaff.util.bit;
+
+import com.jamesratzlaff.util.bit.arrays.LongArrayShift;
+import com.jamesratzlaff.util.bit.arrays.LongQuickBitArray;
+import com.jamesratzlaff.util.bit.arrays.PagedLongQuickBitArray;
+
+/**
+ * A {@link LongQuickBitMatrix} laid out the same way (rows padded to whole
+ * <code>long</code>s, one after the other) on top of a
+ * {@link PagedLongQuickBitArray}, so {@link #snapshot()} is O(1) and a later
+ * {@link #set(int, int)} or {@link #rotateRowCyclic(int, int)} only copies the
+ * 4 KiB pages it writes to. Readers can keep a snapshot while a writer goes on
+ * modifying the matrix.
+ */
+public class PagedLongQuickBitMatrix {
+	private static final BitUnit unit = BitUnit.LONG;
+
+	private final int width;
+	private final int height;
+	private final int rowSize;
+	private final PagedLongQuickBitArray bits;
+
+	/**
+	 * Creates an empty matrix.
+	 *
+	 * @param width  bit matrix width
+	 * @param height bit matrix height
+	 */
+	public PagedLongQuickBitMatrix(int width, int height) {
+		this(width, height, new PagedLongQuickBitArray(bitsFor(width, height)));
+	}
+
+	private PagedLongQuickBitMatrix(int width, int height, PagedLongQuickBitArray bits) {
+		if (width < 1 || height < 1) {
+			throw new IllegalArgumentException("Both dimensions must be greater than 0");
+		}
+		this.width = width;
+		this.height = height;
+		this.rowSize = (width + unit.limitMask()) >>> unit.multOrDivShift();
+		this.bits = bits;
+	}
+
+	private static int bitsFor(int width, int height) {
+		return (((width + unit.limitMask()) >>> unit.multOrDivShift()) * height) << unit.multOrDivShift();
+	}
+
+	/**
+	 * @param matrix the bits to copy
+	 * @return a paged copy of <code>matrix</code>
+	 */
+	public static PagedLongQuickBitMatrix from(LongQuickBitMatrix matrix) {
+		int size = bitsFor(matrix.getWidth(), matrix.getHeight());
+		return new PagedLongQuickBitMatrix(matrix.getWidth(), matrix.getHeight(),
+				PagedLongQuickBitArray.from(new LongQuickBitArray(matrix.getBits(), size)));
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public boolean get(int x, int y) {
+		return bits.get(index(x, y));
+	}
+
+	public void set(int x, int y) {
+		bits.set(index(x, y));
+	}
+
+	public void unset(int x, int y) {
+		bits.unset(index(x, y));
+	}
+
+	public void flip(int x, int y) {
+		bits.flip(index(x, y));
+	}
+
+	private int index(int x, int y) {
+		return ((y * rowSize) << unit.multOrDivShift()) + x;
+	}
+
+	/**
+	 * Rotates one row in place, copying only the pages the row is on
+	 *
+	 * @param amount if negative it rotates left, positive right
+	 * @param row    the row to rotate, cyclic
+	 */
+	public void rotateRowCyclic(int amount, int row) {
+		int rowOffset = (LongArrayShift.normalizeCyclicI(row, height) * rowSize) << unit.multOrDivShift();
+		bits.rotateRange(rowOffset, rowOffset + width, amount);
+	}
+
+	public void rotateRowsCyclic(int amount) {
+		for (int row = 0; row < height; row++) {
+			rotateRowCyclic(amount, row);
+		}
+	}
+
+	/**
+	 * @return a copy that costs nothing until either side writes
+	 */
+	public PagedLongQuickBitMatrix snapshot() {
+		return new PagedLongQuickBitMatrix(width, height, bits.snapshot());
+	}
+
+	/**
+	 * @return a plain copy of the bits
+	 */
+	public LongQuickBitMatrix toLongQuickBitMatrix() {
+		LongQuickBitMatrix result = new LongQuickBitMatrix(width, height);
+		long[] source = bits.toLongQuickBitArray().getBitArray();
+		System.arraycopy(source, 0, result.getBits(), 0, source.length);
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return toLongQuickBitMatrix().toString();
+	}
+}
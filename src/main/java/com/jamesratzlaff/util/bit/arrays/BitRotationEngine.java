@@ -0,0 +1,91 @@
+package com.jamesratzlaff.util.bit.arrays;
+
+import com.jamesratzlaff.util.bit.IBitUnit;
+
+/**
+ * The in-place rotation shared by every storage type. It only talks to a
+ * {@link BitStore}, so {@link LongArrayShift}, {@link IntArrayShift},
+ * {@link ShortArrayShift}, {@link ByteArrayShift} and
+ * {@link SegmentArrayShift} all rotate with the same code, and a new storage
+ * type only has to provide a {@link BitStore} to get it.
+ * <p>
+ * When a range starts and ends on a storage unit boundary the rotation is done
+ * as whole-unit reversals (see {@link BitStore#reverseUnits(long, long)})
+ * followed by one pass that moves every unit by the remaining
+ * <code>amt % unit</code> bits ({@link BitStore#carryShiftLeft(long, long, int)}).
+ * Any other range is rotated by three bit reversals that move up to 64 bits at
+ * a time ({@link BitStore#reverseBits(long, long)}). Either way only a few
+ * <code>long</code>s of scratch are used.
+ * </p>
+ */
+public final class BitRotationEngine {
+
+	private BitRotationEngine() {
+	}
+
+	/**
+	 *
+	 * @param bits the bits to rotate
+	 * @param size the number of <i>bit</i> the store represents
+	 * @param amt  the amount to rotate the bits, a positive value will rotate
+	 *             right, a negative value will rotate left
+	 * @return the passed in <code>bits</code> parameter with its bits rotated
+	 */
+	public static <S extends BitStore> S rotate(S bits, long size, long amt) {
+		return rotateRange(bits, 0, size, amt);
+	}
+
+	/**
+	 * Rotates only the bits in <code>[from, toExcl)</code>, leaving every bit
+	 * outside of that range as it was
+	 *
+	 * @param bits   the bits to rotate
+	 * @param from   the first bit of the range (inclusive)
+	 * @param toExcl the end of the range (exclusive)
+	 * @param amt    the amount to rotate the range, a positive value will rotate
+	 *               right, a negative value will rotate left
+	 * @return the passed in <code>bits</code> parameter with the range rotated
+	 */
+	public static <S extends BitStore> S rotateRange(S bits, long from, long toExcl, long amt) {
+		long len = toExcl - from;
+		if (len < 2) {
+			return bits;
+		}
+		amt = LongArrayShift.normalizeCyclic(amt, len);
+		if (amt == 0) {
+			return bits;
+		}
+		IBitUnit unit = bits.getUnit();
+		if (((from | toExcl) & unit.limitMask()) == 0) {
+			long fromUnit = from >>> unit.multOrDivShift();
+			long toUnit = toExcl >>> unit.multOrDivShift();
+			long unitShifts = amt >>> unit.multOrDivShift();
+			int bitShifts = (int) (amt & unit.limitMask());
+			if (unitShifts != 0) {
+				bits.reverseUnits(fromUnit, toUnit);
+				bits.reverseUnits(fromUnit, fromUnit + unitShifts);
+				bits.reverseUnits(fromUnit + unitShifts, toUnit);
+			}
+			if (bitShifts != 0) {
+				bits.carryShiftLeft(fromUnit, toUnit, bitShifts);
+			}
+			return bits;
+		}
+		bits.reverseBits(from, toExcl);
+		bits.reverseBits(from, from + amt);
+		bits.reverseBits(from + amt, toExcl);
+		return bits;
+	}
+
+	/**
+	 * @see LongArrayShift#readBitsCyclic(long[], long, long, int)
+	 */
+	public static long readBitsCyclic(BitStore bits, long size, long bitIndex, int len) {
+		long untilEnd = size - bitIndex;
+		if (len <= untilEnd) {
+			return bits.readBits(bitIndex, len);
+		}
+		int lowLen = (int) untilEnd;
+		return bits.readBits(bitIndex, lowLen) | (bits.readBits(0, len - lowLen) << lowLen);
+	}
+}
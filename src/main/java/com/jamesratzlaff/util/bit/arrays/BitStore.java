@@ -0,0 +1,415 @@
+package com.jamesratzlaff.util.bit.arrays;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+import com.jamesratzlaff.util.bit.BitUnit;
+import com.jamesratzlaff.util.bit.IBitUnit;
+
+/**
+ * The storage a {@link BitRotationEngine} works on. Every store exposes its
+ * bits as 64-bit words, where bit <code>i</code> of the store is bit
+ * <code>i%64</code> of word <code>i/64</code> (the last word is zero padded
+ * when the storage does not end on a <code>long</code> boundary), and
+ * implements the two loops that touch every storage unit,
+ * {@link #reverseUnits(long, long)} and {@link #carryShiftLeft(long, long, int)},
+ * directly against its own primitive type. Keeping those loops in the store
+ * means each storage type gets its own copy of the hot code for the JIT to
+ * compile, while the rotation logic itself is written once.
+ * <p>
+ * Use {@link #of(IBitUnit, Object)} to pick a store by {@link BitUnit}, or one
+ * of the typed factories.
+ * </p>
+ */
+public abstract class BitStore {
+
+	protected static final BitUnit word = BitUnit.LONG;
+
+	private final IBitUnit unit;
+
+	protected BitStore(IBitUnit unit) {
+		this.unit = unit;
+	}
+
+	/**
+	 * @return the unit of the underlying storage
+	 */
+	public IBitUnit getUnit() {
+		return unit;
+	}
+
+	/**
+	 * @param wordIndex index of a 64-bit word
+	 * @return the word, zero padded past the end of the storage
+	 */
+	public abstract long getWord(long wordIndex);
+
+	/**
+	 * Writes a 64-bit word, dropping any bits past the end of the storage
+	 */
+	public abstract void setWord(long wordIndex, long value);
+
+	/**
+	 * Reverses the order of the storage units in <code>[from, toExcl)</code>
+	 */
+	public abstract void reverseUnits(long from, long toExcl);
+
+	/**
+	 * Cyclically moves every bit in the storage units <code>[from, toExcl)</code>
+	 * up by <code>amt</code> (0 &lt; amt &lt; unit bits) positions, carrying the
+	 * high bits of each unit into the next one and the high bits of the last unit
+	 * into the first
+	 */
+	public abstract void carryShiftLeft(long from, long toExcl, int amt);
+
+	/**
+	 * Reverses the order of the bits in <code>[from, toExcl)</code>, leaving the
+	 * bits outside of the range untouched. Each store runs the loop over its own
+	 * storage so the reads and writes are not calls through this class.
+	 * 
+	 * @see LongArrayShift#reverseBits(long[], long, long)
+	 */
+	public abstract void reverseBits(long from, long toExcl);
+
+	/**
+	 * @see LongArrayShift#readBits(long[], long, int)
+	 */
+	public long readBits(long bitIndex, int len) {
+		long idx = bitIndex >>> word.multOrDivShift();
+		int offset = (int) (bitIndex & word.limitMask());
+		long value = getWord(idx) >>> offset;
+		if (offset + len > word.bits()) {
+			value |= getWord(idx + 1) << (word.bits() - offset);
+		}
+		return value & (-1l >>> (word.bits() - len));
+	}
+
+	/**
+	 * @see LongArrayShift#writeBits(long[], long, int, long)
+	 */
+	public void writeBits(long bitIndex, int len, long value) {
+		long idx = bitIndex >>> word.multOrDivShift();
+		int offset = (int) (bitIndex & word.limitMask());
+		long mask = -1l >>> (word.bits() - len);
+		value &= mask;
+		setWord(idx, (getWord(idx) & ~(mask << offset)) | (value << offset));
+		if (offset + len > word.bits()) {
+			int spill = word.bits() - offset;
+			setWord(idx + 1, (getWord(idx + 1) & ~(mask >>> spill)) | (value >>> spill));
+		}
+	}
+
+	public static BitStore of(long[] bits) {
+		return new LongArrayStore(bits);
+	}
+
+	public static BitStore of(int[] bits) {
+		return new IntArrayStore(bits);
+	}
+
+	public static BitStore of(short[] bits) {
+		return new ShortArrayStore(bits);
+	}
+
+	public static BitStore of(byte[] bits) {
+		return new ByteArrayStore(bits);
+	}
+
+	/**
+	 * @param unit  the unit of <code>array</code>
+	 * @param array a <code>byte[]</code>, <code>short[]</code>,
+	 *              <code>int[]</code> or <code>long[]</code> matching
+	 *              <code>unit</code>
+	 * @return a store over <code>array</code>
+	 */
+	public static BitStore of(IBitUnit unit, Object array) {
+		switch (unit.bits()) {
+		case Byte.SIZE:
+			return of((byte[]) array);
+		case Short.SIZE:
+			return of((short[]) array);
+		case Integer.SIZE:
+			return of((int[]) array);
+		case Long.SIZE:
+			return of((long[]) array);
+		default:
+			throw new IllegalArgumentException("no bit store for units of " + unit.bits() + " bits");
+		}
+	}
+
+	static final class LongArrayStore extends BitStore {
+		private final long[] bits;
+
+		LongArrayStore(long[] bits) {
+			super(BitUnit.LONG);
+			this.bits = bits;
+		}
+
+		@Override
+		public long getWord(long wordIndex) {
+			return bits[(int) wordIndex];
+		}
+
+		@Override
+		public void setWord(long wordIndex, long value) {
+			bits[(int) wordIndex] = value;
+		}
+
+		@Override
+		public long readBits(long bitIndex, int len) {
+			return LongArrayShift.readBits(bits, bitIndex, len);
+		}
+
+		@Override
+		public void writeBits(long bitIndex, int len, long value) {
+			LongArrayShift.writeBits(bits, bitIndex, len, value);
+		}
+
+		@Override
+		public void reverseUnits(long from, long toExcl) {
+			for (int i = (int) from, j = (int) toExcl - 1; i < j; i++, j--) {
+				long tmp = bits[i];
+				bits[i] = bits[j];
+				bits[j] = tmp;
+			}
+		}
+
+		@Override
+		public void carryShiftLeft(long from, long toExcl, int amt) {
+			if (VectorSupport.LONGS) {
+				LongVectorKernels.carryShiftLeft(bits, (int) from, (int) toExcl, amt);
+			} else {
+				LongArrayShift.carryShiftLeft(bits, (int) from, (int) toExcl, amt);
+			}
+		}
+
+		@Override
+		public void reverseBits(long from, long toExcl) {
+			LongArrayShift.reverseBits(bits, from, toExcl);
+		}
+	}
+
+	static final class IntArrayStore extends BitStore {
+		private static final BitUnit unit = BitUnit.INT;
+		private final int[] bits;
+
+		IntArrayStore(int[] bits) {
+			super(unit);
+			this.bits = bits;
+		}
+
+		@Override
+		public long getWord(long wordIndex) {
+			int idx = (int) (wordIndex << 1);
+			long value = bits[idx] & 0xFFFFFFFFl;
+			if (idx + 1 < bits.length) {
+				value |= ((long) bits[idx + 1]) << unit.bits();
+			}
+			return value;
+		}
+
+		@Override
+		public void setWord(long wordIndex, long value) {
+			int idx = (int) (wordIndex << 1);
+			bits[idx] = (int) value;
+			if (idx + 1 < bits.length) {
+				bits[idx + 1] = (int) (value >>> unit.bits());
+			}
+		}
+
+		@Override
+		public long readBits(long bitIndex, int len) {
+			int index = (int) bitIndex;
+			if (len <= unit.bits()) {
+				return IntArrayShift.readBits(bits, index, len) & 0xFFFFFFFFl;
+			}
+			return (IntArrayShift.readBits(bits, index, unit.bits()) & 0xFFFFFFFFl)
+					| (IntArrayShift.readBits(bits, index + unit.bits(), len - unit.bits()) & 0xFFFFFFFFl) << unit.bits();
+		}
+
+		@Override
+		public void writeBits(long bitIndex, int len, long value) {
+			int index = (int) bitIndex;
+			if (len <= unit.bits()) {
+				IntArrayShift.writeBits(bits, index, len, (int) value);
+				return;
+			}
+			IntArrayShift.writeBits(bits, index, unit.bits(), (int) value);
+			IntArrayShift.writeBits(bits, index + unit.bits(), len - unit.bits(), (int) (value >>> unit.bits()));
+		}
+
+		@Override
+		public void reverseUnits(long from, long toExcl) {
+			for (int i = (int) from, j = (int) toExcl - 1; i < j; i++, j--) {
+				int tmp = bits[i];
+				bits[i] = bits[j];
+				bits[j] = tmp;
+			}
+		}
+
+		@Override
+		public void carryShiftLeft(long from, long toExcl, int amt) {
+			if (VectorSupport.INTS) {
+				IntVectorKernels.carryShiftLeft(bits, (int) from, (int) toExcl, amt);
+			} else {
+				IntArrayShift.carryShiftLeft(bits, (int) from, (int) toExcl, amt);
+			}
+		}
+
+		@Override
+		public void reverseBits(long from, long toExcl) {
+			IntArrayShift.reverseBits(bits, (int) from, (int) toExcl);
+		}
+	}
+
+	static final class ShortArrayStore extends BitStore {
+		private static final BitUnit unit = BitUnit.SHORT;
+		private static final int SHORTS_PER_WORD = unit.per(word);
+		private final short[] bits;
+
+		ShortArrayStore(short[] bits) {
+			super(unit);
+			this.bits = bits;
+		}
+
+		@Override
+		public long getWord(long wordIndex) {
+			int idx = (int) (wordIndex << (word.multOrDivShift() - unit.multOrDivShift()));
+			int end = Math.min(bits.length, idx + SHORTS_PER_WORD);
+			long value = 0;
+			for (int i = idx; i < end; i++) {
+				value |= (bits[i] & 0xFFFFl) << ((i - idx) << unit.multOrDivShift());
+			}
+			return value;
+		}
+
+		@Override
+		public void setWord(long wordIndex, long value) {
+			int idx = (int) (wordIndex << (word.multOrDivShift() - unit.multOrDivShift()));
+			int end = Math.min(bits.length, idx + SHORTS_PER_WORD);
+			for (int i = idx; i < end; i++) {
+				bits[i] = (short) (value >>> ((i - idx) << unit.multOrDivShift()));
+			}
+		}
+
+		@Override
+		public long readBits(long bitIndex, int len) {
+			return ShortArrayShift.readBits(bits, bitIndex, len);
+		}
+
+		@Override
+		public void writeBits(long bitIndex, int len, long value) {
+			ShortArrayShift.writeBits(bits, bitIndex, len, value);
+		}
+
+		@Override
+		public void reverseUnits(long from, long toExcl) {
+			for (int i = (int) from, j = (int) toExcl - 1; i < j; i++, j--) {
+				short tmp = bits[i];
+				bits[i] = bits[j];
+				bits[j] = tmp;
+			}
+		}
+
+		@Override
+		public void carryShiftLeft(long from, long toExcl, int amt) {
+			int carryShift = unit.bits() - amt;
+			int carry = (bits[(int) toExcl - 1] & 0xFFFF) >>> carryShift;
+			for (int i = (int) from; i < toExcl; i++) {
+				int current = bits[i] & 0xFFFF;
+				bits[i] = (short) ((current << amt) | carry);
+				carry = current >>> carryShift;
+			}
+		}
+
+		@Override
+		public void reverseBits(long from, long toExcl) {
+			ShortArrayShift.reverseBits(bits, from, toExcl);
+		}
+	}
+
+	static final class ByteArrayStore extends BitStore {
+		private static final BitUnit unit = BitUnit.BYTE;
+		private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class,
+				ByteOrder.LITTLE_ENDIAN);
+		private final byte[] bits;
+
+		ByteArrayStore(byte[] bits) {
+			super(unit);
+			this.bits = bits;
+		}
+
+		@Override
+		public long getWord(long wordIndex) {
+			int idx = (int) (wordIndex << (word.multOrDivShift() - unit.multOrDivShift()));
+			if (idx + Long.BYTES <= bits.length) {
+				return (long) LONGS.get(bits, idx);
+			}
+			long value = 0;
+			for (int i = idx; i < bits.length; i++) {
+				value |= (bits[i] & 0xFFl) << ((i - idx) << unit.multOrDivShift());
+			}
+			return value;
+		}
+
+		@Override
+		public void setWord(long wordIndex, long value) {
+			int idx = (int) (wordIndex << (word.multOrDivShift() - unit.multOrDivShift()));
+			if (idx + Long.BYTES <= bits.length) {
+				LONGS.set(bits, idx, value);
+				return;
+			}
+			for (int i = idx; i < bits.length; i++) {
+				bits[i] = (byte) (value >>> ((i - idx) << unit.multOrDivShift()));
+			}
+		}
+
+		@Override
+		public long readBits(long bitIndex, int len) {
+			return ByteArrayShift.readBits(bits, bitIndex, len);
+		}
+
+		@Override
+		public void writeBits(long bitIndex, int len, long value) {
+			ByteArrayShift.writeBits(bits, bitIndex, len, value);
+		}
+
+		@Override
+		public void reverseUnits(long from, long toExcl) {
+			for (int i = (int) from, j = (int) toExcl - 1; i < j; i++, j--) {
+				byte tmp = bits[i];
+				bits[i] = bits[j];
+				bits[j] = tmp;
+			}
+		}
+
+		/**
+		 * Shifts 8 bytes at a time through the <code>long</code> view, the carry
+		 * between bytes of a <code>long</code> then happens inside the shift
+		 */
+		@Override
+		public void carryShiftLeft(long from, long toExcl, int amt) {
+			int start = (int) from;
+			int end = (int) toExcl;
+			int carryShift = unit.bits() - amt;
+			int carry = (bits[end - 1] & 0xFF) >>> carryShift;
+			int i = start;
+			for (; i + Long.BYTES <= end; i += Long.BYTES) {
+				long current = (long) LONGS.get(bits, i);
+				LONGS.set(bits, i, (current << amt) | carry);
+				carry = (int) (current >>> (word.bits() - amt));
+			}
+			for (; i < end; i++) {
+				int current = bits[i] & 0xFF;
+				bits[i] = (byte) ((current << amt) | carry);
+				carry = current >>> carryShift;
+			}
+		}
+
+		@Override
+		public void reverseBits(long from, long toExcl) {
+			ByteArrayShift.reverseBits(bits, from, toExcl);
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package com.jamesratzlaff.util.bit.arrays;
+
+/**
+ * The two-operand boolean operations {@link BulkBitOps} applies word by word
+ */
+public enum BitwiseOp {
+	AND {
+		@Override
+		public long apply(long a, long b) {
+			return a & b;
+		}
+
+		@Override
+		public int apply(int a, int b) {
+			return a & b;
+		}
+	},
+	OR {
+		@Override
+		public long apply(long a, long b) {
+			return a | b;
+		}
+
+		@Override
+		public int apply(int a, int b) {
+			return a | b;
+		}
+	},
+	XOR {
+		@Override
+		public long apply(long a, long b) {
+			return a ^ b;
+		}
+
+		@Override
+		public int apply(int a, int b) {
+			return a ^ b;
+		}
+	},
+	/**
+	 * <code>a &amp; ~b</code>
+	 */
+	AND_NOT {
+		@Override
+		public long apply(long a, long b) {
+			return a & ~b;
+		}
+
+		@Override
+		public int apply(int a, int b) {
+			return a & ~b;
+		}
+	};
+
+	public abstract long apply(long a, long b);
+
+	public abstract int apply(int a, int b);
+
+	/**
+	 * @return true if applying this operation with an unset bit leaves the other
+	 *         bit as it is, which is how bits past the end of a shorter operand
+	 *         are treated
+	 */
+	public boolean keepsUnmatched() {
+		return this != AND;
+	}
+}
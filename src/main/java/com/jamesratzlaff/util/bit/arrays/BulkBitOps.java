@@ -0,0 +1,215 @@
+package com.jamesratzlaff.util.bit.arrays;
+
+import com.jamesratzlaff.util.bit.BitUnit;
+
+/**
+ * Boolean operations over bit ranges of <code>long[]</code>s and
+ * <code>int[]</code>s. The words that are completely inside the range are
+ * combined with the Vector API when it is available (see
+ * {@link LongVectorKernels} and {@link IntVectorKernels}), the partial words at
+ * either end are masked so bits of the destination outside of the range are
+ * left untouched. The destination may be one of the operands.
+ */
+public class BulkBitOps {
+
+	private static final BitUnit longUnit = BitUnit.LONG;
+	private static final BitUnit intUnit = BitUnit.INT;
+
+	/**
+	 * <code>dest = op(a, b)</code> for the bits in <code>[from, toExcl)</code>
+	 *
+	 * @param op     the operation
+	 * @param a      the first operand
+	 * @param b      the second operand
+	 * @param dest   where the result is written
+	 * @param from   the first bit of the range (inclusive)
+	 * @param toExcl the end of the range (exclusive)
+	 */
+	public static void apply(BitwiseOp op, long[] a, long[] b, long[] dest, int from, int toExcl) {
+		if (toExcl <= from) {
+			return;
+		}
+		int first = from >>> longUnit.multOrDivShift();
+		int last = (toExcl - 1) >>> longUnit.multOrDivShift();
+		long firstMask = -1l << (from & longUnit.limitMask());
+		long lastMask = -1l >>> (-toExcl & longUnit.limitMask());
+		if (first == last) {
+			long mask = firstMask & lastMask;
+			dest[first] = (dest[first] & ~mask) | (op.apply(a[first], b[first]) & mask);
+			return;
+		}
+		dest[first] = (dest[first] & ~firstMask) | (op.apply(a[first], b[first]) & firstMask);
+		long lastValue = (dest[last] & ~lastMask) | (op.apply(a[last], b[last]) & lastMask);
+		if (VectorSupport.LONGS) {
+			LongVectorKernels.apply(op, a, b, dest, first + 1, last);
+		} else {
+			for (int i = first + 1; i < last; i++) {
+				dest[i] = op.apply(a[i], b[i]);
+			}
+		}
+		dest[last] = lastValue;
+	}
+
+	/**
+	 * <code>dest = ~a</code> for the bits in <code>[from, toExcl)</code>
+	 */
+	public static void not(long[] a, long[] dest, int from, int toExcl) {
+		if (toExcl <= from) {
+			return;
+		}
+		int first = from >>> longUnit.multOrDivShift();
+		int last = (toExcl - 1) >>> longUnit.multOrDivShift();
+		long firstMask = -1l << (from & longUnit.limitMask());
+		long lastMask = -1l >>> (-toExcl & longUnit.limitMask());
+		if (first == last) {
+			long mask = firstMask & lastMask;
+			dest[first] = (dest[first] & ~mask) | (~a[first] & mask);
+			return;
+		}
+		dest[first] = (dest[first] & ~firstMask) | (~a[first] & firstMask);
+		long lastValue = (dest[last] & ~lastMask) | (~a[last] & lastMask);
+		if (VectorSupport.LONGS) {
+			LongVectorKernels.not(a, dest, first + 1, last);
+		} else {
+			for (int i = first + 1; i < last; i++) {
+				dest[i] = ~a[i];
+			}
+		}
+		dest[last] = lastValue;
+	}
+
+	/**
+	 * @return the number of bits in <code>[from, toExcl)</code> that are set in
+	 *         both <code>a</code> and <code>b</code>
+	 */
+	public static long andCardinality(long[] a, long[] b, int from, int toExcl) {
+		if (toExcl <= from) {
+			return 0;
+		}
+		int first = from >>> longUnit.multOrDivShift();
+		int last = (toExcl - 1) >>> longUnit.multOrDivShift();
+		long firstMask = -1l << (from & longUnit.limitMask());
+		long lastMask = -1l >>> (-toExcl & longUnit.limitMask());
+		if (first == last) {
+			return Long.bitCount(a[first] & b[first] & firstMask & lastMask);
+		}
+		long result = Long.bitCount(a[first] & b[first] & firstMask) + Long.bitCount(a[last] & b[last] & lastMask);
+		if (VectorSupport.LONGS) {
+			return result + LongVectorKernels.andCardinality(a, b, first + 1, last);
+		}
+		for (int i = first + 1; i < last; i++) {
+			result += Long.bitCount(a[i] & b[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Copies the bits in <code>[from, toExcl)</code> from <code>source</code> to
+	 * the same positions in <code>dest</code>
+	 */
+	public static void copy(long[] source, long[] dest, int from, int toExcl) {
+		apply(BitwiseOp.OR, source, source, dest, from, toExcl);
+	}
+
+	/**
+	 * Clears the bits in <code>[from, toExcl)</code>
+	 */
+	public static void clear(long[] dest, int from, int toExcl) {
+		apply(BitwiseOp.AND_NOT, dest, dest, dest, from, toExcl);
+	}
+
+	/**
+	 * @see #apply(BitwiseOp, long[], long[], long[], int, int)
+	 */
+	public static void apply(BitwiseOp op, int[] a, int[] b, int[] dest, int from, int toExcl) {
+		if (toExcl <= from) {
+			return;
+		}
+		int first = from >>> intUnit.multOrDivShift();
+		int last = (toExcl - 1) >>> intUnit.multOrDivShift();
+		int firstMask = -1 << (from & intUnit.limitMask());
+		int lastMask = -1 >>> (-toExcl & intUnit.limitMask());
+		if (first == last) {
+			int mask = firstMask & lastMask;
+			dest[first] = (dest[first] & ~mask) | (op.apply(a[first], b[first]) & mask);
+			return;
+		}
+		dest[first] = (dest[first] & ~firstMask) | (op.apply(a[first], b[first]) & firstMask);
+		int lastValue = (dest[last] & ~lastMask) | (op.apply(a[last], b[last]) & lastMask);
+		if (VectorSupport.INTS) {
+			IntVectorKernels.apply(op, a, b, dest, first + 1, last);
+		} else {
+			for (int i = first + 1; i < last; i++) {
+				dest[i] = op.apply(a[i], b[i]);
+			}
+		}
+		dest[last] = lastValue;
+	}
+
+	/**
+	 * @see #not(long[], long[], int, int)
+	 */
+	public static void not(int[] a, int[] dest, int from, int toExcl) {
+		if (toExcl <= from) {
+			return;
+		}
+		int first = from >>> intUnit.multOrDivShift();
+		int last = (toExcl - 1) >>> intUnit.multOrDivShift();
+		int firstMask = -1 << (from & intUnit.limitMask());
+		int lastMask = -1 >>> (-toExcl & intUnit.limitMask());
+		if (first == last) {
+			int mask = firstMask & lastMask;
+			dest[first] = (dest[first] & ~mask) | (~a[first] & mask);
+			return;
+		}
+		dest[first] = (dest[first] & ~firstMask) | (~a[first] & firstMask);
+		int lastValue = (dest[last] & ~lastMask) | (~a[last] & lastMask);
+		if (VectorSupport.INTS) {
+			IntVectorKernels.not(a, dest, first + 1, last);
+		} else {
+			for (int i = first + 1; i < last; i++) {
+				dest[i] = ~a[i];
+			}
+		}
+		dest[last] = lastValue;
+	}
+
+	/**
+	 * @see #andCardinality(long[], long[], int, int)
+	 */
+	public static long andCardinality(int[] a, int[] b, int from, int toExcl) {
+		if (toExcl <= from) {
+			return 0;
+		}
+		int first = from >>> intUnit.multOrDivShift();
+		int last = (toExcl - 1) >>> intUnit.multOrDivShift();
+		int firstMask = -1 << (from & intUnit.limitMask());
+		int lastMask = -1 >>> (-toExcl & intUnit.limitMask());
+		if (first == last) {
+			return Integer.bitCount(a[first] & b[first] & firstMask & lastMask);
+		}
+		long result = Integer.bitCount(a[first] & b[first] & firstMask)
+				+ Integer.bitCount(a[last] & b[last] & lastMask);
+		if (VectorSupport.INTS) {
+			return result + IntVectorKernels.andCardinality(a, b, first + 1, last);
+		}
+		for (int i = first + 1; i < last; i++) {
+			result += Integer.bitCount(a[i] & b[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * @see #copy(long[], long[], int, int)
+	 */
+	public static void copy(int[] source, int[] dest, int from, int toExcl) {
+		apply(BitwiseOp.OR, source, source, dest, from, toExcl);
+	}
+
+	/**
+	 * @see #clear(long[], int, int)
+	 */
+	public static void clear(int[] dest, int from, int toExcl) {
+		apply(BitwiseOp.AND_NOT, dest, dest, dest, from, toExcl);
+	}
+}
@@ -0,0 +1,141 @@
+package com.jamesratzlaff.util.bit.arrays;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+import com.jamesratzlaff.util.bit.BitUnit;
+
+/**
+ * Bit rotation for <code>byte[]</code>s without converting them to
+ * <code>long[]</code>s first. Bit <code>i</code> is bit <code>i%8</code> of
+ * byte <code>i/8</code>, and the bytes are read and written 8 at a time through
+ * a little-endian <code>long</code> view, so the work per bit is the same as in
+ * {@link LongArrayShift}. The rotation itself is done by
+ * {@link BitRotationEngine}.
+ */
+public class ByteArrayShift {
+
+	private static final BitUnit unit = BitUnit.LONG;
+	private static final BitUnit byteUnit = BitUnit.BYTE;
+	private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class,
+			ByteOrder.LITTLE_ENDIAN);
+
+	/**
+	 *
+	 * @param bits an <code>byte[]</code> that represents bits
+	 * @param size the number of <i>bit</i> this <code>byte[]</code> represents
+	 * @param amt  the amount to rotate the bits, a positive value will rotate
+	 *             right, a negative value will rotate left
+	 * @return a copy of the passed in <code>bits</code> parameter with the copy's
+	 *         bits rotated
+	 */
+	public static byte[] nonMutatingBitwiseRotate(byte[] bits, long size, long amt) {
+		byte[] copy = bits.clone();
+		return bitwiseRotate(copy, size, amt);
+	}
+
+	/**
+	 * Rotates in place with O(1) extra memory, see {@link BitRotationEngine}
+	 *
+	 * @param bits an <code>byte[]</code> that represents bits
+	 * @param size the number of <i>bit</i> this <code>byte[]</code> represents
+	 * @param amt  the amount to rotate the bits, a positive value will rotate
+	 *             right, a negative value will rotate left
+	 * @return the passed in <code>bits</code> parameter with its bits rotated
+	 */
+	public static byte[] bitwiseRotate(byte[] bits, long size, long amt) {
+		BitRotationEngine.rotate(BitStore.of(bits), size, amt);
+		return bits;
+	}
+
+	public static byte[] nonMutatingBitwiseRotateInnerBits(byte[] bits, long size, long amt, long innerOffset,
+			long innerEndOffsetExcl) {
+		byte[] clone = bits.clone();
+		return bitwiseRotateInnerBits(clone, size, amt, innerOffset, innerEndOffsetExcl);
+	}
+
+	/**
+	 * Rotates only the bits in <code>[innerOffset, innerEndOffsetExcl)</code>,
+	 * leaving every bit outside of that range as it was
+	 *
+	 * @param bits               an <code>byte[]</code> that represents bits
+	 * @param size               the number of <i>bit</i> this <code>byte[]</code>
+	 *                           represents
+	 * @param amt                the amount to rotate the range, a positive value
+	 *                           will rotate right, a negative value will rotate
+	 *                           left
+	 * @param innerOffset        the first bit of the range (inclusive)
+	 * @param innerEndOffsetExcl the end of the range (exclusive)
+	 * @return the passed in <code>bits</code> parameter with the range rotated
+	 */
+	public static byte[] bitwiseRotateInnerBits(byte[] bits, long size, long amt, long innerOffset,
+			long innerEndOffsetExcl) {
+		BitRotationEngine.rotateRange(BitStore.of(bits), innerOffset, innerEndOffsetExcl, amt);
+		return bits;
+	}
+
+	/**
+	 * @see LongArrayShift#reverseBits(long[], long, long)
+	 */
+	public static void reverseBits(byte[] bits, long from, long toExcl) {
+		while (toExcl - from > 1) {
+			int len = (int) Math.min(unit.bits(), (toExcl - from) >>> 1);
+			long low = readBits(bits, from, len);
+			long high = readBits(bits, toExcl - len, len);
+			writeBits(bits, from, len, Long.reverse(high) >>> (unit.bits() - len));
+			writeBits(bits, toExcl - len, len, Long.reverse(low) >>> (unit.bits() - len));
+			from += len;
+			toExcl -= len;
+		}
+	}
+
+	/**
+	 * @see LongArrayShift#readBits(long[], long, int)
+	 */
+	public static long readBits(byte[] bits, long bitIndex, int len) {
+		int idx = (int) (bitIndex >>> byteUnit.multOrDivShift());
+		int offset = (int) (bitIndex & byteUnit.limitMask());
+		long value;
+		if (idx + Long.BYTES <= bits.length) {
+			value = ((long) LONGS.get(bits, idx)) >>> offset;
+			if (offset + len > unit.bits()) {
+				value |= (bits[idx + Long.BYTES] & 0xFFl) << (unit.bits() - offset);
+			}
+		} else {
+			value = 0;
+			for (int i = 0; idx + i < bits.length && (i << byteUnit.multOrDivShift()) < offset + len; i++) {
+				value |= (bits[idx + i] & 0xFFl) << (i << byteUnit.multOrDivShift());
+			}
+			value >>>= offset;
+		}
+		return value & (-1l >>> (unit.bits() - len));
+	}
+
+	/**
+	 * @see LongArrayShift#writeBits(long[], long, int, long)
+	 */
+	public static void writeBits(byte[] bits, long bitIndex, int len, long value) {
+		int idx = (int) (bitIndex >>> byteUnit.multOrDivShift());
+		int offset = (int) (bitIndex & byteUnit.limitMask());
+		long mask = -1l >>> (unit.bits() - len);
+		value &= mask;
+		if (idx + Long.BYTES <= bits.length) {
+			long current = (long) LONGS.get(bits, idx);
+			LONGS.set(bits, idx, (current & ~(mask << offset)) | (value << offset));
+			if (offset + len > unit.bits()) {
+				int spill = unit.bits() - offset;
+				int spillIdx = idx + Long.BYTES;
+				bits[spillIdx] = (byte) ((bits[spillIdx] & ~(mask >>> spill)) | (value >>> spill));
+			}
+			return;
+		}
+		int end = offset + len;
+		for (int i = 0; (i << byteUnit.multOrDivShift()) < end; i++) {
+			int shift = (i << byteUnit.multOrDivShift()) - offset;
+			long byteMask = shift < 0 ? mask << -shift : mask >>> shift;
+			long byteValue = shift < 0 ? value << -shift : value >>> shift;
+			bits[idx + i] = (byte) ((bits[idx + i] & ~byteMask) | (byteValue & byteMask));
+		}
+	}
+}
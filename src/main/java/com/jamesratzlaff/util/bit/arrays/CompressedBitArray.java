@@ -0,0 +1,754 @@
+package com.jamesratzlaff.util.bit.arrays;
+
+import java.util.Arrays;
+
+import com.jamesratzlaff.util.bit.BitUnit;
+
+/**
+ * A fixed size bit array that stores every 64 Kbit chunk in whichever of three
+ * containers is smallest for it, in the manner of Roaring bitmaps: a sorted
+ * <code>char[]</code> of the set positions (at most
+ * {@value #ARRAY_MAX_CARDINALITY} of them), a 1024 <code>long</code> bitmap, or
+ * a sorted <code>char[]</code> of runs (start, length - 1). Chunks with no set
+ * bits take no container at all.
+ * <p>
+ * It reads like a {@link LongQuickBitArray} ({@link #get(int)},
+ * {@link #getNextSet(int)}, {@link #getNextUnset(int)},
+ * {@link #isRange(int, int, boolean)}) and rotates without decompressing. A
+ * rotation by a whole number of chunks, when the size is a whole number of
+ * chunks, only re-keys the containers. Any other rotation cuts each container
+ * where its bits cross a target chunk boundary (or the end of the array) and
+ * joins the at most three pieces that land in each target chunk. Arrays and
+ * runs are cut in O(set bits) and O(runs), only bitmaps are shifted a word at a
+ * time.
+ * </p>
+ */
+public class CompressedBitArray {
+
+	private static final BitUnit unit = BitUnit.LONG;
+
+	public static final int CHUNK_BITS_SHIFT = 16;
+	/**
+	 * Bits per container, 64 Kbit
+	 */
+	public static final int CHUNK_BITS = 1 << CHUNK_BITS_SHIFT;
+	public static final int ARRAY_MAX_CARDINALITY = 4096;
+
+	private static final int CHUNK_MASK = CHUNK_BITS - 1;
+	private static final int BITMAP_WORDS = CHUNK_BITS >>> 6;
+	private static final int BITMAP_BYTES = BITMAP_WORDS << 3;
+
+	private final int size;
+	/**
+	 * Indexed by chunk, <code>null</code> where a chunk has no set bits
+	 */
+	private Container[] chunks;
+
+	public CompressedBitArray(int size) {
+		this.size = size;
+		this.chunks = new Container[chunkCount(size)];
+	}
+
+	private static int chunkCount(int size) {
+		return (int) ((size + (long) CHUNK_MASK) >>> CHUNK_BITS_SHIFT);
+	}
+
+	/**
+	 * @param lqba the bits to compress
+	 * @return a compressed copy of <code>lqba</code>
+	 */
+	public static CompressedBitArray from(LongQuickBitArray lqba) {
+		CompressedBitArray result = new CompressedBitArray(lqba.getSize());
+		long[] source = lqba.getBitArray();
+		int words = (lqba.getSize() + unit.limitMask()) >>> unit.multOrDivShift();
+		for (int c = 0; c < result.chunks.length; c++) {
+			int first = c * BITMAP_WORDS;
+			int len = Math.min(BITMAP_WORDS, words - first);
+			// a bitmap container keeps the array it is made from
+			long[] chunk = new long[BITMAP_WORDS];
+			System.arraycopy(source, first, chunk, 0, len);
+			int end = result.chunkLength(c) & unit.limitMask();
+			if (end != 0) {
+				chunk[len - 1] &= (1l << end) - 1;
+			}
+			result.chunks[c] = Container.fromWords(chunk);
+		}
+		return result;
+	}
+
+	/**
+	 * @return a plain copy of the bits
+	 */
+	public LongQuickBitArray toLongQuickBitArray() {
+		long[] words = new long[(size + unit.limitMask()) >>> unit.multOrDivShift()];
+		long[] chunk = new long[BITMAP_WORDS];
+		for (int c = 0; c < chunks.length; c++) {
+			if (chunks[c] != null) {
+				Arrays.fill(chunk, 0);
+				chunks[c].writeTo(chunk);
+				int first = c * BITMAP_WORDS;
+				System.arraycopy(chunk, 0, words, first, Math.min(BITMAP_WORDS, words.length - first));
+			}
+		}
+		return new LongQuickBitArray(words, size);
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @param i bit to get
+	 * @return true iff bit i is set
+	 */
+	public boolean get(int i) {
+		Container container = chunks[i >>> CHUNK_BITS_SHIFT];
+		return container != null && container.contains(i & CHUNK_MASK);
+	}
+
+	public boolean getCyclic(int i) {
+		return get(LongArrayShift.normalizeCyclicI(i, size));
+	}
+
+	/**
+	 * Sets bit i.
+	 *
+	 * @param i bit to set
+	 */
+	public void set(int i) {
+		int c = i >>> CHUNK_BITS_SHIFT;
+		Container container = chunks[c];
+		chunks[c] = container == null ? new ArrayContainer(new char[] { (char) i }, 1)
+				: container.add(i & CHUNK_MASK);
+	}
+
+	public void unset(int i) {
+		int c = i >>> CHUNK_BITS_SHIFT;
+		Container container = chunks[c];
+		if (container != null) {
+			container = container.remove(i & CHUNK_MASK);
+			chunks[c] = container.cardinality() == 0 ? null : container;
+		}
+	}
+
+	/**
+	 * @return the number of set bits
+	 */
+	public int cardinality() {
+		int result = 0;
+		for (Container container : chunks) {
+			if (container != null) {
+				result += container.cardinality();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param from first bit to check
+	 * @return index of first bit that is set, starting from the given index, or
+	 *         size if none are set at or beyond this given index
+	 */
+	public int getNextSet(int from) {
+		if (from >= size) {
+			return size;
+		}
+		for (int c = from >>> CHUNK_BITS_SHIFT; c < chunks.length; c++) {
+			Container container = chunks[c];
+			if (container != null) {
+				int next = container.nextSet(c == from >>> CHUNK_BITS_SHIFT ? from & CHUNK_MASK : 0);
+				if (next >= 0) {
+					return (c << CHUNK_BITS_SHIFT) + next;
+				}
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @param from index to start looking for unset bit
+	 * @return index of next unset bit, or {@code size} if none are unset until the
+	 *         end
+	 */
+	public int getNextUnset(int from) {
+		if (from >= size) {
+			return size;
+		}
+		for (int c = from >>> CHUNK_BITS_SHIFT; c < chunks.length; c++) {
+			Container container = chunks[c];
+			int start = c == from >>> CHUNK_BITS_SHIFT ? from & CHUNK_MASK : 0;
+			int next = container == null ? start : container.nextUnset(start);
+			if (next < CHUNK_BITS) {
+				return Math.min((c << CHUNK_BITS_SHIFT) + next, size);
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @param start start of range, inclusive.
+	 * @param end   end of range, exclusive
+	 * @param value if true, checks that bits in range are set, otherwise checks
+	 *              that they are not set
+	 * @return true iff all bits are set or not set in range, according to value
+	 *         argument
+	 */
+	public boolean isRange(int start, int end, boolean value) {
+		if (end < start || start < 0 || end > size) {
+			throw new IllegalArgumentException();
+		}
+		int first = value ? getNextUnset(start) : getNextSet(start);
+		return first >= end;
+	}
+
+	/**
+	 * Rotates without decompressing, see the class description
+	 *
+	 * @param amount if negative it rotates left, positive right
+	 * @return this instance
+	 */
+	public CompressedBitArray rotate(int amount) {
+		if (size < 2) {
+			return this;
+		}
+		int amt = LongArrayShift.normalizeCyclicI(amount, size);
+		if (amt == 0) {
+			return this;
+		}
+		Container[] rotated = new Container[chunks.length];
+		if (((size | amt) & CHUNK_MASK) == 0) {
+			int shift = amt >>> CHUNK_BITS_SHIFT;
+			for (int c = 0; c < chunks.length; c++) {
+				rotated[(c + shift) % chunks.length] = chunks[c];
+			}
+			chunks = rotated;
+			return this;
+		}
+		// source positions below wrap move up by amt, the rest wrap to the start
+		long wrap = size - (long) amt;
+		for (int c = 0; c < chunks.length; c++) {
+			Container container = chunks[c];
+			if (container == null) {
+				continue;
+			}
+			long base = (long) c << CHUNK_BITS_SHIFT;
+			int end = chunkLength(c);
+			int from = 0;
+			while (from < end) {
+				long source = base + from;
+				long target = source < wrap ? source + amt : source - wrap;
+				long pieceEnd = Math.min(end, (source < wrap ? Math.min(wrap, base + end) : base + end) - base);
+				int targetChunk = (int) (target >>> CHUNK_BITS_SHIFT);
+				int targetOffset = (int) (target & CHUNK_MASK);
+				pieceEnd = Math.min(pieceEnd, from + (CHUNK_BITS - targetOffset));
+				Container piece = container.slice(from, (int) pieceEnd, targetOffset - from);
+				if (piece != null) {
+					rotated[targetChunk] = rotated[targetChunk] == null ? piece : rotated[targetChunk].or(piece);
+				}
+				from = (int) pieceEnd;
+			}
+		}
+		chunks = rotated;
+		return this;
+	}
+
+	private int chunkLength(int chunk) {
+		return (int) Math.min(CHUNK_BITS, size - ((long) chunk << CHUNK_BITS_SHIFT));
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof CompressedBitArray)) {
+			return false;
+		}
+		CompressedBitArray other = (CompressedBitArray) o;
+		return size == other.size && toLongQuickBitArray().equals(other.toLongQuickBitArray());
+	}
+
+	@Override
+	public int hashCode() {
+		return toLongQuickBitArray().hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return toLongQuickBitArray().toString();
+	}
+
+	/**
+	 * The bits of one chunk, positions are <code>0</code> to
+	 * <code>CHUNK_BITS - 1</code>. Containers are never modified once another
+	 * container may share them, {@link #add(int)} and {@link #remove(int)} return
+	 * the container to use from then on.
+	 */
+	abstract static class Container {
+
+		abstract int cardinality();
+
+		abstract boolean contains(int position);
+
+		abstract Container add(int position);
+
+		abstract Container remove(int position);
+
+		/**
+		 * @return the first set position at or after <code>from</code>, or -1
+		 */
+		abstract int nextSet(int from);
+
+		/**
+		 * @return the first unset position at or after <code>from</code>, or
+		 *         <code>CHUNK_BITS</code>
+		 */
+		abstract int nextUnset(int from);
+
+		/**
+		 * @return the positions in <code>[from, toExcl)</code> moved by
+		 *         <code>delta</code>, or <code>null</code> if there are none
+		 */
+		abstract Container slice(int from, int toExcl, int delta);
+
+		/**
+		 * ORs the bits into a <code>long[BITMAP_WORDS]</code>
+		 */
+		abstract void writeTo(long[] words);
+
+		Container or(Container other) {
+			long[] words = new long[BITMAP_WORDS];
+			writeTo(words);
+			other.writeTo(words);
+			return fromWords(words);
+		}
+
+		/**
+		 * @return the smallest container for <code>words</code>, or
+		 *         <code>null</code> if no bit is set. <code>words</code> may be
+		 *         kept by a bitmap container.
+		 */
+		static Container fromWords(long[] words) {
+			int cardinality = 0;
+			int runs = 0;
+			long previousHigh = 0;
+			for (long w : words) {
+				cardinality += Long.bitCount(w);
+				// a run starts where a set bit has an unset bit below it
+				runs += Long.bitCount(w & ~((w << 1) | previousHigh));
+				previousHigh = w >>> unit.limitMask();
+			}
+			if (cardinality == 0) {
+				return null;
+			}
+			int runBytes = runs << 2;
+			int arrayBytes = cardinality << 1;
+			if (runBytes < Math.min(arrayBytes, BITMAP_BYTES)) {
+				char[] values = new char[runs << 1];
+				int r = 0;
+				for (int start = nextSetIn(words, 0); start >= 0;) {
+					int end = nextUnsetIn(words, start);
+					values[r++] = (char) start;
+					values[r++] = (char) (end - start - 1);
+					start = end < CHUNK_BITS ? nextSetIn(words, end) : -1;
+				}
+				return new RunContainer(values, runs);
+			}
+			if (cardinality <= ARRAY_MAX_CARDINALITY) {
+				char[] values = new char[cardinality];
+				int n = 0;
+				for (int w = 0; w < words.length; w++) {
+					for (long bits = words[w]; bits != 0; bits &= bits - 1) {
+						values[n++] = (char) ((w << unit.multOrDivShift()) + Long.numberOfTrailingZeros(bits));
+					}
+				}
+				return new ArrayContainer(values, cardinality);
+			}
+			return new BitmapContainer(words, cardinality);
+		}
+
+		static int nextSetIn(long[] words, int from) {
+			int w = from >>> unit.multOrDivShift();
+			long bits = words[w] & (-1l << (from & unit.limitMask()));
+			while (bits == 0) {
+				if (++w == words.length) {
+					return -1;
+				}
+				bits = words[w];
+			}
+			return (w << unit.multOrDivShift()) + Long.numberOfTrailingZeros(bits);
+		}
+
+		static int nextUnsetIn(long[] words, int from) {
+			int w = from >>> unit.multOrDivShift();
+			long bits = ~words[w] & (-1l << (from & unit.limitMask()));
+			while (bits == 0) {
+				if (++w == words.length) {
+					return CHUNK_BITS;
+				}
+				bits = ~words[w];
+			}
+			return (w << unit.multOrDivShift()) + Long.numberOfTrailingZeros(bits);
+		}
+	}
+
+	static final class ArrayContainer extends Container {
+		private final char[] values;
+		private final int cardinality;
+
+		ArrayContainer(char[] values, int cardinality) {
+			this.values = values;
+			this.cardinality = cardinality;
+		}
+
+		@Override
+		int cardinality() {
+			return cardinality;
+		}
+
+		@Override
+		boolean contains(int position) {
+			return Arrays.binarySearch(values, 0, cardinality, (char) position) >= 0;
+		}
+
+		@Override
+		Container add(int position) {
+			int idx = Arrays.binarySearch(values, 0, cardinality, (char) position);
+			if (idx >= 0) {
+				return this;
+			}
+			if (cardinality == ARRAY_MAX_CARDINALITY) {
+				long[] words = new long[BITMAP_WORDS];
+				writeTo(words);
+				words[position >>> unit.multOrDivShift()] |= 1l << position;
+				return new BitmapContainer(words, cardinality + 1);
+			}
+			idx = -idx - 1;
+			char[] grown = new char[cardinality + 1];
+			System.arraycopy(values, 0, grown, 0, idx);
+			grown[idx] = (char) position;
+			System.arraycopy(values, idx, grown, idx + 1, cardinality - idx);
+			return new ArrayContainer(grown, cardinality + 1);
+		}
+
+		@Override
+		Container remove(int position) {
+			int idx = Arrays.binarySearch(values, 0, cardinality, (char) position);
+			if (idx < 0) {
+				return this;
+			}
+			char[] shrunk = new char[cardinality - 1];
+			System.arraycopy(values, 0, shrunk, 0, idx);
+			System.arraycopy(values, idx + 1, shrunk, idx, cardinality - idx - 1);
+			return new ArrayContainer(shrunk, cardinality - 1);
+		}
+
+		@Override
+		int nextSet(int from) {
+			int idx = Arrays.binarySearch(values, 0, cardinality, (char) from);
+			if (idx < 0) {
+				idx = -idx - 1;
+			}
+			return idx < cardinality ? values[idx] : -1;
+		}
+
+		@Override
+		int nextUnset(int from) {
+			int idx = Arrays.binarySearch(values, 0, cardinality, (char) from);
+			if (idx < 0) {
+				return from;
+			}
+			int position = from;
+			while (idx < cardinality && values[idx] == position) {
+				idx++;
+				position++;
+			}
+			return position;
+		}
+
+		@Override
+		Container slice(int from, int toExcl, int delta) {
+			if (from == 0 && toExcl == CHUNK_BITS && delta == 0) {
+				return this;
+			}
+			int first = lowerBound(from);
+			int last = lowerBound(toExcl);
+			if (first == last) {
+				return null;
+			}
+			char[] moved = new char[last - first];
+			for (int i = first; i < last; i++) {
+				moved[i - first] = (char) (values[i] + delta);
+			}
+			return new ArrayContainer(moved, moved.length);
+		}
+
+		private int lowerBound(int position) {
+			if (position >= CHUNK_BITS) {
+				return cardinality;
+			}
+			int idx = Arrays.binarySearch(values, 0, cardinality, (char) position);
+			return idx < 0 ? -idx - 1 : idx;
+		}
+
+		@Override
+		void writeTo(long[] words) {
+			for (int i = 0; i < cardinality; i++) {
+				words[values[i] >>> unit.multOrDivShift()] |= 1l << values[i];
+			}
+		}
+
+		@Override
+		Container or(Container other) {
+			if (other instanceof ArrayContainer) {
+				ArrayContainer o = (ArrayContainer) other;
+				if (cardinality + o.cardinality <= ARRAY_MAX_CARDINALITY) {
+					char[] merged = new char[cardinality + o.cardinality];
+					int i = 0;
+					int j = 0;
+					int n = 0;
+					while (i < cardinality && j < o.cardinality) {
+						char a = values[i];
+						char b = o.values[j];
+						merged[n++] = a <= b ? a : b;
+						i += a <= b ? 1 : 0;
+						j += b <= a ? 1 : 0;
+					}
+					while (i < cardinality) {
+						merged[n++] = values[i++];
+					}
+					while (j < o.cardinality) {
+						merged[n++] = o.values[j++];
+					}
+					return new ArrayContainer(merged, n);
+				}
+			}
+			return super.or(other);
+		}
+	}
+
+	static final class BitmapContainer extends Container {
+		private final long[] words;
+		private final int cardinality;
+
+		BitmapContainer(long[] words, int cardinality) {
+			this.words = words;
+			this.cardinality = cardinality;
+		}
+
+		@Override
+		int cardinality() {
+			return cardinality;
+		}
+
+		@Override
+		boolean contains(int position) {
+			return ((words[position >>> unit.multOrDivShift()] >>> position) & 1) != 0;
+		}
+
+		@Override
+		Container add(int position) {
+			if (contains(position)) {
+				return this;
+			}
+			long[] copy = words.clone();
+			copy[position >>> unit.multOrDivShift()] |= 1l << position;
+			return new BitmapContainer(copy, cardinality + 1);
+		}
+
+		@Override
+		Container remove(int position) {
+			if (!contains(position)) {
+				return this;
+			}
+			long[] copy = words.clone();
+			copy[position >>> unit.multOrDivShift()] &= ~(1l << position);
+			if (cardinality - 1 <= ARRAY_MAX_CARDINALITY) {
+				Container smaller = fromWords(copy);
+				return smaller == null ? new ArrayContainer(new char[0], 0) : smaller;
+			}
+			return new BitmapContainer(copy, cardinality - 1);
+		}
+
+		@Override
+		int nextSet(int from) {
+			return nextSetIn(words, from);
+		}
+
+		@Override
+		int nextUnset(int from) {
+			return nextUnsetIn(words, from);
+		}
+
+		@Override
+		Container slice(int from, int toExcl, int delta) {
+			if (from == 0 && toExcl == CHUNK_BITS && delta == 0) {
+				return this;
+			}
+			long[] moved = new long[BITMAP_WORDS];
+			for (int target = from + delta, end = toExcl + delta; target < end;) {
+				int len = Math.min(unit.bits() - (target & unit.limitMask()), end - target);
+				LongArrayShift.writeBits(moved, target, len, LongArrayShift.readBits(words, target - delta, len));
+				target += len;
+			}
+			return fromWords(moved);
+		}
+
+		@Override
+		void writeTo(long[] words) {
+			for (int i = 0; i < BITMAP_WORDS; i++) {
+				words[i] |= this.words[i];
+			}
+		}
+	}
+
+	static final class RunContainer extends Container {
+		/**
+		 * start, length - 1 pairs sorted by start, no two runs touch
+		 */
+		private final char[] runs;
+		private final int runCount;
+
+		RunContainer(char[] runs, int runCount) {
+			this.runs = runs;
+			this.runCount = runCount;
+		}
+
+		private int start(int run) {
+			return runs[run << 1];
+		}
+
+		private int end(int run) {
+			return runs[run << 1] + runs[(run << 1) + 1] + 1;
+		}
+
+		/**
+		 * @return the last run starting at or before <code>position</code>, or -1
+		 */
+		private int runAtOrBefore(int position) {
+			int low = 0;
+			int high = runCount - 1;
+			int result = -1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				if (start(mid) <= position) {
+					result = mid;
+					low = mid + 1;
+				} else {
+					high = mid - 1;
+				}
+			}
+			return result;
+		}
+
+		@Override
+		int cardinality() {
+			int result = 0;
+			for (int run = 0; run < runCount; run++) {
+				result += runs[(run << 1) + 1] + 1;
+			}
+			return result;
+		}
+
+		@Override
+		boolean contains(int position) {
+			int run = runAtOrBefore(position);
+			return run >= 0 && position < end(run);
+		}
+
+		@Override
+		Container add(int position) {
+			if (contains(position)) {
+				return this;
+			}
+			long[] words = new long[BITMAP_WORDS];
+			writeTo(words);
+			words[position >>> unit.multOrDivShift()] |= 1l << position;
+			return fromWords(words);
+		}
+
+		@Override
+		Container remove(int position) {
+			if (!contains(position)) {
+				return this;
+			}
+			long[] words = new long[BITMAP_WORDS];
+			writeTo(words);
+			words[position >>> unit.multOrDivShift()] &= ~(1l << position);
+			Container smaller = fromWords(words);
+			return smaller == null ? new ArrayContainer(new char[0], 0) : smaller;
+		}
+
+		@Override
+		int nextSet(int from) {
+			int run = runAtOrBefore(from);
+			if (run >= 0 && from < end(run)) {
+				return from;
+			}
+			return run + 1 < runCount ? start(run + 1) : -1;
+		}
+
+		@Override
+		int nextUnset(int from) {
+			int run = runAtOrBefore(from);
+			return run >= 0 && from < end(run) ? end(run) : from;
+		}
+
+		@Override
+		Container slice(int from, int toExcl, int delta) {
+			if (from == 0 && toExcl == CHUNK_BITS && delta == 0) {
+				return this;
+			}
+			int first = Math.max(runAtOrBefore(from), 0);
+			char[] moved = new char[(runCount - first) << 1];
+			int n = 0;
+			for (int run = first; run < runCount && start(run) < toExcl; run++) {
+				int start = Math.max(start(run), from);
+				int end = Math.min(end(run), toExcl);
+				if (start < end) {
+					moved[n++] = (char) (start + delta);
+					moved[n++] = (char) (end - start - 1);
+				}
+			}
+			return n == 0 ? null : new RunContainer(moved, n >>> 1);
+		}
+
+		@Override
+		void writeTo(long[] words) {
+			for (int run = 0; run < runCount; run++) {
+				int start = start(run);
+				int end = end(run);
+				while (start < end) {
+					int len = Math.min(unit.bits() - (start & unit.limitMask()), end - start);
+					words[start >>> unit.multOrDivShift()] |= (-1l >>> (unit.bits() - len)) << start;
+					start += len;
+				}
+			}
+		}
+
+		@Override
+		Container or(Container other) {
+			if (other instanceof RunContainer) {
+				RunContainer o = (RunContainer) other;
+				char[] merged = new char[(runCount + o.runCount) << 1];
+				int n = 0;
+				int i = 0;
+				int j = 0;
+				int lastEnd = -1;
+				while (i < runCount || j < o.runCount) {
+					boolean mine = j == o.runCount || (i < runCount && start(i) <= o.start(j));
+					int start = mine ? start(i) : o.start(j);
+					int end = mine ? end(i++) : o.end(j++);
+					if (n > 0 && start <= lastEnd) {
+						// touches or overlaps the previous run, extend it
+						lastEnd = Math.max(lastEnd, end);
+						merged[n - 1] = (char) (lastEnd - merged[n - 2] - 1);
+					} else {
+						merged[n++] = (char) start;
+						merged[n++] = (char) (end - start - 1);
+						lastEnd = end;
+					}
+				}
+				return new RunContainer(merged, n >>> 1);
+			}
+			return super.or(other);
+		}
+	}
+}
@@ -0,0 +1,350 @@
+package com.jamesratzlaff.util.bit.arrays;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import com.jamesratzlaff.util.bit.BitUnit;
+
+/**
+ * A fixed size bit array that many threads can modify at once. Every mutation
+ * is an atomic read-modify-write of one <code>long</code> through a
+ * {@link VarHandle} (<code>getAndBitwiseOr</code> and friends, which are CAS
+ * loops or locked instructions depending on the platform), so writers never
+ * lose each other's bits and never take a lock.
+ * <p>
+ * {@link #rotate(int)} and {@link #snapshot()} need the words to hold still, so
+ * they act as the writer side of a sequence lock. They make the sequence odd,
+ * wait for the mutations already in flight to finish and do their work. A
+ * rotation writes the rotated bits into a new array and publishes it before the
+ * sequence is made even again. Mutations that start while the sequence is odd
+ * wait until it is even, spinning briefly, then yielding, then parking for
+ * short intervals, so a long rotation does not keep every writer's core busy.
+ * The in-flight mutations are counted in striped,
+ * padded slots so that writers do not contend on a single counter. Readers
+ * never wait: {@link #get(int)} sees the bits either before or after a
+ * rotation, never half of one.
+ * </p>
+ */
+public class ConcurrentLongQuickBitArray {
+
+	public static final int BITS_PER_UNIT = BitUnit.LONG.bits();// 64
+	public static final int BITS_PER_UNIT_SHIFT = BitUnit.LONG.multOrDivShift();
+	public static final int BIT_SHIFT_UNIT_LIMIT_MASK = BitUnit.LONG.limitMask();
+
+	private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+	/**
+	 * <code>long</code>s between two writer slots, two cache lines so adjacent
+	 * slots are never prefetched together
+	 */
+	private static final int SLOT_PADDING = 16;
+	private static final int SLOTS = Math.min(64,
+			Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1);
+	/**
+	 * How long a waiting writer spins, then yields, before it starts parking
+	 */
+	private static final int SPINS = 1 << 6;
+	private static final int YIELDS = SPINS + (1 << 4);
+	private static final long PARK_NANOS = 1 << 16;
+
+	private final int size;
+	private final AtomicLongArray writers = new AtomicLongArray(SLOTS * SLOT_PADDING);
+	private final Object exclusive = new Object();
+	private volatile long[] bits;
+	private volatile long sequence;
+
+	public ConcurrentLongQuickBitArray(int size) {
+		this(new long[(size + BIT_SHIFT_UNIT_LIMIT_MASK) >>> BITS_PER_UNIT_SHIFT], size);
+	}
+
+	private ConcurrentLongQuickBitArray(long[] bits, int size) {
+		this.bits = bits;
+		this.size = size;
+	}
+
+	/**
+	 * @param lqba the bits to copy
+	 * @return a concurrent copy of <code>lqba</code>
+	 */
+	public static ConcurrentLongQuickBitArray from(LongQuickBitArray lqba) {
+		int size = lqba.getSize();
+		long[] copy = new long[(size + BIT_SHIFT_UNIT_LIMIT_MASK) >>> BITS_PER_UNIT_SHIFT];
+		System.arraycopy(lqba.getBitArray(), 0, copy, 0, copy.length);
+		return new ConcurrentLongQuickBitArray(copy, size);
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @param i bit to get
+	 * @return true iff bit i is set
+	 */
+	public boolean get(int i) {
+		long word = (long) WORDS.getVolatile(bits, i >>> BITS_PER_UNIT_SHIFT);
+		return (word & (1l << (i & BIT_SHIFT_UNIT_LIMIT_MASK))) != 0;
+	}
+
+	/**
+	 * Sets bit i.
+	 *
+	 * @param i bit to set
+	 */
+	public void set(int i) {
+		testAndSet(i);
+	}
+
+	/**
+	 * Sets bit i and reports whether this call was the one that set it, so
+	 * exactly one of several threads racing to set the same bit sees
+	 * <code>false</code>
+	 *
+	 * @param i bit to set
+	 * @return the value bit i had before
+	 */
+	public boolean testAndSet(int i) {
+		long mask = 1l << (i & BIT_SHIFT_UNIT_LIMIT_MASK);
+		int slot = enter();
+		try {
+			return ((long) WORDS.getAndBitwiseOr(bits, i >>> BITS_PER_UNIT_SHIFT, mask) & mask) != 0;
+		} finally {
+			exit(slot);
+		}
+	}
+
+	/**
+	 * Unsets bit i.
+	 *
+	 * @param i bit to unset
+	 */
+	public void unset(int i) {
+		int slot = enter();
+		try {
+			WORDS.getAndBitwiseAnd(bits, i >>> BITS_PER_UNIT_SHIFT, ~(1l << (i & BIT_SHIFT_UNIT_LIMIT_MASK)));
+		} finally {
+			exit(slot);
+		}
+	}
+
+	/**
+	 * Flips bit i.
+	 *
+	 * @param i bit to flip
+	 */
+	public void flip(int i) {
+		int slot = enter();
+		try {
+			WORDS.getAndBitwiseXor(bits, i >>> BITS_PER_UNIT_SHIFT, 1l << (i & BIT_SHIFT_UNIT_LIMIT_MASK));
+		} finally {
+			exit(slot);
+		}
+	}
+
+	/**
+	 * Sets a range of bits, one atomic OR per word. Other threads may see part
+	 * of the range set before all of it is.
+	 *
+	 * @param start start of range, inclusive.
+	 * @param end   end of range, exclusive
+	 */
+	public void setRange(int start, int end) {
+		if (end < start || start < 0 || end > size) {
+			throw new IllegalArgumentException();
+		}
+		if (end == start) {
+			return;
+		}
+		end--;
+		int firstWord = start >>> BITS_PER_UNIT_SHIFT;
+		int lastWord = end >>> BITS_PER_UNIT_SHIFT;
+		int slot = enter();
+		try {
+			long[] words = bits;
+			for (int i = firstWord; i <= lastWord; i++) {
+				int firstBit = i > firstWord ? 0 : start & BIT_SHIFT_UNIT_LIMIT_MASK;
+				int lastBit = i < lastWord ? BIT_SHIFT_UNIT_LIMIT_MASK : end & BIT_SHIFT_UNIT_LIMIT_MASK;
+				WORDS.getAndBitwiseOr(words, i, (2l << lastBit) - (1l << firstBit));
+			}
+		} finally {
+			exit(slot);
+		}
+	}
+
+	/**
+	 * Writes <code>this | other</code> to <code>dest</code>, the concurrent
+	 * counterpart of {@link LongQuickBitArray#orInto(LongQuickBitArray, LongQuickBitArray)}.
+	 * When <code>dest</code> is this array it is one atomic OR per non-zero word
+	 * of <code>other</code>, so many writers can merge their batches at once.
+	 * Otherwise this array is read without waiting, like {@link #get(int)}, and
+	 * the words holding the first {@link #getSize()} bits of <code>dest</code>
+	 * are each replaced atomically. Bits past the end of <code>other</code> are
+	 * copied from this array.
+	 *
+	 * @param other the bits to combine with, not modified
+	 * @param dest  where the first {@link #getSize()} bits of the result are
+	 *              written, may be this array
+	 * @return <code>dest</code>
+	 */
+	public ConcurrentLongQuickBitArray orInto(LongQuickBitArray other, ConcurrentLongQuickBitArray dest) {
+		if (dest.size < size) {
+			throw new IllegalArgumentException("the destination has " + dest.size + " bits, " + size + " are needed");
+		}
+		if (size == 0) {
+			return dest;
+		}
+		long[] source = other.getBitArray();
+		int overlap = Math.min(size, other.getSize());
+		int overlapWords = (overlap + BIT_SHIFT_UNIT_LIMIT_MASK) >>> BITS_PER_UNIT_SHIFT;
+		int lastWord = (size - 1) >>> BITS_PER_UNIT_SHIFT;
+		long[] own = dest == this ? null : bits;
+		int slot = dest.enter();
+		try {
+			long[] words = dest.bits;
+			for (int i = 0; i <= lastWord; i++) {
+				long value = 0;
+				if (i < overlapWords) {
+					value = source[i];
+					if (i == overlapWords - 1) {
+						value &= -1l >>> (-overlap & BIT_SHIFT_UNIT_LIMIT_MASK);
+					}
+				}
+				if (own == null) {
+					if (value != 0) {
+						WORDS.getAndBitwiseOr(words, i, value);
+					}
+					continue;
+				}
+				value |= (long) WORDS.getVolatile(own, i);
+				if (i < lastWord) {
+					WORDS.setVolatile(words, i, value);
+					continue;
+				}
+				// keep the bits of dest past the end of this array
+				long mask = -1l >>> (-size & BIT_SHIFT_UNIT_LIMIT_MASK);
+				long old;
+				do {
+					old = (long) WORDS.getVolatile(words, i);
+				} while (!WORDS.compareAndSet(words, i, old, (old & ~mask) | (value & mask)));
+			}
+		} finally {
+			dest.exit(slot);
+		}
+		return dest;
+	}
+
+	/**
+	 * Rotates a copy of the bits on the calling thread and publishes it.
+	 * Mutations wait while the copy is made, readers do not.
+	 *
+	 * @param amount if negative it rotates left, positive right
+	 * @return this instance
+	 */
+	public ConcurrentLongQuickBitArray rotate(int amount) {
+		return rotate(amount, null);
+	}
+
+	/**
+	 * Rotates by writing the rotated bits into a new array and publishing it.
+	 * Mutations wait while the copy is made, readers do not.
+	 *
+	 * @param amount if negative it rotates left, positive right
+	 * @param pool   the pool to split the copy across when it is large (see
+	 *               {@link ParallelArrayShift}), or <code>null</code> to rotate
+	 *               on the calling thread
+	 * @return this instance
+	 */
+	public ConcurrentLongQuickBitArray rotate(int amount, ForkJoinPool pool) {
+		synchronized (exclusive) {
+			pauseWriters();
+			try {
+				long[] current = bits;
+				long[] rotated;
+				if (pool == null) {
+					rotated = LongArrayShift.bitwiseRotate(current.clone(), size, amount);
+				} else {
+					rotated = ParallelArrayShift.bitwiseRotate(current, new long[current.length], size, amount,
+							ParallelArrayShift.DEFAULT_THRESHOLD_WORDS, pool);
+				}
+				bits = rotated;
+			} finally {
+				resumeWriters();
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * @return a copy of the bits with no mutation half applied, taken while
+	 *         mutations wait
+	 */
+	public LongQuickBitArray snapshot() {
+		synchronized (exclusive) {
+			pauseWriters();
+			try {
+				return new LongQuickBitArray(bits.clone(), size);
+			} finally {
+				resumeWriters();
+			}
+		}
+	}
+
+	/**
+	 * Registers a mutation, waiting out a rotation or snapshot that is in progress
+	 *
+	 * @return the slot the mutation was counted in
+	 */
+	private int enter() {
+		int slot = (int) (Thread.currentThread().threadId() & (SLOTS - 1)) * SLOT_PADDING;
+		for (;;) {
+			writers.getAndIncrement(slot);
+			if ((sequence & 1) == 0) {
+				return slot;
+			}
+			writers.getAndDecrement(slot);
+			for (int attempt = 0; (sequence & 1) != 0; attempt++) {
+				backOff(attempt);
+			}
+		}
+	}
+
+	private static void backOff(int attempt) {
+		if (attempt < SPINS) {
+			Thread.onSpinWait();
+		} else if (attempt < YIELDS) {
+			Thread.yield();
+		} else {
+			LockSupport.parkNanos(PARK_NANOS);
+		}
+	}
+
+	private void exit(int slot) {
+		writers.getAndDecrement(slot);
+	}
+
+	/**
+	 * Makes the sequence odd so no new mutation starts, then waits for every
+	 * mutation that started before to finish. Writers increment their slot before
+	 * they read the sequence and this reads the slots after writing it, so at
+	 * least one of them sees the other.
+	 */
+	private void pauseWriters() {
+		sequence = sequence + 1;
+		for (int slot = 0; slot < SLOTS * SLOT_PADDING; slot += SLOT_PADDING) {
+			while (writers.get(slot) != 0) {
+				Thread.onSpinWait();
+			}
+		}
+	}
+
+	private void resumeWriters() {
+		sequence = sequence + 1;
+	}
+
+	@Override
+	public String toString() {
+		return snapshot().toString();
+	}
+}
@@ -0,0 +1,352 @@
+package com.jamesratzlaff.util.bit.arrays;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.jamesratzlaff.util.bit.BitUnit;
+
+/**
+ * Hamming distances between a cyclic bit string and every rotation of another
+ * one, <code>profile[k] = bitCount(a ^ rotate(b, k))</code> for every
+ * <code>k</code> in <code>[0, n)</code>.
+ * <p>
+ * Since <code>bitCount(a ^ r) = bitCount(a) + bitCount(r) - 2 bitCount(a &amp; r)</code>
+ * and rotating does not change <code>bitCount(b)</code>, only the overlap has to
+ * be counted for every rotation. The direct path does that with
+ * {@link LongArrayShift#andRotatedCardinality(long[], long[], long, long)},
+ * which reads <code>b</code> at the rotated offset a word at a time, and splits
+ * the rotations across a {@link ForkJoinPool}. That is
+ * <code>O(n&sup2; / 64)</code> without copying anything. For long strings the
+ * FFT path computes all of the overlaps at once as a circular
+ * cross-correlation in <code>O(n log n)</code>, at the cost of two
+ * <code>double[]</code>s of the next power of two at or above <code>2n</code>
+ * and a table of half that many sines and cosines. The FFT path runs on the
+ * calling thread.
+ * </p>
+ */
+public final class CyclicCorrelation {
+
+	private static final BitUnit unit = BitUnit.LONG;
+
+	/**
+	 * Strings of at least this many bits use the FFT path in
+	 * {@link #hammingProfile(LongQuickBitArray, LongQuickBitArray)}
+	 */
+	public static final int FFT_THRESHOLD_BITS = 1 << 15;
+
+	/**
+	 * The longest string the FFT path accepts (its <code>double[]</code>s then
+	 * take 768 MiB), past this it uses too much memory and the rounding error
+	 * starts to matter
+	 */
+	public static final int FFT_MAX_BITS = 1 << 24;
+
+	private CyclicCorrelation() {
+	}
+
+	/**
+	 * @param a the bits that are not rotated
+	 * @param b the bits that are rotated, the same size as <code>a</code>
+	 * @return <code>bitCount(a ^ rotate(b, k))</code> at index <code>k</code>,
+	 *         using the FFT for long strings and the common pool otherwise
+	 */
+	public static int[] hammingProfile(LongQuickBitArray a, LongQuickBitArray b) {
+		checkSameSize(a, b);
+		int n = a.getSize();
+		if (n >= FFT_THRESHOLD_BITS && n <= FFT_MAX_BITS) {
+			return hammingProfileFFT(a, b);
+		}
+		return hammingProfile(a, b, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * The direct path, counting the overlap of every rotation with
+	 * {@link LongQuickBitArray#andRotatedCardinality(LongQuickBitArray, int)}
+	 *
+	 * @param a    the bits that are not rotated
+	 * @param b    the bits that are rotated, the same size as <code>a</code>
+	 * @param pool the pool to split the rotations across, or <code>null</code>
+	 *             to compute them on the calling thread
+	 * @return <code>bitCount(a ^ rotate(b, k))</code> at index <code>k</code>
+	 */
+	public static int[] hammingProfile(LongQuickBitArray a, LongQuickBitArray b, ForkJoinPool pool) {
+		checkSameSize(a, b);
+		int n = a.getSize();
+		int[] profile = new int[n];
+		if (n == 0) {
+			return profile;
+		}
+		int words = (n + unit.limitMask()) >>> unit.multOrDivShift();
+		int weight = a.andCardinality(a) + b.andCardinality(b);
+		int rotationsPerTask = Math.max(1, ParallelArrayShift.CHUNK_WORDS / words);
+		ProfileTask task = new ProfileTask(a.getBitArray(), b.getBitArray(), n, weight, profile, 0, n,
+				rotationsPerTask);
+		if (pool == null || (long) n * words < ParallelArrayShift.DEFAULT_THRESHOLD_WORDS) {
+			task.compute();
+		} else {
+			pool.invoke(task);
+		}
+		return profile;
+	}
+
+	/**
+	 * The FFT path, the overlap of every rotation as one circular
+	 * cross-correlation of the two strings. It is sequential, unlike
+	 * {@link #hammingProfile(LongQuickBitArray, LongQuickBitArray, ForkJoinPool)}.
+	 *
+	 * @param a the bits that are not rotated
+	 * @param b the bits that are rotated, the same size as <code>a</code>, no
+	 *          longer than {@link #FFT_MAX_BITS}
+	 * @return <code>bitCount(a ^ rotate(b, k))</code> at index <code>k</code>
+	 */
+	public static int[] hammingProfileFFT(LongQuickBitArray a, LongQuickBitArray b) {
+		checkSameSize(a, b);
+		int n = a.getSize();
+		if (n > FFT_MAX_BITS) {
+			throw new IllegalArgumentException(n + " bits is more than the " + FFT_MAX_BITS + " the FFT path handles");
+		}
+		int[] profile = new int[n];
+		if (n == 0) {
+			return profile;
+		}
+		int m = Integer.highestOneBit((n << 1) - 1) << 1;
+		// a in the real part and b in the imaginary part, so one transform gives
+		// both spectra
+		double[] re = new double[m];
+		double[] im = new double[m];
+		long[] aBits = a.getBitArray();
+		long[] bBits = b.getBitArray();
+		for (int i = 0; i < n; i++) {
+			re[i] = (aBits[i >>> unit.multOrDivShift()] >>> i) & 1;
+			im[i] = (bBits[i >>> unit.multOrDivShift()] >>> i) & 1;
+		}
+		double[] cos = new double[m >>> 1];
+		double[] sin = new double[m >>> 1];
+		twiddles(cos, sin);
+		fft(re, im, cos, sin, false);
+		// A(k) * conj(B(k)) with A and B pulled back apart from Z(k) and Z(m - k),
+		// both ends of each pair are written at once so it can be done in place
+		for (int k = 0; k <= (m >>> 1); k++) {
+			int j = (m - k) & (m - 1);
+			double zkRe = re[k];
+			double zkIm = im[k];
+			double zjRe = re[j];
+			double zjIm = im[j];
+			productInto(re, im, k, zkRe, zkIm, zjRe, zjIm);
+			productInto(re, im, j, zjRe, zjIm, zkRe, zkIm);
+		}
+		fft(re, im, cos, sin, true);
+		int weight = a.andCardinality(a) + b.andCardinality(b);
+		for (int k = 0; k < n; k++) {
+			// the pairs that do not wrap are at lag k, the ones that do at lag k - n
+			long overlap = Math.round((re[k] + re[m - n + k]) / m);
+			profile[k] = (int) (weight - (overlap << 1));
+		}
+		return profile;
+	}
+
+	/**
+	 * Writes <code>A(k) * conj(B(k))</code> to index <code>k</code>, where
+	 * <code>z</code> is <code>Z(k)</code> and <code>mirror</code> is
+	 * <code>Z(m - k)</code>
+	 */
+	private static void productInto(double[] re, double[] im, int k, double zRe, double zIm, double mirrorRe,
+			double mirrorIm) {
+		double aRe = (zRe + mirrorRe) * 0.5;
+		double aIm = (zIm - mirrorIm) * 0.5;
+		double bRe = (zIm + mirrorIm) * 0.5;
+		double bIm = (mirrorRe - zRe) * 0.5;
+		re[k] = aRe * bRe + aIm * bIm;
+		im[k] = aIm * bRe - aRe * bIm;
+	}
+
+	/**
+	 * @param a      the bits that are not rotated
+	 * @param b      the bits that are rotated, the same size as <code>a</code>
+	 * @param amount if negative it rotates left, positive right
+	 * @return <code>bitCount(a ^ rotate(b, amount))</code>
+	 */
+	public static int hammingDistance(LongQuickBitArray a, LongQuickBitArray b, int amount) {
+		checkSameSize(a, b);
+		return a.andCardinality(a) + b.andCardinality(b) - (a.andRotatedCardinality(b, amount) << 1);
+	}
+
+	/**
+	 * @param a     the bits that are not rotated
+	 * @param b     the bits that are rotated, the same size as <code>a</code>
+	 * @param count the number of rotations to return
+	 * @return the <code>count</code> rotations of <code>b</code> closest to
+	 *         <code>a</code>, closest first
+	 * @see #bestAlignments(int[], int)
+	 */
+	public static int[] bestAlignments(LongQuickBitArray a, LongQuickBitArray b, int count) {
+		return bestAlignments(hammingProfile(a, b), count);
+	}
+
+	/**
+	 * Selects the smallest distances of a profile with a bounded heap, so only
+	 * <code>count</code> entries are ever sorted
+	 *
+	 * @param profile a profile from
+	 *                {@link #hammingProfile(LongQuickBitArray, LongQuickBitArray)}
+	 * @param count   the number of rotations to return
+	 * @return the <code>min(count, profile.length)</code> rotations with the
+	 *         smallest distances, smallest first and the smaller rotation first
+	 *         when distances are equal
+	 */
+	public static int[] bestAlignments(int[] profile, int count) {
+		count = Math.min(count, profile.length);
+		if (count <= 0) {
+			return new int[0];
+		}
+		// distance in the high half and rotation in the low half, so the
+		// natural order of the longs is the order of the result
+		long[] heap = new long[count];
+		int heapSize = 0;
+		for (int k = 0; k < profile.length; k++) {
+			long entry = ((long) profile[k] << Integer.SIZE) | k;
+			if (heapSize < count) {
+				heap[heapSize] = entry;
+				siftUp(heap, heapSize++);
+			} else if (entry < heap[0]) {
+				heap[0] = entry;
+				siftDown(heap, heapSize);
+			}
+		}
+		Arrays.sort(heap);
+		int[] result = new int[count];
+		for (int i = 0; i < count; i++) {
+			result[i] = (int) heap[i];
+		}
+		return result;
+	}
+
+	private static void siftUp(long[] heap, int i) {
+		long entry = heap[i];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (heap[parent] >= entry) {
+				break;
+			}
+			heap[i] = heap[parent];
+			i = parent;
+		}
+		heap[i] = entry;
+	}
+
+	private static void siftDown(long[] heap, int size) {
+		long entry = heap[0];
+		int i = 0;
+		int child;
+		while ((child = (i << 1) + 1) < size) {
+			if (child + 1 < size && heap[child + 1] > heap[child]) {
+				child++;
+			}
+			if (heap[child] <= entry) {
+				break;
+			}
+			heap[i] = heap[child];
+			i = child;
+		}
+		heap[i] = entry;
+	}
+
+	/**
+	 * Fills <code>cos[k]</code> and <code>sin[k]</code> with the cosine and sine
+	 * of <code>2&pi;k / m</code>, where <code>m</code> is twice the table length
+	 */
+	private static void twiddles(double[] cos, double[] sin) {
+		double angle = Math.PI / cos.length;
+		for (int k = 0; k < cos.length; k++) {
+			cos[k] = Math.cos(angle * k);
+			sin[k] = Math.sin(angle * k);
+		}
+	}
+
+	/**
+	 * In-place iterative radix-2 transform, <code>re.length</code> must be a
+	 * power of two and the tables from {@link #twiddles(double[], double[])} half
+	 * as long. A level of length <code>len</code> uses every
+	 * <code>(m / len)</code>th entry of the tables. The inverse is not scaled.
+	 */
+	private static void fft(double[] re, double[] im, double[] cos, double[] sin, boolean inverse) {
+		int m = re.length;
+		for (int i = 1, j = 0; i < m; i++) {
+			int bit = m >>> 1;
+			for (; (j & bit) != 0; bit >>>= 1) {
+				j ^= bit;
+			}
+			j |= bit;
+			if (i < j) {
+				double t = re[i];
+				re[i] = re[j];
+				re[j] = t;
+				t = im[i];
+				im[i] = im[j];
+				im[j] = t;
+			}
+		}
+		for (int len = 2; len <= m; len <<= 1) {
+			int half = len >>> 1;
+			int stride = m / len;
+			for (int k = 0; k < half; k++) {
+				double wRe = cos[k * stride];
+				double wIm = inverse ? sin[k * stride] : -sin[k * stride];
+				for (int i = k; i < m; i += len) {
+					int j = i + half;
+					double tRe = re[j] * wRe - im[j] * wIm;
+					double tIm = re[j] * wIm + im[j] * wRe;
+					re[j] = re[i] - tRe;
+					im[j] = im[i] - tIm;
+					re[i] += tRe;
+					im[i] += tIm;
+				}
+			}
+		}
+	}
+
+	private static void checkSameSize(LongQuickBitArray a, LongQuickBitArray b) {
+		if (a.getSize() != b.getSize()) {
+			throw new IllegalArgumentException("Sizes don't match");
+		}
+	}
+
+	private static final class ProfileTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final long[] a;
+		private final long[] b;
+		private final int size;
+		private final int weight;
+		private final int[] profile;
+		private final int fromRotation;
+		private final int toRotationExcl;
+		private final int rotationsPerTask;
+
+		ProfileTask(long[] a, long[] b, int size, int weight, int[] profile, int fromRotation, int toRotationExcl,
+				int rotationsPerTask) {
+			this.a = a;
+			this.b = b;
+			this.size = size;
+			this.weight = weight;
+			this.profile = profile;
+			this.fromRotation = fromRotation;
+			this.toRotationExcl = toRotationExcl;
+			this.rotationsPerTask = rotationsPerTask;
+		}
+
+		@Override
+		protected void compute() {
+			int rotations = toRotationExcl - fromRotation;
+			if (rotations <= rotationsPerTask || getPool() == null) {
+				for (int k = fromRotation; k < toRotationExcl; k++) {
+					profile[k] = (int) (weight - (LongArrayShift.andRotatedCardinality(a, b, size, k) << 1));
+				}
+				return;
+			}
+			int mid = fromRotation + (rotations >>> 1);
+			invokeAll(new ProfileTask(a, b, size, weight, profile, fromRotation, mid, rotationsPerTask),
+					new ProfileTask(a, b, size, weight, profile, mid, toRotationExcl, rotationsPerTask));
+		}
+	}
+}
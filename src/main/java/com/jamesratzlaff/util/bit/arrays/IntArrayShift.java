@@ -22,37 +22,224 @@ public class IntArrayShift {
 	}
 
 	/**
-	 * for some reason negative amounts take ~2.5 longer than postitive amounts
+	 * Rotates in place using {@link #bitwiseRotateInPlace(int[], int, int)}, so
+	 * positive and negative amounts cost the same and nothing is allocated
 	 * 
-	 * @param bits an <code>long[]</code> that represents bits
+	 * @param bits an <code>int[]</code> that represents bits
 	 * @param size the number of <i>bit</i> this <code>int[]</code> represents
 	 * @param amt  the amount to rotate the bits, a positive value will rotate
 	 *             right, a negative value will rotate left
 	 * @return the passed in <code>bits</code> parameter with its bits rotated
 	 */
 	public static int[] bitwiseRotate(int[] bits, int size, int amt) {
-		if(amt>=0) {
-		return shiftRight(bits, (int) size, (int) amt);
+		return bitwiseRotateInPlace(bits, size, amt);
+	}
+
+	/**
+	 * Rotates the bits with O(1) extra memory, see
+	 * {@link LongArrayShift#bitwiseRotateInPlace(long[], long, long)}
+	 * 
+	 * @param bits an <code>int[]</code> that represents bits
+	 * @param size the number of <i>bit</i> this <code>int[]</code> represents
+	 * @param amt  the amount to rotate the bits, a positive value will rotate
+	 *             right, a negative value will rotate left
+	 * @return the passed in <code>bits</code> parameter with its bits rotated
+	 */
+	public static int[] bitwiseRotateInPlace(int[] bits, int size, int amt) {
+		BitRotationEngine.rotate(BitStore.of(bits), size, amt);
+		return bits;
+	}
+
+	/**
+	 * @see LongArrayShift#reverseBits(long[], long, long)
+	 */
+	public static void reverseBits(int[] bits, int from, int toExcl) {
+		while (toExcl - from > 1) {
+			int len = Math.min(unit.bits(), (toExcl - from) >>> 1);
+			int low = readBits(bits, from, len);
+			int high = readBits(bits, toExcl - len, len);
+			writeBits(bits, from, len, Integer.reverse(high) >>> (unit.bits() - len));
+			writeBits(bits, toExcl - len, len, Integer.reverse(low) >>> (unit.bits() - len));
+			from += len;
+			toExcl -= len;
+		}
+	}
+
+	/**
+	 * 
+	 * @param bits     an <code>int[]</code> that represents bits
+	 * @param bitIndex the index of the first bit to read
+	 * @param len      the number of bits to read (1-32)
+	 * @return the <code>len</code> bits starting at <code>bitIndex</code> with the
+	 *         bit at <code>bitIndex</code> as the least significant bit
+	 */
+	public static int readBits(int[] bits, int bitIndex, int len) {
+		int idx = bitIndex >>> unit.multOrDivShift();
+		int offset = bitIndex & unit.limitMask();
+		int value = bits[idx] >>> offset;
+		if (offset + len > unit.bits()) {
+			value |= bits[idx + 1] << (unit.bits() - offset);
+		}
+		return value & (-1 >>> (unit.bits() - len));
+	}
+
+	/**
+	 * @see LongArrayShift#readBitsCyclic(long[], long, long, int)
+	 */
+	public static int readBitsCyclic(int[] bits, int size, int bitIndex, int len) {
+		int untilEnd = size - bitIndex;
+		if (len <= untilEnd) {
+			return readBits(bits, bitIndex, len);
+		}
+		return readBits(bits, bitIndex, untilEnd) | (readBits(bits, 0, len - untilEnd) << untilEnd);
+	}
+
+	/**
+	 * Overwrites the <code>len</code> bits starting at <code>bitIndex</code> with
+	 * the lower <code>len</code> bits of <code>value</code>
+	 * 
+	 * @param bits     an <code>int[]</code> that represents bits
+	 * @param bitIndex the index of the first bit to write
+	 * @param len      the number of bits to write (1-32)
+	 * @param value    the bits to write, least significant bit first
+	 */
+	public static void writeBits(int[] bits, int bitIndex, int len, int value) {
+		int idx = bitIndex >>> unit.multOrDivShift();
+		int offset = bitIndex & unit.limitMask();
+		int mask = -1 >>> (unit.bits() - len);
+		value &= mask;
+		bits[idx] = (bits[idx] & ~(mask << offset)) | (value << offset);
+		if (offset + len > unit.bits()) {
+			int spill = unit.bits() - offset;
+			bits[idx + 1] = (bits[idx + 1] & ~(mask >>> spill)) | (value >>> spill);
+		}
+	}
+
+	/**
+	 * @see LongArrayShift#carryShiftLeft(long[], int, int, int)
+	 */
+	public static void carryShiftLeft(int[] bits, int from, int toExcl, int amt) {
+		int carryShift = unit.bits() - amt;
+		int carry = bits[toExcl - 1] >>> carryShift;
+		for (int i = from; i < toExcl; i++) {
+			int current = bits[i];
+			bits[i] = (current << amt) | carry;
+			carry = current >>> carryShift;
 		}
-		return bitwiseRotateUsingSubArrays(bits, size, amt);
 	}
 
 	
 
+	/**
+	 * @see LongArrayShift#xorRotated(long[], long[], long, long, long[])
+	 */
+	public static int[] xorRotated(int[] a, int[] b, int size, int amt, int[] dest) {
+		if (size == 0) {
+			return dest;
+		}
+		int sourceBit = LongArrayShift.normalizeCyclicI(-(long) amt, size);
+		int words = (size + unit.limitMask()) >>> unit.multOrDivShift();
+		int fullWords = size >>> unit.multOrDivShift();
+		int i = 0;
+		while (i < words) {
+			int run = Math.min(fullWords - i, (size - sourceBit) >>> unit.multOrDivShift());
+			if (run > 0) {
+				int idx = sourceBit >>> unit.multOrDivShift();
+				int offset = sourceBit & unit.limitMask();
+				if (offset == 0) {
+					for (int k = 0; k < run; k++) {
+						dest[i + k] = a[i + k] ^ b[idx + k];
+					}
+				} else {
+					int carry = unit.bits() - offset;
+					for (int k = 0; k < run; k++) {
+						dest[i + k] = a[i + k] ^ ((b[idx + k] >>> offset) | (b[idx + k + 1] << carry));
+					}
+				}
+				i += run;
+				sourceBit = advance(sourceBit, run << unit.multOrDivShift(), size);
+			}
+			if (i < words) {
+				int len = Math.min(unit.bits(), size - (i << unit.multOrDivShift()));
+				dest[i] = a[i] ^ readBitsCyclic(b, size, sourceBit, len);
+				i++;
+				sourceBit = advance(sourceBit, len, size);
+			}
+		}
+		return dest;
+	}
+
+	/**
+	 * @see LongArrayShift#andRotatedCardinality(long[], long[], long, long)
+	 */
+	public static long andRotatedCardinality(int[] a, int[] b, int size, int amt) {
+		if (size == 0) {
+			return 0;
+		}
+		int sourceBit = LongArrayShift.normalizeCyclicI(-(long) amt, size);
+		int words = (size + unit.limitMask()) >>> unit.multOrDivShift();
+		int fullWords = size >>> unit.multOrDivShift();
+		long result = 0;
+		int i = 0;
+		while (i < words) {
+			int run = Math.min(fullWords - i, (size - sourceBit) >>> unit.multOrDivShift());
+			if (run > 0) {
+				int idx = sourceBit >>> unit.multOrDivShift();
+				int offset = sourceBit & unit.limitMask();
+				if (offset == 0) {
+					for (int k = 0; k < run; k++) {
+						result += Integer.bitCount(a[i + k] & b[idx + k]);
+					}
+				} else {
+					int carry = unit.bits() - offset;
+					for (int k = 0; k < run; k++) {
+						result += Integer.bitCount(a[i + k] & ((b[idx + k] >>> offset) | (b[idx + k + 1] << carry)));
+					}
+				}
+				i += run;
+				sourceBit = advance(sourceBit, run << unit.multOrDivShift(), size);
+			}
+			if (i < words) {
+				int len = Math.min(unit.bits(), size - (i << unit.multOrDivShift()));
+				result += Integer.bitCount(a[i] & readBitsCyclic(b, size, sourceBit, len));
+				i++;
+				sourceBit = advance(sourceBit, len, size);
+			}
+		}
+		return result;
+	}
+
+	private static int advance(int bitIndex, int len, int size) {
+		bitIndex += len;
+		return bitIndex >= size ? bitIndex - size : bitIndex;
+	}
+
 	public static int[] nonMutatingBitwiseRotateInnerBits(int[] bits, int size, int amt, int innerOffset,
 			int innerEndOffsetExcl) {
 		int[] clone = bits.clone();
 		return bitwiseRotateInnerBits(clone, size, amt, innerOffset, innerEndOffsetExcl);
 	}
 
+	/**
+	 * Rotates only the bits in <code>[innerOffset, innerEndOffsetExcl)</code>,
+	 * leaving every bit outside of that range as it was. Only the units that
+	 * overlap the range are read or written, so the cost depends on the length of
+	 * the range and not on the size of <code>bits</code>, and nothing is
+	 * allocated.
+	 * 
+	 * @param bits               an <code>int[]</code> that represents bits
+	 * @param size               the number of <i>bit</i> this <code>int[]</code>
+	 *                           represents
+	 * @param amt                the amount to rotate the range, a positive value
+	 *                           will rotate right, a negative value will rotate
+	 *                           left
+	 * @param innerOffset        the first bit of the range (inclusive)
+	 * @param innerEndOffsetExcl the end of the range (exclusive)
+	 * @return the passed in <code>bits</code> parameter with the range rotated
+	 */
 	public static int[] bitwiseRotateInnerBits(int[] bits, int size, int amt, int innerOffset,
 			int innerEndOffsetExcl) {
-		int[] subBits = subBits(bits, innerOffset, innerEndOffsetExcl);
-		int[] XORSubbits = offset(subBits, innerOffset);
-		bitwiseRotate(subBits, innerEndOffsetExcl - innerOffset, amt);
-		subBits = offset(subBits, innerOffset);
-		nonCyclicXor(bits, XORSubbits);
-		nonCyclicOr(bits, subBits);
+		BitRotationEngine.rotateRange(BitStore.of(bits), innerOffset, innerEndOffsetExcl, amt);
 		return bits;
 	}
 
@@ -63,13 +250,6 @@ public class IntArrayShift {
 		}
 	}
 
-	private static void nonCyclicXor(int[] toXor, int[] xorer) {
-		int endIdx = Math.min(toXor.length, xorer.length);
-		for (int i = 0; i < endIdx; i++) {
-			toXor[i] ^= xorer[i];
-		}
-	}
-
 	
 
 	/**
@@ -93,99 +273,12 @@ public class IntArrayShift {
 		int[] beginningOfResult = subBits(bits, (int) amt, (int) size);
 		nonCyclicOr(endOfResult, beginningOfResult);
 		System.arraycopy(endOfResult, 0, bits, 0, endOfResult.length);
-		return bits;
-	}
-
-	/**
-	 * rotates the integral representation of bits by the amount of given shift
-	 * units and fills in the empty bits from what was the last integral
-	 * representation with the values preceeding it and natrually trims the new last
-	 * intregral bit representation to the correct size
-	 * 
-	 * <pre>
-	 * integral_unit_size = 8 (bits)
-	 * (with a bit length of 17)
-	 * bitno:        7  6  5  4  3  2  1 0, 15 14 13 12 11 10 9 8,                      16
-	 *              {1  0  0  1  1  0  0 1, 1  1  1  0  1  0  1 0, 0  0  0  0  0  0  0  1}
-	 * integral idx:                     0                      1                       2
-	 * (rotate 2)
-	 * prev integral idx:                1                      2                      0 
-	 *              {1  0  0  1  1  0  0 1, 0  0  0  0  0  0  0 1, 1  1  1  0  1  0  1 0}
-	 * new integral idx:                 0                      1                      2
-	 * (collapse[mask->shift->or[prevIdx])
-	 * lastIndexBits=17%integral_unit_size=1
-	 * lastIndexCarryMask=-1<<lastIndexBits (11111110)
-	 * using new integral indices: 1 carries from 0, 2 carries from 1
-	 * we start from the index that represents the integral that was originally the last integral
-	 * representation before rotation (in this case 1)
-	 * -we shift it's value left by integral_unit_size-lastIndexBits (7 in this case)
-	 * -we take that value and or it (with the previous indexes value &'d with the last
-	 *  index carry mask which is then unsigned shifted right by lastIndexBits value)
-	 * -we then & and assign the previous indexes value with the inverse of the 
-	 *   lastIndexCarryMask (00000001)
-	 * -and we iterate backward to the previous value and repeat (like above or using the
-	 *  right-most index as the previous index if the current index is 0 
-	 *              {1  0  0  1  1  0  0 1, 0  0  0  0  0  0  0 1, 1  1  1  0  1  0  1 0}
-	 *                                      << 7
-	 *                                      1  0  0  0  0  0  0 0
-	 *              &1  1  1  1  1  1  1 0                       
-	 *               1  0  0  1  1  0  0 0,
-	 *               >> 1
-	 *               0  1  0  0  1  1  0 0
-	 *                                     |
-	 *                                      1  1  0  0  1  1  0 0
-	 *            &~(1  1  1  1  1  1  1 0)
-	 *               0  0  0  0  0  0  0 1                              
-	 *              {0  0  0  0  0  0  0 1, 1  1  0  0  1  1  0 0, 1  1  1  0  1  0  1 0}
-	 *            << 7
-	 *               1  0  0  0  0  0  0 0
-	 *                                                            &1  1  1  1  1  1  1 0
-	 *                                                             1  1  1  0  1  0  1 0
-	 *                                                           >>1
-	 *                                                             0  1  1  1  0  1  0 1
-	 *                                              | 
-	 *               1  1  1  1  0  1  0 1
-	 *                                                          &~(1  1  1  1  1  1  1 0)
-	 *                                                             0  0  0  0  0  0  0 0
-	 *              {1  1  1  1  0  1  0 1, 1  1  0  0  1  1  0 0, 0  0  0  0  0  0  0 0}
-	 * 
-	 * </pre>
-	 * 
-	 * @param bits
-	 * @param size
-	 * @param shiftUnits
-	 * @return
-	 */
-	private static int[] rotateAndCollapseForRightShift(int[] bits, int size, int shiftUnits) {
-		rotate(bits, shiftUnits);
-		int lastIndex = bits.length - 1;
-		int newLastBitsIndex = normalizeCyclicI(lastIndex + shiftUnits, bits.length);
-		int numberOfLastIndexBits = size & unit.limitMask();
-
-		if (numberOfLastIndexBits == 0) {
-			return bits;
-		}
-		int lastIndexCarryMask = -1 << numberOfLastIndexBits;
-		int numberOfShifts = unit.bits() - numberOfLastIndexBits;
-		for (int i = 0; i < bits.length; i++) {
-			int currentIndex = normalizeCyclicI(newLastBitsIndex - i, bits.length);
-			int prevIndex = normalizeCyclicI(currentIndex - 1, bits.length);
-			if (currentIndex == lastIndex) {
-				break;
-			}
-			int currentValue = bits[currentIndex];
-			currentValue <<= numberOfShifts;
-			int prevValue = bits[prevIndex];
-			int orVal = prevValue & lastIndexCarryMask;
-			orVal >>>= numberOfLastIndexBits;
-			long newPrevValueMask = ~(-1l << numberOfLastIndexBits);
-			prevValue &= newPrevValueMask;
-			currentValue |= orVal;
-			bits[currentIndex] = currentValue;
-			bits[prevIndex] = prevValue;
+		// offset(..) leaves off the last unit when it would be empty
+		int units = (int) ((size + unit.limitMask()) >>> unit.multOrDivShift());
+		for (int i = endOfResult.length; i < units; i++) {
+			bits[i] = 0;
 		}
 		return bits;
-
 	}
 
 	
@@ -222,7 +315,7 @@ public class IntArrayShift {
 
 	 static long aLTb(long a, long b) {
 		// ((a-b)&~(-1l>>>1))>>>unit.limitMask()
-		return ((a - b) & ~(-1l >>> 1)) >>> unit.limitMask();
+		return ((a - b) & ~(-1l >>> 1)) >>> BitUnit.LONG.limitMask();
 	}
 
 	 static int aLTb(int a, int b) {
@@ -235,125 +328,16 @@ public class IntArrayShift {
 	}
 
 	 static long aGTb(long a, long b) {
-		switch ((int) ((((a >>> (unit.bits() >> 1)) ^ (b >>> (unit.bits() >> 1)))
-				| ((a & (-1l >>> (unit.bits() >> 1))) ^ (b & (-1l >>> (unit.bits() >> 1))))))) {
+		switch ((int) ((((a >>> (BitUnit.LONG.bits() >> 1)) ^ (b >>> (BitUnit.LONG.bits() >> 1)))
+				| ((a & (-1l >>> (BitUnit.LONG.bits() >> 1))) ^ (b & (-1l >>> (BitUnit.LONG.bits() >> 1))))))) {
 		case 0:
 			return 0;
 		default:
-			return (~((~(((a - b) & ~(-1l >>> 1)) >>> unit.limitMask()))) - 1) & 1;
+			return (~((~(((a - b) & ~(-1l >>> 1)) >>> BitUnit.LONG.limitMask()))) - 1) & 1;
 		}
 //		return (~((~(aEQb(a, b))) & (~(((a-b)&~(-1l>>>1))>>>unit.limitMask())))-1)&1;
 	}
 
-	/**
-	 * This actually operates more like getting the carries for left shifting btw
-	 * 
-	 * @param bits
-	 * @param size
-	 * @param amt
-	 * @return
-	 */
-	public static int[] getOrValsForRightShift(int[] bits, int size, int amt) {
-		switch (amt) {
-		case 0:
-			return new int[bits.length];
-		default: {
-			int lastIndex = bits.length - 1;
-			int numberOfLastIndexBits = size & unit.limitMask();
-			switch (size) {
-			case 0:
-				break;
-			default:
-				switch (numberOfLastIndexBits) {
-				case 0:
-					numberOfLastIndexBits = unit.bits();
-				default:
-					break;
-				}
-			}
-			int carryMask = ~(-1 >>> amt);
-			int lastIndexCarryMask = -1 << (numberOfLastIndexBits - amt);
-			int bleedOverMask = 0;
-			switch (aLTb(numberOfLastIndexBits, amt)) {
-			case 1:
-				lastIndexCarryMask = ~(-1 << numberOfLastIndexBits);
-				bleedOverMask = ~(-1 >>> (amt - numberOfLastIndexBits));
-				break;
-			default:
-				break;
-			}
-			int numberOfShifts = unit.bits() - amt;
-			int lastIndexCarryShifts = unit.bits() - numberOfLastIndexBits;
-
-			int[] orVals = new int[bits.length];
-
-			for (int i = 0; i < lastIndex; i++) {
-				int currentIndex = i;
-				int currentVal = bits[currentIndex];
-				int orVal = currentVal & carryMask;
-				orVal >>>= numberOfShifts;
-				orVals[currentIndex] = orVal;
-			}
-			int currentVal = bits[lastIndex];
-			int orVal = currentVal & lastIndexCarryMask;
-			orVal <<= lastIndexCarryShifts;
-			switch (lastIndex) {
-
-			case 0:
-				break;
-			default: {
-				switch (Long.bitCount(bleedOverMask)) {
-				case 0:
-					break;
-				default: {
-					int prevIndex = lastIndex - 1;
-					int bleedOver = orVals[prevIndex];
-					bleedOver <<= numberOfShifts;
-					int bleedOverVal = bleedOverMask & bleedOver;
-					bleedOverVal >>>= numberOfLastIndexBits;
-					orVal |= bleedOverVal;
-					bleedOver &= ~bleedOverMask;
-					bleedOver >>>= numberOfShifts;
-					orVals[prevIndex] = bleedOver;
-				}
-				}
-			}
-			}
-			orVal >>>= numberOfShifts;
-			orVals[lastIndex] = orVal;
-			return orVals;
-		}
-		}
-
-	}
-
-
-
-	private static int[] shiftRight(int[] bits, int size, int amt) {
-		amt = normalizeCyclicI(amt, size);
-		int unitShifts = amt >>> unit.multOrDivShift();
-		amt -= (unitShifts << unit.multOrDivShift());
-		unitShifts = (int) quickMod(unitShifts, bits.length);
-		int numberOfLastBits = size & unit.limitMask();
-
-		int lastBitsMask = -1 >>> (unit.bits() - numberOfLastBits);
-		switch (unitShifts) {
-		case 0:
-			break;
-		default:
-			rotateAndCollapseForRightShift(bits, size, unitShifts);
-		}
-
-		int[] orVals = getOrValsForRightShift(bits, size, amt);
-		rotate(orVals, 1);
-
-		for (int i = 0; i < bits.length; i++) {
-			bits[i] = ((bits[i] << amt) | orVals[i]);
-		}
-		bits[bits.length - 1] &= lastBitsMask;
-		return bits;
-	}
-
 	
 	/**
 	 * 
@@ -480,7 +464,7 @@ public class IntArrayShift {
 	 *         in instance)
 	 */
 	private static int[] offset(int[] longs, int amount) {
-		int numberOfZerosInLastElement = Long.numberOfLeadingZeros(longs[longs.length - 1]);
+		int numberOfZerosInLastElement = Integer.numberOfLeadingZeros(longs[longs.length - 1]);
 		int wholeUnits = amount >> unit.multOrDivShift();
 		amount -= wholeUnits << unit.multOrDivShift();
 		int amountAndZeroDiff = amount - numberOfZerosInLastElement;
@@ -583,88 +567,6 @@ public class IntArrayShift {
 //		System.out.println(BinaryStrings.toBinaryString(subs));
 
 	}
-	/**
-	 * 
-	 * @param bits an <code>int[]</code> that represents bits
-	 * @param size the number of <i>bit</i> this <code>int[]</code> represents
-	 * @param amt the amount to rotate the bits, a positive value will rotate right, a negative value will rotate left
-	 * @return the passed in <code>bits</code> parameter with its bits rotated
-	 */
-	public static int[] bitwiseRotateOld(int[] bits, int size, int amt) {
-		amt = normalizeCyclic(amt, size);
-		int unitShifts = amt >>> unit.multOrDivShift();
-		amt -= (unitShifts << unit.multOrDivShift());
-		int maskShifts = unit.bits() - amt;
-		int carryMask = maskShifts!=unit.bits()?(-1 >>> maskShifts):0;
-		int lastCarryMask = carryMask;
-		int lastIndexBits = size & unit.limitMask();
-		final int lastCarryMaskShift = unit.bits()-lastIndexBits;
-		int bleedOverSize = amt - lastIndexBits;//lastCarryMaskLen;
-		if (bleedOverSize < 0) {
-			bleedOverSize = 0;
-		}
-		if (lastIndexBits != 0) {
-			lastCarryMask = maskShifts!=unit.bits()?(-1 >>> Math.max(lastCarryMaskShift, maskShifts)):0;
-		}
-		int lastSegmentIndex = bits.length - 1;
-		int shiftedLastSegmentIndex = normalizeCyclic(unitShifts + lastSegmentIndex, bits.length);
-		bits = rotate(bits, unitShifts);
-		
-		if (shiftedLastSegmentIndex != lastSegmentIndex) {
-			
-			int prevIdxGrabMask = ~(-1>>>(lastCarryMaskShift)) >>> lastIndexBits;
-			for (int i = 0; i < bits.length - 1; i++) {
-				int currentIndex = normalizeCyclic(shiftedLastSegmentIndex - i, bits.length);
-				if(currentIndex==bits.length-1) {
-					break;
-				}
-				int prevIndex = normalizeCyclic(currentIndex - 1, bits.length);
-				int orVal = bits[prevIndex];
-				orVal &= prevIdxGrabMask;
-				orVal = orVal << lastIndexBits;
-				bits[currentIndex] |= orVal;
-				bits[prevIndex] = bits[prevIndex] >>> lastCarryMaskShift;
-				
-
-			}
-		}
-		int[] orVals=new int[bits.length];
-		for (int i = 0; i < bits.length; i++) {
-			int mask = carryMask;
-			int reshift = maskShifts;
-			int nextUnit=i+1;
-			if (i == lastSegmentIndex) {
-				mask = lastCarryMask;
-				reshift = Integer.numberOfLeadingZeros(lastCarryMask);//carryMaskReShiftLen;
-				nextUnit=0;
-			}
-			if(i==lastSegmentIndex-1) {
-				if(amt<lastIndexBits) {
-					reshift=lastIndexBits-(amt%lastIndexBits);
-				} else {
-					reshift=0;
-				}
-			}
-			int orVal = mask & bits[i];
-			orVal = orVal << reshift;
-			orVals[nextUnit] = orVal;
-		}
-		
-		if(bleedOverSize>0) {
-			int bleedOverShifts=unit.bits()-bleedOverSize;
-			int bleedGrabMask=(-1>>>bleedOverShifts);
-			int grabbedValue=orVals[lastSegmentIndex]&bleedGrabMask;
-			orVals[lastSegmentIndex]=orVals[lastSegmentIndex]>>>bleedOverSize;
-			orVals[0]=orVals[0]>>>bleedOverSize;
-			grabbedValue=(grabbedValue<<bleedOverShifts);
-			orVals[0]|=grabbedValue;
-		}
-		
-		for(int i=0;i<bits.length;i++) {
-			bits[i]=(bits[i]>>>amt)|orVals[i];
-		}
-		return bits;
-	}
 	private static long derp(long a, long b) {
 		return ((((a >>> (unit.bits() >> 1)) ^ (b >>> (unit.bits() >> 1)))
 				| ((a & (-1l >>> (unit.bits() >> 1))) ^ (b & (-1l >>> (unit.bits() >> 1))))));
@@ -0,0 +1,132 @@
+package com.jamesratzlaff.util.bit.arrays;
+
+import com.jamesratzlaff.util.bit.BitUnit;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Lane-parallel versions of the carry pass of the in-place rotation (see
+ * {@link BitStore#carryShiftLeft(long, long, int)}) and of the word-wise boolean operations used by
+ * {@link BulkBitOps}. Only touch this class when
+ * {@link VectorSupport#PRESENT} is <code>true</code>, and prefer the scalar
+ * loops when {@link #isUsable()} is <code>false</code>.
+ */
+public final class IntVectorKernels {
+
+	private static final BitUnit unit = BitUnit.INT;
+	private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+	private IntVectorKernels() {
+	}
+
+	/**
+	 * @return <code>true</code> if the preferred species has more than one lane
+	 */
+	public static boolean isUsable() {
+		return SPECIES.length() > 1;
+	}
+
+	/**
+	 * Lane-parallel {@link IntArrayShift#carryShiftLeft(int[], int, int, int)}, the
+	 * pass a rotation makes over every element when the amount is not a whole
+	 * number of elements
+	 */
+	public static void carryShiftLeft(int[] bits, int from, int toExcl, int amt) {
+		carryShiftLeft(SPECIES, bits, from, toExcl, amt);
+	}
+
+	/**
+	 * {@link #carryShiftLeft(int[], int, int, int)} with the given species. Works
+	 * from the last element down so each vector still reads the untouched element
+	 * below it. A single lane species uses the scalar loop.
+	 */
+	public static void carryShiftLeft(VectorSpecies<Integer> species, int[] bits, int from, int toExcl, int amt) {
+		int lanes = species.length();
+		if (lanes == 1) {
+			IntArrayShift.carryShiftLeft(bits, from, toExcl, amt);
+			return;
+		}
+		int carryShift = unit.bits() - amt;
+		int wrapCarry = bits[toExcl - 1] >>> carryShift;
+		int i = toExcl - lanes;
+		for (; i > from; i -= lanes) {
+			IntVector current = IntVector.fromArray(species, bits, i);
+			IntVector previous = IntVector.fromArray(species, bits, i - 1);
+			current.lanewise(VectorOperators.LSHL, amt).or(previous.lanewise(VectorOperators.LSHR, carryShift))
+					.intoArray(bits, i);
+		}
+		for (int j = i + lanes - 1; j > from; j--) {
+			bits[j] = (bits[j] << amt) | (bits[j - 1] >>> carryShift);
+		}
+		bits[from] = (bits[from] << amt) | wrapCarry;
+	}
+
+	private static VectorOperators.Binary operator(BitwiseOp op) {
+		switch (op) {
+		case AND:
+			return VectorOperators.AND;
+		case OR:
+			return VectorOperators.OR;
+		case XOR:
+			return VectorOperators.XOR;
+		default:
+			return VectorOperators.AND_NOT;
+		}
+	}
+
+	/**
+	 * <code>dest[i] = op(a[i], b[i])</code> for <code>from &lt;= i &lt; toExcl</code>,
+	 * <code>dest</code> may be <code>a</code> or <code>b</code>
+	 */
+	public static void apply(BitwiseOp op, int[] a, int[] b, int[] dest, int from, int toExcl) {
+		VectorOperators.Binary operator = operator(op);
+		int i = from;
+		int upperBound = from + SPECIES.loopBound(toExcl - from);
+		for (; i < upperBound; i += SPECIES.length()) {
+			IntVector.fromArray(SPECIES, a, i).lanewise(operator, IntVector.fromArray(SPECIES, b, i)).intoArray(dest, i);
+		}
+		for (; i < toExcl; i++) {
+			dest[i] = op.apply(a[i], b[i]);
+		}
+	}
+
+	/**
+	 * <code>dest[i] = ~a[i]</code> for <code>from &lt;= i &lt; toExcl</code>
+	 */
+	public static void not(int[] a, int[] dest, int from, int toExcl) {
+		int i = from;
+		int upperBound = from + SPECIES.loopBound(toExcl - from);
+		for (; i < upperBound; i += SPECIES.length()) {
+			IntVector.fromArray(SPECIES, a, i).not().intoArray(dest, i);
+		}
+		for (; i < toExcl; i++) {
+			dest[i] = ~a[i];
+		}
+	}
+
+	/**
+	 * @return the number of bits set in both <code>a[i]</code> and
+	 *         <code>b[i]</code> for <code>from &lt;= i &lt; toExcl</code>
+	 */
+	public static long andCardinality(int[] a, int[] b, int from, int toExcl) {
+		int i = from;
+		int upperBound = from + SPECIES.loopBound(toExcl - from);
+		long result = 0;
+		while (i < upperBound) {
+			// flush the lane counts before they can overflow an int
+			int blockEnd = (int) Math.min(upperBound, (long) i + (SPECIES.length() << 20));
+			IntVector counts = IntVector.zero(SPECIES);
+			for (; i < blockEnd; i += SPECIES.length()) {
+				counts = counts.add(IntVector.fromArray(SPECIES, a, i).and(IntVector.fromArray(SPECIES, b, i))
+						.lanewise(VectorOperators.BIT_COUNT));
+			}
+			result += counts.reduceLanes(VectorOperators.ADD);
+		}
+		for (; i < toExcl; i++) {
+			result += Integer.bitCount(a[i] & b[i]);
+		}
+		return result;
+	}
+}
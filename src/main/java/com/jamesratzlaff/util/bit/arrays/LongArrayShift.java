@@ -7,6 +7,12 @@ public class LongArrayShift {
 
 	private static final BitUnit unit = BitUnit.LONG;
 
+	/**
+	 * Candidates are filtered on this many leading bits of a pattern before they
+	 * are compared a word at a time
+	 */
+	private static final int SEARCH_FILTER_BITS = 16;
+
 	/**
 	 * 
 	 * @param bits an <code>long[]</code> that represents bits
@@ -22,19 +28,415 @@ public class LongArrayShift {
 	}
 
 	/**
-	 * for some reason negative amounts take ~2.5 longer than postitive amounts
+	 * Rotates in place using {@link #bitwiseRotateInPlace(long[], long, long)}, so
+	 * positive and negative amounts cost the same and nothing is allocated
 	 * 
 	 * @param bits an <code>long[]</code> that represents bits
-	 * @param size the number of <i>bit</i> this <code>int[]</code> represents
+	 * @param size the number of <i>bit</i> this <code>long[]</code> represents
 	 * @param amt  the amount to rotate the bits, a positive value will rotate
 	 *             right, a negative value will rotate left
 	 * @return the passed in <code>bits</code> parameter with its bits rotated
 	 */
 	public static long[] bitwiseRotate(long[] bits, long size, long amt) {
-		if (amt >= 0) {
-			return shiftRight(bits, (int) size, (int) amt);
+		return bitwiseRotateInPlace(bits, size, amt);
+	}
+
+	/**
+	 * Rotates the bits with O(1) extra memory. When <code>size</code> is a whole
+	 * number of <code>long</code>s the words are rotated first and the remaining
+	 * sub-word amount is applied with a single carry pass, otherwise the rotation
+	 * is done as three bit-range reversals (reverse all, reverse the first
+	 * <code>amt</code> bits, reverse the rest). See {@link BitRotationEngine}.
+	 * 
+	 * @param bits an <code>long[]</code> that represents bits
+	 * @param size the number of <i>bit</i> this <code>long[]</code> represents
+	 * @param amt  the amount to rotate the bits, a positive value will rotate
+	 *             right, a negative value will rotate left
+	 * @return the passed in <code>bits</code> parameter with its bits rotated
+	 */
+	public static long[] bitwiseRotateInPlace(long[] bits, long size, long amt) {
+		BitRotationEngine.rotate(BitStore.of(bits), size, amt);
+		return bits;
+	}
+
+	/**
+	 * Reverses the order of the bits in <code>[from, toExcl)</code> in place,
+	 * swapping up to 64 bits from each end at a time. Bits outside of the range
+	 * are left untouched.
+	 * 
+	 * @param bits   an <code>long[]</code> that represents bits
+	 * @param from   the first bit of the range (inclusive)
+	 * @param toExcl the end of the range (exclusive)
+	 */
+	public static void reverseBits(long[] bits, long from, long toExcl) {
+		while (toExcl - from > 1) {
+			int len = (int) Math.min(unit.bits(), (toExcl - from) >>> 1);
+			long low = readBits(bits, from, len);
+			long high = readBits(bits, toExcl - len, len);
+			writeBits(bits, from, len, Long.reverse(high) >>> (unit.bits() - len));
+			writeBits(bits, toExcl - len, len, Long.reverse(low) >>> (unit.bits() - len));
+			from += len;
+			toExcl -= len;
+		}
+	}
+
+	/**
+	 * 
+	 * @param bits     an <code>long[]</code> that represents bits
+	 * @param bitIndex the index of the first bit to read
+	 * @param len      the number of bits to read (1-64)
+	 * @return the <code>len</code> bits starting at <code>bitIndex</code> with the
+	 *         bit at <code>bitIndex</code> as the least significant bit
+	 */
+	public static long readBits(long[] bits, long bitIndex, int len) {
+		int idx = (int) (bitIndex >>> unit.multOrDivShift());
+		int offset = (int) (bitIndex & unit.limitMask());
+		long value = bits[idx] >>> offset;
+		if (offset + len > unit.bits()) {
+			value |= bits[idx + 1] << (unit.bits() - offset);
+		}
+		return value & (-1l >>> (unit.bits() - len));
+	}
+
+	/**
+	 * Reads bits as if the first <code>size</code> bits of <code>bits</code> were
+	 * a ring, so a read that runs past <code>size</code> continues at bit 0
+	 * 
+	 * @param bits     an <code>long[]</code> that represents bits
+	 * @param size     the number of <i>bit</i> this <code>long[]</code> represents
+	 * @param bitIndex the index of the first bit to read (0 &lt;= bitIndex &lt;
+	 *                 size)
+	 * @param len      the number of bits to read (1-64, no more than
+	 *                 <code>size</code>)
+	 * @return the <code>len</code> bits starting at <code>bitIndex</code> with the
+	 *         bit at <code>bitIndex</code> as the least significant bit
+	 */
+	public static long readBitsCyclic(long[] bits, long size, long bitIndex, int len) {
+		long untilEnd = size - bitIndex;
+		if (len <= untilEnd) {
+			return readBits(bits, bitIndex, len);
 		}
-		return bitwiseRotateUsingSubArrays(bits, size, amt);
+		int lowLen = (int) untilEnd;
+		return readBits(bits, bitIndex, lowLen) | (readBits(bits, 0, len - lowLen) << lowLen);
+	}
+
+	/**
+	 * Overwrites the <code>len</code> bits starting at <code>bitIndex</code> with
+	 * the lower <code>len</code> bits of <code>value</code>
+	 * 
+	 * @param bits     an <code>long[]</code> that represents bits
+	 * @param bitIndex the index of the first bit to write
+	 * @param len      the number of bits to write (1-64)
+	 * @param value    the bits to write, least significant bit first
+	 */
+	public static void writeBits(long[] bits, long bitIndex, int len, long value) {
+		int idx = (int) (bitIndex >>> unit.multOrDivShift());
+		int offset = (int) (bitIndex & unit.limitMask());
+		long mask = -1l >>> (unit.bits() - len);
+		value &= mask;
+		bits[idx] = (bits[idx] & ~(mask << offset)) | (value << offset);
+		if (offset + len > unit.bits()) {
+			int spill = unit.bits() - offset;
+			bits[idx + 1] = (bits[idx + 1] & ~(mask >>> spill)) | (value >>> spill);
+		}
+	}
+
+	/**
+	 * Shifts the words in <code>[from, toExcl)</code> left by <code>amt</code>
+	 * bits as one ring: the bits carried out of each word go into the next one and
+	 * the bits carried out of the last word go into the first. This is the pass a
+	 * rotation makes once the words themselves are in place, see
+	 * {@link LongVectorKernels#carryShiftLeft(long[], int, int, int)} for the lane
+	 * parallel version.
+	 * 
+	 * @param bits   an <code>long[]</code> that represents bits
+	 * @param from   the first word (inclusive)
+	 * @param toExcl the end of the words (exclusive)
+	 * @param amt    the number of bits to shift (1-63)
+	 */
+	public static void carryShiftLeft(long[] bits, int from, int toExcl, int amt) {
+		int carryShift = unit.bits() - amt;
+		long carry = bits[toExcl - 1] >>> carryShift;
+		for (int i = from; i < toExcl; i++) {
+			long current = bits[i];
+			bits[i] = (current << amt) | carry;
+			carry = current >>> carryShift;
+		}
+	}
+
+	/**
+	 * <code>dest = a ^ rotate(b, amt)</code> in one pass. <code>b</code> is read
+	 * at the rotated bit offset a word at a time, so no rotated copy of it is made
+	 * and neither <code>a</code> nor <code>b</code> is modified (unless
+	 * <code>dest</code> is <code>a</code>). Bits of the last word past
+	 * <code>size</code> are copied from <code>a</code>.
+	 * 
+	 * @param a    the bits that are not rotated
+	 * @param b    the bits that are rotated, with the same <code>size</code> as
+	 *             <code>a</code>
+	 * @param size the number of <i>bit</i> both arrays represent
+	 * @param amt  the amount <code>b</code> is rotated, a positive value will
+	 *             rotate right, a negative value will rotate left
+	 * @param dest where the result is written, may be <code>a</code> but not
+	 *             <code>b</code>
+	 * @return <code>dest</code>
+	 */
+	public static long[] xorRotated(long[] a, long[] b, long size, long amt, long[] dest) {
+		if (size == 0) {
+			return dest;
+		}
+		long sourceBit = normalizeCyclic(-amt, size);
+		int words = (int) ((size + unit.limitMask()) >>> unit.multOrDivShift());
+		int fullWords = (int) (size >>> unit.multOrDivShift());
+		int i = 0;
+		while (i < words) {
+			int run = (int) Math.min(fullWords - i, (size - sourceBit) >>> unit.multOrDivShift());
+			if (run > 0) {
+				int idx = (int) (sourceBit >>> unit.multOrDivShift());
+				int offset = (int) (sourceBit & unit.limitMask());
+				if (offset == 0) {
+					for (int k = 0; k < run; k++) {
+						dest[i + k] = a[i + k] ^ b[idx + k];
+					}
+				} else {
+					int carry = unit.bits() - offset;
+					for (int k = 0; k < run; k++) {
+						dest[i + k] = a[i + k] ^ ((b[idx + k] >>> offset) | (b[idx + k + 1] << carry));
+					}
+				}
+				i += run;
+				sourceBit = advance(sourceBit, (long) run << unit.multOrDivShift(), size);
+			}
+			if (i < words) {
+				int len = (int) Math.min(unit.bits(), size - ((long) i << unit.multOrDivShift()));
+				dest[i] = a[i] ^ readBitsCyclic(b, size, sourceBit, len);
+				i++;
+				sourceBit = advance(sourceBit, len, size);
+			}
+		}
+		return dest;
+	}
+
+	/**
+	 * <code>bitCount(a &amp; rotate(b, amt))</code> in one pass, without rotating
+	 * or copying <code>b</code>
+	 * 
+	 * @param a    the bits that are not rotated
+	 * @param b    the bits that are rotated, with the same <code>size</code> as
+	 *             <code>a</code>
+	 * @param size the number of <i>bit</i> both arrays represent
+	 * @param amt  the amount <code>b</code> is rotated, a positive value will
+	 *             rotate right, a negative value will rotate left
+	 * @return the number of bits set in both
+	 */
+	public static long andRotatedCardinality(long[] a, long[] b, long size, long amt) {
+		if (size == 0) {
+			return 0;
+		}
+		long sourceBit = normalizeCyclic(-amt, size);
+		int words = (int) ((size + unit.limitMask()) >>> unit.multOrDivShift());
+		int fullWords = (int) (size >>> unit.multOrDivShift());
+		long result = 0;
+		int i = 0;
+		while (i < words) {
+			int run = (int) Math.min(fullWords - i, (size - sourceBit) >>> unit.multOrDivShift());
+			if (run > 0) {
+				int idx = (int) (sourceBit >>> unit.multOrDivShift());
+				int offset = (int) (sourceBit & unit.limitMask());
+				if (offset == 0) {
+					for (int k = 0; k < run; k++) {
+						result += Long.bitCount(a[i + k] & b[idx + k]);
+					}
+				} else {
+					int carry = unit.bits() - offset;
+					for (int k = 0; k < run; k++) {
+						result += Long.bitCount(a[i + k] & ((b[idx + k] >>> offset) | (b[idx + k + 1] << carry)));
+					}
+				}
+				i += run;
+				sourceBit = advance(sourceBit, (long) run << unit.multOrDivShift(), size);
+			}
+			if (i < words) {
+				int len = (int) Math.min(unit.bits(), size - ((long) i << unit.multOrDivShift()));
+				result += Long.bitCount(a[i] & readBitsCyclic(b, size, sourceBit, len));
+				i++;
+				sourceBit = advance(sourceBit, len, size);
+			}
+		}
+		return result;
+	}
+
+	private static long advance(long bitIndex, long len, long size) {
+		bitIndex += len;
+		return bitIndex >= size ? bitIndex - size : bitIndex;
+	}
+
+	/**
+	 * Finds the rotation that makes the bits smallest when compared from bit 0
+	 * upwards, with the two candidate scan of the least rotation algorithm
+	 * (candidates <code>i</code> and <code>j</code>, the loser of each mismatch
+	 * skips past everything it has already matched). The candidates are compared
+	 * 64 bits at a time, the first difference is found with
+	 * {@link Long#numberOfTrailingZeros(long)}, so it is linear in
+	 * <code>size</code> and mostly moves a word per step.
+	 * 
+	 * @param bits an <code>long[]</code> that represents bits
+	 * @param size the number of <i>bit</i> this <code>long[]</code> represents
+	 * @return the smallest <code>r</code> in <code>[0, size)</code> such that the
+	 *         bits starting at <code>r</code>, read cyclically, are the smallest
+	 *         rotation
+	 */
+	public static long minimalRotationOffset(long[] bits, long size) {
+		long i = 0;
+		long j = 1;
+		long k = 0;
+		while (i < size && j < size && k < size) {
+			int len = (int) Math.min(unit.bits(), size - k);
+			long x = readBitsCyclic(bits, size, advance(i, k, size), len);
+			long y = readBitsCyclic(bits, size, advance(j, k, size), len);
+			long diff = x ^ y;
+			if (diff == 0) {
+				k += len;
+				continue;
+			}
+			int at = Long.numberOfTrailingZeros(diff);
+			k += at;
+			if (((x >>> at) & 1) != 0) {
+				i += k + 1;
+			} else {
+				j += k + 1;
+			}
+			if (i == j) {
+				j++;
+			}
+			k = 0;
+		}
+		return Math.min(i, j);
+	}
+
+	/**
+	 * Finds the first occurrence of a bit pattern, which may start anywhere and
+	 * span word boundaries. For every 64 candidate positions the first
+	 * {@value #SEARCH_FILTER_BITS} bits of the pattern are checked at once with
+	 * shift-and (one shifted text word and one AND per pattern bit, the set bits
+	 * left in the mask are the positions that match so far), and only the
+	 * survivors are compared with the whole pattern 64 bits at a time.
+	 * 
+	 * @param bits        an <code>long[]</code> that represents bits
+	 * @param size        the number of <i>bit</i> this <code>long[]</code>
+	 *                    represents
+	 * @param pattern     the bits to look for
+	 * @param patternSize the number of <i>bit</i> <code>pattern</code>
+	 *                    represents
+	 * @param from        the first position to check
+	 * @return the first position at or after <code>from</code> where all of
+	 *         <code>pattern</code> matches, or <code>-1</code>
+	 */
+	public static long indexOf(long[] bits, long size, long[] pattern, long patternSize, long from) {
+		return search(bits, size, pattern, patternSize, from, false);
+	}
+
+	/**
+	 * {@link #indexOf(long[], long, long[], long, long)} for bits that are a ring,
+	 * so a match may start near the end and continue at bit 0
+	 * 
+	 * @param bits        an <code>long[]</code> that represents bits
+	 * @param size        the number of <i>bit</i> this <code>long[]</code>
+	 *                    represents
+	 * @param pattern     the bits to look for, no more than <code>size</code> of
+	 *                    them
+	 * @param patternSize the number of <i>bit</i> <code>pattern</code>
+	 *                    represents
+	 * @param from        the first position to check
+	 * @return the first position in <code>[from, size)</code> where all of
+	 *         <code>pattern</code> matches, or <code>-1</code>
+	 */
+	public static long cyclicIndexOf(long[] bits, long size, long[] pattern, long patternSize, long from) {
+		return search(bits, size, pattern, patternSize, from, true);
+	}
+
+	private static long search(long[] bits, long size, long[] pattern, long patternSize, long from, boolean cyclic) {
+		from = Math.max(from, 0);
+		if (cyclic && (size == 0 || patternSize > size)) {
+			return -1;
+		}
+		long last = cyclic ? size - 1 : size - patternSize;
+		if (from > last) {
+			return -1;
+		}
+		if (patternSize == 0) {
+			return from;
+		}
+		int filterBits = (int) Math.min(patternSize, SEARCH_FILTER_BITS);
+		long head = readBits(pattern, 0, filterBits);
+		for (long block = from & ~unit.limitMask(); block <= last; block += unit.bits()) {
+			long candidates = -1l;
+			for (int j = 0; j < filterBits && candidates != 0; j++) {
+				long text = cyclic ? readBitsCyclicAt(bits, size, block + j, unit.bits())
+						: readWordOrZero(bits, block + j);
+				candidates &= ((head >>> j) & 1) != 0 ? text : ~text;
+			}
+			if (block < from) {
+				candidates &= -1l << (from - block);
+			}
+			if (last - block < unit.limitMask()) {
+				candidates &= (2l << (last - block)) - 1;
+			}
+			for (; candidates != 0; candidates &= candidates - 1) {
+				long position = block + Long.numberOfTrailingZeros(candidates);
+				if (matches(bits, size, pattern, patternSize, position, cyclic)) {
+					return position;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private static boolean matches(long[] bits, long size, long[] pattern, long patternSize, long position,
+			boolean cyclic) {
+		for (long offset = 0; offset < patternSize; offset += unit.bits()) {
+			int len = (int) Math.min(unit.bits(), patternSize - offset);
+			long text = cyclic ? readBitsCyclicAt(bits, size, position + offset, len)
+					: readBits(bits, position + offset, len);
+			if (text != readBits(pattern, offset, len)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The 64 bits starting at <code>bitIndex</code>, with anything past the end
+	 * of the array read as 0
+	 */
+	private static long readWordOrZero(long[] bits, long bitIndex) {
+		int idx = (int) (bitIndex >>> unit.multOrDivShift());
+		int offset = (int) (bitIndex & unit.limitMask());
+		long value = idx < bits.length ? bits[idx] >>> offset : 0;
+		if (offset != 0 && idx + 1 < bits.length) {
+			value |= bits[idx + 1] << (unit.bits() - offset);
+		}
+		return value;
+	}
+
+	/**
+	 * Like {@link #readBitsCyclic(long[], long, long, int)}, but
+	 * <code>bitIndex</code> may be past <code>size</code> and the ring may be
+	 * shorter than <code>len</code>, in which case it is repeated
+	 */
+	private static long readBitsCyclicAt(long[] bits, long size, long bitIndex, int len) {
+		long position = bitIndex % size;
+		long value = 0;
+		for (int read = 0; read < len;) {
+			int chunk = (int) Math.min(len - read, size - position);
+			value |= readBits(bits, position, chunk) << read;
+			read += chunk;
+			position += chunk;
+			if (position == size) {
+				position = 0;
+			}
+		}
+		return value;
 	}
 
 	public static long[] nonMutatingBitwiseRotateInnerBits(long[] bits, long size, long amt, int innerOffset,
@@ -43,14 +445,26 @@ public class LongArrayShift {
 		return bitwiseRotateInnerBits(clone, size, amt, innerOffset, innerEndOffsetExcl);
 	}
 
+	/**
+	 * Rotates only the bits in <code>[innerOffset, innerEndOffsetExcl)</code>,
+	 * leaving every bit outside of that range as it was. Only the units that
+	 * overlap the range are read or written, so the cost depends on the length of
+	 * the range and not on the size of <code>bits</code>, and nothing is
+	 * allocated.
+	 * 
+	 * @param bits               an <code>long[]</code> that represents bits
+	 * @param size               the number of <i>bit</i> this <code>long[]</code>
+	 *                           represents
+	 * @param amt                the amount to rotate the range, a positive value
+	 *                           will rotate right, a negative value will rotate
+	 *                           left
+	 * @param innerOffset        the first bit of the range (inclusive)
+	 * @param innerEndOffsetExcl the end of the range (exclusive)
+	 * @return the passed in <code>bits</code> parameter with the range rotated
+	 */
 	public static long[] bitwiseRotateInnerBits(long[] bits, long size, long amt, int innerOffset,
 			int innerEndOffsetExcl) {
-		long[] subBits = subBits(bits, innerOffset, innerEndOffsetExcl);
-		long[] XORSubbits = offset(subBits, innerOffset);
-		bitwiseRotate(subBits, innerEndOffsetExcl - innerOffset, amt);
-		subBits = offset(subBits, innerOffset);
-		nonCyclicXor(bits, XORSubbits);
-		nonCyclicOr(bits, subBits);
+		BitRotationEngine.rotateRange(BitStore.of(bits), innerOffset, innerEndOffsetExcl, amt);
 		return bits;
 	}
 
@@ -61,13 +475,6 @@ public class LongArrayShift {
 		}
 	}
 
-	private static void nonCyclicXor(long[] toXor, long[] xorer) {
-		int endIdx = Math.min(toXor.length, xorer.length);
-		for (int i = 0; i < endIdx; i++) {
-			toXor[i] ^= xorer[i];
-		}
-	}
-
 	/**
 	 * For some reason this is much faster with negative amounts than positive
 	 * amounts. This is also faster with negative amounts compared to
@@ -89,99 +496,12 @@ public class LongArrayShift {
 		long[] beginningOfResult = subBits(bits, (int) amt, (int) size);
 		nonCyclicOr(endOfResult, beginningOfResult);
 		System.arraycopy(endOfResult, 0, bits, 0, endOfResult.length);
-		return bits;
-	}
-
-	/**
-	 * rotates the integral representation of bits by the amount of given shift
-	 * units and fills in the empty bits from what was the last integral
-	 * representation with the values preceeding it and natrually trims the new last
-	 * intregral bit representation to the correct size
-	 * 
-	 * <pre>
-	 * integral_unit_size = 8 (bits)
-	 * (with a bit length of 17)
-	 * bitno:        7  6  5  4  3  2  1 0, 15 14 13 12 11 10 9 8,                      16
-	 *              {1  0  0  1  1  0  0 1, 1  1  1  0  1  0  1 0, 0  0  0  0  0  0  0  1}
-	 * integral idx:                     0                      1                       2
-	 * (rotate 2)
-	 * prev integral idx:                1                      2                      0 
-	 *              {1  0  0  1  1  0  0 1, 0  0  0  0  0  0  0 1, 1  1  1  0  1  0  1 0}
-	 * new integral idx:                 0                      1                      2
-	 * (collapse[mask->shift->or[prevIdx])
-	 * lastIndexBits=17%integral_unit_size=1
-	 * lastIndexCarryMask=-1<<lastIndexBits (11111110)
-	 * using new integral indices: 1 carries from 0, 2 carries from 1
-	 * we start from the index that represents the integral that was originally the last integral
-	 * representation before rotation (in this case 1)
-	 * -we shift it's value left by integral_unit_size-lastIndexBits (7 in this case)
-	 * -we take that value and or it (with the previous indexes value &'d with the last
-	 *  index carry mask which is then unsigned shifted right by lastIndexBits value)
-	 * -we then & and assign the previous indexes value with the inverse of the 
-	 *   lastIndexCarryMask (00000001)
-	 * -and we iterate backward to the previous value and repeat (like above or using the
-	 *  right-most index as the previous index if the current index is 0 
-	 *              {1  0  0  1  1  0  0 1, 0  0  0  0  0  0  0 1, 1  1  1  0  1  0  1 0}
-	 *                                      << 7
-	 *                                      1  0  0  0  0  0  0 0
-	 *              &1  1  1  1  1  1  1 0                       
-	 *               1  0  0  1  1  0  0 0,
-	 *               >> 1
-	 *               0  1  0  0  1  1  0 0
-	 *                                     |
-	 *                                      1  1  0  0  1  1  0 0
-	 *            &~(1  1  1  1  1  1  1 0)
-	 *               0  0  0  0  0  0  0 1                              
-	 *              {0  0  0  0  0  0  0 1, 1  1  0  0  1  1  0 0, 1  1  1  0  1  0  1 0}
-	 *            << 7
-	 *               1  0  0  0  0  0  0 0
-	 *                                                            &1  1  1  1  1  1  1 0
-	 *                                                             1  1  1  0  1  0  1 0
-	 *                                                           >>1
-	 *                                                             0  1  1  1  0  1  0 1
-	 *                                              | 
-	 *               1  1  1  1  0  1  0 1
-	 *                                                          &~(1  1  1  1  1  1  1 0)
-	 *                                                             0  0  0  0  0  0  0 0
-	 *              {1  1  1  1  0  1  0 1, 1  1  0  0  1  1  0 0, 0  0  0  0  0  0  0 0}
-	 * 
-	 * </pre>
-	 * 
-	 * @param bits
-	 * @param size
-	 * @param shiftUnits
-	 * @return
-	 */
-	private static long[] rotateAndCollapseForRightShift(long[] bits, int size, int shiftUnits) {
-		rotate(bits, shiftUnits);
-		int lastIndex = bits.length - 1;
-		int newLastBitsIndex = normalizeCyclicI(lastIndex + shiftUnits, bits.length);
-		int numberOfLastIndexBits = size & unit.limitMask();
-
-		if (numberOfLastIndexBits == 0) {
-			return bits;
-		}
-		long lastIndexCarryMask = -1l << numberOfLastIndexBits;
-		int numberOfShifts = unit.bits() - numberOfLastIndexBits;
-		for (int i = 0; i < bits.length; i++) {
-			int currentIndex = normalizeCyclicI(newLastBitsIndex - i, bits.length);
-			int prevIndex = normalizeCyclicI(currentIndex - 1, bits.length);
-			if (currentIndex == lastIndex) {
-				break;
-			}
-			long currentValue = bits[currentIndex];
-			currentValue <<= numberOfShifts;
-			long prevValue = bits[prevIndex];
-			long orVal = prevValue & lastIndexCarryMask;
-			orVal >>>= numberOfLastIndexBits;
-			long newPrevValueMask = ~(-1l << numberOfLastIndexBits);
-			prevValue &= newPrevValueMask;
-			currentValue |= orVal;
-			bits[currentIndex] = currentValue;
-			bits[prevIndex] = prevValue;
+		// offset(..) leaves off the last unit when it would be empty
+		int units = (int) ((size + unit.limitMask()) >>> unit.multOrDivShift());
+		for (int i = endOfResult.length; i < units; i++) {
+			bits[i] = 0;
 		}
 		return bits;
-
 	}
 
 	private static long aEQb(long a, long b) {
@@ -238,113 +558,6 @@ public class LongArrayShift {
 //		return (~((~(aEQb(a, b))) & (~(((a-b)&~(-1l>>>1))>>>unit.limitMask())))-1)&1;
 	}
 
-	/**
-	 * This actually operates more like getting the carries for left shifting btw
-	 * 
-	 * @param bits
-	 * @param size
-	 * @param amt
-	 * @return
-	 */
-	public static long[] getOrValsForRightShift(long[] bits, int size, int amt) {
-		switch (amt) {
-		case 0:
-			return new long[bits.length];
-		default: {
-			int lastIndex = bits.length - 1;
-			int numberOfLastIndexBits = size & unit.limitMask();
-			switch (size) {
-			case 0:
-				break;
-			default:
-				switch (numberOfLastIndexBits) {
-				case 0:
-					numberOfLastIndexBits = unit.bits();
-				default:
-					break;
-				}
-			}
-			long carryMask = ~(-1l >>> amt);
-			long lastIndexCarryMask = -1l << (numberOfLastIndexBits - amt);
-			long bleedOverMask = 0;
-			switch (aLTb(numberOfLastIndexBits, amt)) {
-			case 1:
-				lastIndexCarryMask = ~(-1l << numberOfLastIndexBits);
-				bleedOverMask = ~(-1l >>> (amt - numberOfLastIndexBits));
-				break;
-			default:
-				break;
-			}
-			int numberOfShifts = unit.bits() - amt;
-			int lastIndexCarryShifts = unit.bits() - numberOfLastIndexBits;
-
-			long[] orVals = new long[bits.length];
-
-			for (int i = 0; i < lastIndex; i++) {
-				int currentIndex = i;
-				long currentVal = bits[currentIndex];
-				long orVal = currentVal & carryMask;
-				orVal >>>= numberOfShifts;
-				orVals[currentIndex] = orVal;
-			}
-			long currentVal = bits[lastIndex];
-			long orVal = currentVal & lastIndexCarryMask;
-			orVal <<= lastIndexCarryShifts;
-			switch (lastIndex) {
-
-			case 0:
-				break;
-			default: {
-				switch (Long.bitCount(bleedOverMask)) {
-				case 0:
-					break;
-				default: {
-					int prevIndex = lastIndex - 1;
-					long bleedOver = orVals[prevIndex];
-					bleedOver <<= numberOfShifts;
-					long bleedOverVal = bleedOverMask & bleedOver;
-					bleedOverVal >>>= numberOfLastIndexBits;
-					orVal |= bleedOverVal;
-					bleedOver &= ~bleedOverMask;
-					bleedOver >>>= numberOfShifts;
-					orVals[prevIndex] = bleedOver;
-				}
-				}
-			}
-			}
-			orVal >>>= numberOfShifts;
-			orVals[lastIndex] = orVal;
-			return orVals;
-		}
-		}
-
-	}
-
-	private static long[] shiftRight(long[] bits, int size, int amt) {
-		amt = normalizeCyclicI(amt, size);
-		int unitShifts = amt >>> unit.multOrDivShift();
-		amt -= (unitShifts << unit.multOrDivShift());
-		unitShifts = (int) quickMod(unitShifts, bits.length);
-		int numberOfLastBits = size & unit.limitMask();
-
-		long lastBitsMask = -1l >>> (unit.bits() - numberOfLastBits);
-		switch (unitShifts) {
-		case 0:
-			break;
-		default:
-			rotateAndCollapseForRightShift(bits, size, unitShifts);
-		}
-
-		long[] orVals = getOrValsForRightShift(bits, size, amt);
-		rotate(orVals, 1);
-
-		for (int i = 0; i < bits.length; i++) {
-			bits[i] = ((bits[i] << amt) | orVals[i]);
-		}
-		bits[bits.length - 1] &= lastBitsMask;
-		return bits;
-	}
-
 	/**
 	 * 
 	 * @param array the <code>long[]</code> of values to rotate
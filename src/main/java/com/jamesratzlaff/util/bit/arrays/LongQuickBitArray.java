@@ -2,6 +2,8 @@ package com.jamesratzlaff.util.bit.arrays;
 
 import java.util.Arrays;
 import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 import com.jamesratzlaff.util.bit.BitUnit;
 
@@ -19,6 +21,7 @@ public class LongQuickBitArray {
 
 	private long[] bits;
 	private int size;
+	private int modCount;
 
 //	/**
 //	 * 
@@ -61,6 +64,15 @@ public class LongQuickBitArray {
 		return size;
 	}
 
+	/**
+	 * @return a counter that changes every time the bits are modified through this
+	 *         instance, used by {@link RankSelectIndex} to notice it is stale.
+	 *         Writes made directly to {@link #getBitArray()} are not counted.
+	 */
+	public int getModCount() {
+		return modCount;
+	}
+
 	public int getSizeInBytes() {
 		return (size + BIT_SHIFT_BYTE_LIMIT_MASK) >>> BITS_PER_BYTE_SHIFT;
 	}
@@ -88,10 +100,12 @@ public class LongQuickBitArray {
 	 */
 	public void set(int i) {
 		bits[(i >>> BITS_PER_UNIT_SHIFT)] |= (long)1l << ((long)i & BIT_SHIFT_UNIT_LIMIT_MASK);
+		modCount++;
 	}
 	
 	public void unset(int i) {
 		bits[(i >>> BITS_PER_UNIT_SHIFT)] = 0l;
+		modCount++;
 	}
 
 	/**
@@ -101,6 +115,7 @@ public class LongQuickBitArray {
 	 */
 	public void flip(int i) {
 		bits[(i >>> BITS_PER_UNIT_SHIFT)] ^= 1l << (i & BIT_SHIFT_UNIT_LIMIT_MASK);
+		modCount++;
 	}
 	
 	private int normalizeCyclic(int i) {
@@ -171,6 +186,62 @@ public class LongQuickBitArray {
 		return Math.min(result, size);
 	}
 
+	/**
+	 * @return the indices of the set bits in ascending order. A parallel stream
+	 *         splits the array into ranges of words.
+	 * @see #decodeSetBits(int[], int)
+	 */
+	public IntStream setBits() {
+		return StreamSupport.intStream(new SetBitSpliterator(this), false);
+	}
+
+	/**
+	 * Writes the indices of the set bits at or after <code>fromBit</code> into
+	 * <code>dest</code>, in ascending order, until it is full. To read the rest
+	 * call again with <code>fromBit = dest[count - 1] + 1</code>.
+	 *
+	 * @param dest    the buffer to fill
+	 * @param fromBit the first bit to look at
+	 * @return the number of indices written, less than <code>dest.length</code>
+	 *         only if there are no more set bits
+	 */
+	public int decodeSetBits(int[] dest, int fromBit) {
+		if (fromBit < 0) {
+			throw new IllegalArgumentException();
+		}
+		if (fromBit >= size || dest.length == 0) {
+			return 0;
+		}
+		int lastWord = (size - 1) >>> BITS_PER_UNIT_SHIFT;
+		int wordIndex = fromBit >>> BITS_PER_UNIT_SHIFT;
+		long currentBits = bits[wordIndex] & -(1l << (fromBit & BIT_SHIFT_UNIT_LIMIT_MASK));
+		int count = 0;
+		for (;;) {
+			if (wordIndex == lastWord) {
+				currentBits &= -1l >>> -size;
+			}
+			int base = wordIndex << BITS_PER_UNIT_SHIFT;
+			if (dest.length - count >= Long.bitCount(currentBits)) {
+				// the whole word fits, no need to check for room per bit
+				for (; currentBits != 0; currentBits &= currentBits - 1) {
+					dest[count++] = base + Long.numberOfTrailingZeros(currentBits);
+				}
+				if (count == dest.length) {
+					return count;
+				}
+			} else {
+				for (; count < dest.length; currentBits &= currentBits - 1) {
+					dest[count++] = base + Long.numberOfTrailingZeros(currentBits);
+				}
+				return count;
+			}
+			if (++wordIndex > lastWord) {
+				return count;
+			}
+			currentBits = bits[wordIndex];
+		}
+	}
+
 	/**
 	 * Sets a block of 32 bits, starting at bit i.
 	 *
@@ -181,6 +252,7 @@ public class LongQuickBitArray {
 	 */
 	public void setBulk(int i, long newBits) {
 		bits[(i >>> BITS_PER_UNIT_SHIFT)] = newBits;
+		modCount++;
 	}
 
 	/**
@@ -206,6 +278,7 @@ public class LongQuickBitArray {
 			long mask = (2l << lastBit) - (1l << firstBit);
 			bits[i] |= mask;
 		}
+		modCount++;
 	}
 
 	/**
@@ -216,6 +289,7 @@ public class LongQuickBitArray {
 		for (int i = 0; i < max; i++) {
 			bits[i] = 0;
 		}
+		modCount++;
 	}
 
 	/**
@@ -262,6 +336,7 @@ public class LongQuickBitArray {
 			bits[(size >>> BITS_PER_UNIT_SHIFT)] |= 1 << (size & BIT_SHIFT_UNIT_LIMIT_MASK);
 		}
 		size++;
+		modCount++;
 	}
 
 	/**
@@ -285,6 +360,7 @@ public class LongQuickBitArray {
 			nextSize++;
 		}
 		size = nextSize;
+		modCount++;
 	}
 
 	public void appendBitArray(LongQuickBitArray other) {
@@ -295,14 +371,208 @@ public class LongQuickBitArray {
 		}
 	}
 
+	/**
+	 * <code>this &amp;= other</code>. Bits past the end of <code>other</code> count
+	 * as unset, so they are cleared.
+	 */
+	public void and(LongQuickBitArray other) {
+		applyInto(BitwiseOp.AND, other, this);
+	}
+
+	/**
+	 * <code>this |= other</code>, bits past the end of <code>other</code> are left
+	 * as they are
+	 */
+	public void or(LongQuickBitArray other) {
+		applyInto(BitwiseOp.OR, other, this);
+	}
+
+	/**
+	 * <code>this ^= other</code>, bits past the end of <code>other</code> are left
+	 * as they are
+	 */
 	public void xor(LongQuickBitArray other) {
+		applyInto(BitwiseOp.XOR, other, this);
+	}
+
+	/**
+	 * <code>this &amp;= ~other</code>, bits past the end of <code>other</code> are
+	 * left as they are
+	 */
+	public void andNot(LongQuickBitArray other) {
+		applyInto(BitwiseOp.AND_NOT, other, this);
+	}
+
+	/**
+	 * Flips every bit
+	 */
+	public void not() {
+		not(0, size);
+	}
+
+	/**
+	 * Flips every bit in a range
+	 *
+	 * @param start start of range, inclusive.
+	 * @param end   end of range, exclusive
+	 */
+	public void not(int start, int end) {
+		checkRange(start, end, size);
+		BulkBitOps.not(bits, bits, start, end);
+		modCount++;
+	}
+
+	/**
+	 * <code>this &amp;= other</code> for the bits in <code>[start, end)</code>
+	 *
+	 * @param other the bits to combine with, at the same positions
+	 * @param start start of range, inclusive.
+	 * @param end   end of range, exclusive
+	 */
+	public void and(LongQuickBitArray other, int start, int end) {
+		applyRange(BitwiseOp.AND, other, start, end);
+	}
+
+	/**
+	 * @see #and(LongQuickBitArray, int, int)
+	 */
+	public void or(LongQuickBitArray other, int start, int end) {
+		applyRange(BitwiseOp.OR, other, start, end);
+	}
+
+	/**
+	 * @see #and(LongQuickBitArray, int, int)
+	 */
+	public void xor(LongQuickBitArray other, int start, int end) {
+		applyRange(BitwiseOp.XOR, other, start, end);
+	}
+
+	/**
+	 * @see #and(LongQuickBitArray, int, int)
+	 */
+	public void andNot(LongQuickBitArray other, int start, int end) {
+		applyRange(BitwiseOp.AND_NOT, other, start, end);
+	}
+
+	/**
+	 * Writes <code>this &amp; other</code> to <code>dest</code> without modifying
+	 * this array
+	 *
+	 * @param other the bits to combine with
+	 * @param dest  where the first {@link #getSize()} bits of the result are
+	 *              written, may be this array or <code>other</code>
+	 * @return <code>dest</code>
+	 */
+	public LongQuickBitArray andInto(LongQuickBitArray other, LongQuickBitArray dest) {
+		return applyInto(BitwiseOp.AND, other, dest);
+	}
+
+	/**
+	 * @see #andInto(LongQuickBitArray, LongQuickBitArray)
+	 */
+	public LongQuickBitArray orInto(LongQuickBitArray other, LongQuickBitArray dest) {
+		return applyInto(BitwiseOp.OR, other, dest);
+	}
+
+	/**
+	 * @see #andInto(LongQuickBitArray, LongQuickBitArray)
+	 */
+	public LongQuickBitArray xorInto(LongQuickBitArray other, LongQuickBitArray dest) {
+		return applyInto(BitwiseOp.XOR, other, dest);
+	}
+
+	/**
+	 * @see #andInto(LongQuickBitArray, LongQuickBitArray)
+	 */
+	public LongQuickBitArray andNotInto(LongQuickBitArray other, LongQuickBitArray dest) {
+		return applyInto(BitwiseOp.AND_NOT, other, dest);
+	}
+
+	/**
+	 * Writes <code>~this</code> to <code>dest</code> without modifying this array
+	 *
+	 * @return <code>dest</code>
+	 */
+	public LongQuickBitArray notInto(LongQuickBitArray dest) {
+		checkDestination(dest);
+		BulkBitOps.not(bits, dest.bits, 0, size);
+		dest.modCount++;
+		return dest;
+	}
+
+	/**
+	 * @return the number of bits set in both arrays, without building their
+	 *         intersection
+	 */
+	public int andCardinality(LongQuickBitArray other) {
+		return (int) BulkBitOps.andCardinality(bits, other.bits, 0, Math.min(size, other.size));
+	}
+
+	/**
+	 * <code>this ^= other</code> rotated by <code>amount</code>, reading
+	 * <code>other</code> at the rotated offset instead of rotating a copy of it.
+	 * <code>other</code> is not modified.
+	 *
+	 * @param other  the bits to rotate and combine with, the same size as this
+	 *               array
+	 * @param amount if negative it rotates left, positive right
+	 * @return this instance
+	 */
+	public LongQuickBitArray xorRotated(LongQuickBitArray other, int amount) {
+		checkSameSize(other);
+		// other may be this array, and the kernel can't write over what it still has to read
+		LongArrayShift.xorRotated(bits, other == this ? bits.clone() : other.bits, size, amount, bits);
+		modCount++;
+		return this;
+	}
+
+	/**
+	 * The number of bits set both in this array and in <code>other</code> rotated
+	 * by <code>amount</code>, without rotating or copying <code>other</code>
+	 *
+	 * @param other  the bits to rotate, the same size as this array
+	 * @param amount if negative it rotates left, positive right
+	 * @return <code>bitCount(this &amp; rotate(other, amount))</code>
+	 */
+	public int andRotatedCardinality(LongQuickBitArray other, int amount) {
+		checkSameSize(other);
+		return (int) LongArrayShift.andRotatedCardinality(bits, other.bits, size, amount);
+	}
+
+	private void applyRange(BitwiseOp op, LongQuickBitArray other, int start, int end) {
+		checkRange(start, end, Math.min(size, other.size));
+		BulkBitOps.apply(op, bits, other.bits, bits, start, end);
+		modCount++;
+	}
+
+	private LongQuickBitArray applyInto(BitwiseOp op, LongQuickBitArray other, LongQuickBitArray dest) {
+		checkDestination(dest);
+		int overlap = Math.min(size, other.size);
+		BulkBitOps.apply(op, bits, other.bits, dest.bits, 0, overlap);
+		if (!op.keepsUnmatched()) {
+			BulkBitOps.clear(dest.bits, overlap, size);
+		} else if (dest != this) {
+			BulkBitOps.copy(bits, dest.bits, overlap, size);
+		}
+		dest.modCount++;
+		return dest;
+	}
+
+	private void checkSameSize(LongQuickBitArray other) {
 		if (size != other.size) {
 			throw new IllegalArgumentException("Sizes don't match");
 		}
-		for (int i = 0; i < bits.length; i++) {
-			// The last int could be incomplete (i.e. not have 32 bits in
-			// it) but there is no problem since 0 XOR 0 == 0.
-			bits[i] ^= other.bits[i];
+	}
+
+	private void checkDestination(LongQuickBitArray dest) {
+		if (dest.size < size) {
+			throw new IllegalArgumentException("the destination has " + dest.size + " bits, " + size + " are needed");
+		}
+	}
+
+	private static void checkRange(int start, int end, int size) {
+		if (end < start || start < 0 || end > size) {
+			throw new IllegalArgumentException();
 		}
 	}
 
@@ -360,6 +630,7 @@ public class LongQuickBitArray {
 			newBits[oldBitsLen - 1] = currentInt;
 		}
 		bits = newBits;
+		modCount++;
 	}
 
 	private static long[] makeArray(int size) {
@@ -368,85 +639,130 @@ public class LongQuickBitArray {
 	
 	public LongQuickBitArray rotate(int amount) {
 		LongArrayShift.bitwiseRotate(this.getBitArray(), this.getSize(), amount);
+		modCount++;
 		return this;
 	}
 	
 	
 	/**
-	 * I have no clue why this does the opposite of what I expect...I figured it out, the binary representation is reversed I guess
+	 * Cyclically shifts the bits at word level with
+	 * {@link LongArrayShift#bitwiseRotate(long[], long, long)}, so the
+	 * cost is O(size/64) however large the amount is
+	 * 
 	 * @param amount if negative it shifts left, positive right...is cyclic
 	 */
 	public LongQuickBitArray shift(int amount) {
-		int absAmt = Math.abs(amount);
-		absAmt=absAmt%this.size;
-//		System.out.println("0:\t"+BinaryStrings.toBinaryString(this.bits,this.size));
-		if (amount != 0) {
-			if (amount < 0) {
-				for (int i = 0; i < absAmt; i++) {
-					shiftLeft();
-				}
-			} else {
-				for (int i = 0; i < absAmt; i++) {
-					shiftRight();
-				}
-				
-			}
-		}
+		LongArrayShift.bitwiseRotate(bits, size, amount);
+		modCount++;
 		return this;
-//		amount=amount%this.getSize();
-//		if(amount!=0) {
-//			int discreteAmt =amount<0?-1:1;
-//			int times=discreteAmt*amount;
-//			IntBinaryOperator op = amount<0?SHIFT_LEFT:SHIFT_RIGHT;
-//			for(int i=0;i<times;i++) {
-//				int[] carryMasks=getCarryMasksForOring(amount, this);
-//				for(int j=0;j<this.bits.length;j++) {
-//					int shifted=op.applyAsInt(this.bits[j], discreteAmt);
-//					int carryMask=carryMasks[j];
-//					int shiftedWithCarry=(shifted|carryMask);
-//					this.bits[j]=shiftedWithCarry;
-//				}
-//			}
-//		}
-//		return this;
 	}
-	
-	
-	
-	
+
 	public LongQuickBitArray shiftRight() {
-		LongQuickBitArray clone=new LongQuickBitArray(this.getSize());
-		for(int i=0;i<this.size-1;i++) {
-			if(this.get(i)) {
-				clone.set(i+1);
-			}
-		}
-		if(this.get(this.size-1)) {
-			clone.set(0);
-		}
-		for(int i=0;i<clone.getBitArray().length;i++) {
-			this.getBitArray()[i]=clone.getBitArray()[i];
-		}
-		
-		return this;
+		return shift(1);
 	}
-	
+
 	public LongQuickBitArray shiftLeft() {
-		LongQuickBitArray clone=new LongQuickBitArray(this.getSize());
-		if(this.get(0)) {
-			clone.set(clone.getSize()-1);
+		return shift(-1);
+	}
+
+	/**
+	 * @return the smallest offset that {@link #canonicalRotation()} rotates to
+	 *         bit 0
+	 * @see LongArrayShift#minimalRotationOffset(long[], long)
+	 */
+	public int minimalRotationOffset() {
+		return (int) LongArrayShift.minimalRotationOffset(bits, size);
+	}
+
+	/**
+	 * Rotates this array to the smallest of its rotations (compared from bit 0
+	 * upwards), so every rotation of the same bits ends up with the same bits
+	 *
+	 * @return this instance
+	 */
+	public LongQuickBitArray canonicalRotation() {
+		return rotate(-minimalRotationOffset());
+	}
+
+	/**
+	 * Compares the canonical rotations of both arrays a word at a time without
+	 * rotating either of them
+	 *
+	 * @return true if <code>other</code> is a rotation of this array
+	 */
+	public boolean isRotationOf(LongQuickBitArray other) {
+		if (size != other.size) {
+			return false;
 		}
-		for(int i=1;i<this.size;i++) {
-			if(this.get(i)) {
-				clone.set(i-1);
-			} 
+		if (size == 0) {
+			return true;
 		}
-		for(int i=0;i<clone.getBitArray().length;i++) {
-			this.bits=clone.bits;
+		if (andCardinality(this) != other.andCardinality(other)) {
+			return false;
 		}
-		return this;
+		int offset = minimalRotationOffset();
+		int otherOffset = other.minimalRotationOffset();
+		for (int bit = 0; bit < size; bit += BITS_PER_UNIT) {
+			int len = Math.min(BITS_PER_UNIT, size - bit);
+			if (LongArrayShift.readBitsCyclic(bits, size, offset, len) != LongArrayShift.readBitsCyclic(other.bits,
+					size, otherOffset, len)) {
+				return false;
+			}
+			offset = cyclicAdd(offset, len);
+			otherOffset = cyclicAdd(otherOffset, len);
+		}
+		return true;
 	}
-	
+
+	/**
+	 * A hash that is the same for every rotation of the same bits, computed from
+	 * the words of the canonical rotation without rotating, so it can key
+	 * patterns that are only unique up to rotation
+	 */
+	public int rotationInvariantHashCode() {
+		int result = 1;
+		int offset = minimalRotationOffset();
+		for (int bit = 0; bit < size; bit += BITS_PER_UNIT) {
+			int len = Math.min(BITS_PER_UNIT, size - bit);
+			result = 31 * result + Long.hashCode(LongArrayShift.readBitsCyclic(bits, size, offset, len));
+			offset = cyclicAdd(offset, len);
+		}
+		return 31 * size + result;
+	}
+
+	/**
+	 * @param pattern the bits to look for
+	 * @param from    the first position to check
+	 * @return the first position at or after <code>from</code> where all of
+	 *         <code>pattern</code> matches, or <code>-1</code>
+	 * @see LongArrayShift#indexOf(long[], long, long[], long, long)
+	 */
+	public int indexOf(LongQuickBitArray pattern, int from) {
+		return (int) LongArrayShift.indexOf(bits, size, pattern.bits, pattern.size, from);
+	}
+
+	public int indexOf(LongQuickBitArray pattern) {
+		return indexOf(pattern, 0);
+	}
+
+	/**
+	 * Like {@link #indexOf(LongQuickBitArray, int)}, but a match may run past the
+	 * last bit and continue at bit 0
+	 *
+	 * @param pattern the bits to look for, no longer than this array
+	 * @param from    the first position to check
+	 * @return the first position in <code>[from, size)</code> where all of
+	 *         <code>pattern</code> matches, or <code>-1</code>
+	 */
+	public int cyclicIndexOf(LongQuickBitArray pattern, int from) {
+		return (int) LongArrayShift.cyclicIndexOf(bits, size, pattern.bits, pattern.size, from);
+	}
+
+	private int cyclicAdd(int bit, int len) {
+		bit += len;
+		return bit >= size ? bit - size : bit;
+	}
+
 //	
 //	private static final int rightShiftNeedsCarryMask=1;
 //	private static final int leftShiftNeedsCarryMask=Integer.MIN_VALUE;
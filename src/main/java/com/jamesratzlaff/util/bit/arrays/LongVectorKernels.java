@@ -0,0 +1,127 @@
+package com.jamesratzlaff.util.bit.arrays;
+
+import com.jamesratzlaff.util.bit.BitUnit;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Lane-parallel versions of the carry pass of the in-place rotation (see
+ * {@link BitStore#carryShiftLeft(long, long, int)}) and of the word-wise boolean operations used by
+ * {@link BulkBitOps}. Only touch this class when
+ * {@link VectorSupport#PRESENT} is <code>true</code>, and prefer the scalar
+ * loops when {@link #isUsable()} is <code>false</code>.
+ */
+public final class LongVectorKernels {
+
+	private static final BitUnit unit = BitUnit.LONG;
+	private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+	private LongVectorKernels() {
+	}
+
+	/**
+	 * @return <code>true</code> if the preferred species has more than one lane
+	 */
+	public static boolean isUsable() {
+		return SPECIES.length() > 1;
+	}
+
+	/**
+	 * Lane-parallel {@link LongArrayShift#carryShiftLeft(long[], int, int, int)}, the
+	 * pass a rotation makes over every element when the amount is not a whole
+	 * number of elements
+	 */
+	public static void carryShiftLeft(long[] bits, int from, int toExcl, int amt) {
+		carryShiftLeft(SPECIES, bits, from, toExcl, amt);
+	}
+
+	/**
+	 * {@link #carryShiftLeft(long[], int, int, int)} with the given species. Works
+	 * from the last element down so each vector still reads the untouched element
+	 * below it. A single lane species uses the scalar loop.
+	 */
+	public static void carryShiftLeft(VectorSpecies<Long> species, long[] bits, int from, int toExcl, int amt) {
+		int lanes = species.length();
+		if (lanes == 1) {
+			LongArrayShift.carryShiftLeft(bits, from, toExcl, amt);
+			return;
+		}
+		int carryShift = unit.bits() - amt;
+		long wrapCarry = bits[toExcl - 1] >>> carryShift;
+		int i = toExcl - lanes;
+		for (; i > from; i -= lanes) {
+			LongVector current = LongVector.fromArray(species, bits, i);
+			LongVector previous = LongVector.fromArray(species, bits, i - 1);
+			current.lanewise(VectorOperators.LSHL, amt).or(previous.lanewise(VectorOperators.LSHR, carryShift))
+					.intoArray(bits, i);
+		}
+		for (int j = i + lanes - 1; j > from; j--) {
+			bits[j] = (bits[j] << amt) | (bits[j - 1] >>> carryShift);
+		}
+		bits[from] = (bits[from] << amt) | wrapCarry;
+	}
+
+	private static VectorOperators.Binary operator(BitwiseOp op) {
+		switch (op) {
+		case AND:
+			return VectorOperators.AND;
+		case OR:
+			return VectorOperators.OR;
+		case XOR:
+			return VectorOperators.XOR;
+		default:
+			return VectorOperators.AND_NOT;
+		}
+	}
+
+	/**
+	 * <code>dest[i] = op(a[i], b[i])</code> for <code>from &lt;= i &lt; toExcl</code>,
+	 * <code>dest</code> may be <code>a</code> or <code>b</code>
+	 */
+	public static void apply(BitwiseOp op, long[] a, long[] b, long[] dest, int from, int toExcl) {
+		VectorOperators.Binary operator = operator(op);
+		int i = from;
+		int upperBound = from + SPECIES.loopBound(toExcl - from);
+		for (; i < upperBound; i += SPECIES.length()) {
+			LongVector.fromArray(SPECIES, a, i).lanewise(operator, LongVector.fromArray(SPECIES, b, i)).intoArray(dest, i);
+		}
+		for (; i < toExcl; i++) {
+			dest[i] = op.apply(a[i], b[i]);
+		}
+	}
+
+	/**
+	 * <code>dest[i] = ~a[i]</code> for <code>from &lt;= i &lt; toExcl</code>
+	 */
+	public static void not(long[] a, long[] dest, int from, int toExcl) {
+		int i = from;
+		int upperBound = from + SPECIES.loopBound(toExcl - from);
+		for (; i < upperBound; i += SPECIES.length()) {
+			LongVector.fromArray(SPECIES, a, i).not().intoArray(dest, i);
+		}
+		for (; i < toExcl; i++) {
+			dest[i] = ~a[i];
+		}
+	}
+
+	/**
+	 * @return the number of bits set in both <code>a[i]</code> and
+	 *         <code>b[i]</code> for <code>from &lt;= i &lt; toExcl</code>
+	 */
+	public static long andCardinality(long[] a, long[] b, int from, int toExcl) {
+		int i = from;
+		int upperBound = from + SPECIES.loopBound(toExcl - from);
+		LongVector counts = LongVector.zero(SPECIES);
+		for (; i < upperBound; i += SPECIES.length()) {
+			counts = counts.add(LongVector.fromArray(SPECIES, a, i).and(LongVector.fromArray(SPECIES, b, i))
+					.lanewise(VectorOperators.BIT_COUNT));
+		}
+		long result = counts.reduceLanes(VectorOperators.ADD);
+		for (; i < toExcl; i++) {
+			result += Long.bitCount(a[i] & b[i]);
+		}
+		return result;
+	}
+}
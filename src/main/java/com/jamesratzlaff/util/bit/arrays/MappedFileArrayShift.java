@@ -0,0 +1,95 @@
+package com.jamesratzlaff.util.bit.arrays;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Rotates bits that are stored in a file without reading them onto the heap.
+ * The region is mapped as a {@link MemorySegment} and rotated with
+ * {@link SegmentArrayShift#bitwiseRotate(MemorySegment, long, long)}, which
+ * only walks the mapping from both ends and keeps a few <code>long</code>s of
+ * scratch, so the operating system pages the file in and out as needed and
+ * bit vectors larger than RAM can be rotated.
+ * <p>
+ * Bits are stored the way {@link SegmentArrayShift} expects them: bit
+ * <code>i</code> is in byte <code>i/8</code> of the region, and the region must
+ * span a whole number of <code>long</code>s (see
+ * {@link SegmentArrayShift#bytesFor(long)}).
+ * </p>
+ * <p>
+ * The rotation is in place, so it passes over the region more than once. When
+ * <code>size</code> is a multiple of 64 the words are reversed twice (the whole
+ * region, then each part) and, if the amount is not a whole number of words,
+ * shifted once more. Any other size is rotated by bit-range reversals that read
+ * and write the whole region twice and cannot stream the way word copies do.
+ * Once the region no longer fits in the page cache that is two to three times
+ * the file I/O of reading it once, so prefer sizes that are a multiple of 64
+ * for very large files.
+ * </p>
+ */
+public class MappedFileArrayShift {
+
+	/**
+	 *
+	 * @param file a file whose first bytes hold the bits
+	 * @param size the number of <i>bit</i> the file represents
+	 * @param amt  the amount to rotate the bits, a positive value will rotate
+	 *             right, a negative value will rotate left
+	 * @throws IOException if the file cannot be opened or mapped
+	 */
+	public static void bitwiseRotate(Path file, long size, long amt) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			bitwiseRotate(channel, 0, size, amt);
+		}
+	}
+
+	/**
+	 *
+	 * @param channel    a channel opened for reading and writing
+	 * @param byteOffset where the bits start in the channel's file
+	 * @param size       the number of <i>bit</i> stored from
+	 *                   <code>byteOffset</code>
+	 * @param amt        the amount to rotate the bits, a positive value will
+	 *                   rotate right, a negative value will rotate left
+	 * @throws IOException if the region cannot be mapped
+	 */
+	public static void bitwiseRotate(FileChannel channel, long byteOffset, long size, long amt) throws IOException {
+		long byteSize = SegmentArrayShift.bytesFor(size);
+		if (byteOffset < 0 || byteOffset + byteSize > channel.size()) {
+			throw new IllegalArgumentException("the file has " + channel.size() + " bytes, " + size + " bits at offset "
+					+ byteOffset + " need " + (byteOffset + byteSize));
+		}
+		if (byteSize == 0) {
+			return;
+		}
+		try (Arena arena = Arena.ofConfined()) {
+			MemorySegment bits = channel.map(MapMode.READ_WRITE, byteOffset, byteSize, arena);
+			SegmentArrayShift.bitwiseRotate(bits, size, amt);
+			bits.force();
+		}
+	}
+
+	/**
+	 * Maps bits stored in a file as an {@link OffHeapLongQuickBitArray}. Changes
+	 * are written back to the file, the mapping stays valid until
+	 * <code>arena</code> is closed.
+	 *
+	 * @param channel    a channel opened for reading and writing
+	 * @param byteOffset where the bits start in the channel's file
+	 * @param size       the number of <i>bit</i> stored from
+	 *                   <code>byteOffset</code>
+	 * @param arena      the arena that owns the mapping
+	 * @return a bit array backed by the file
+	 * @throws IOException if the region cannot be mapped
+	 */
+	public static OffHeapLongQuickBitArray map(FileChannel channel, long byteOffset, long size, Arena arena)
+			throws IOException {
+		long byteSize = SegmentArrayShift.bytesFor(size);
+		return OffHeapLongQuickBitArray.wrap(channel.map(MapMode.READ_WRITE, byteOffset, byteSize, arena), size);
+	}
+}
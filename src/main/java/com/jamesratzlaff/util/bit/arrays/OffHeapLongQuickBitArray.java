@@ -0,0 +1,359 @@
+package com.jamesratzlaff.util.bit.arrays;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+
+import com.jamesratzlaff.util.bit.BitUnit;
+
+/**
+ * A fixed size {@link LongQuickBitArray} whose bits live in a
+ * {@link MemorySegment} instead of a <code>long[]</code>, so it can hold more
+ * than <code>Integer.MAX_VALUE</code> bits and stays out of the garbage
+ * collector's way. The memory belongs to the {@link Arena} it was allocated
+ * from and is released when that arena is closed.
+ */
+public class OffHeapLongQuickBitArray {
+
+	public static final int BITS_PER_BYTE = BitUnit.BYTE.bits();// 8
+	public static final int BITS_PER_BYTE_SHIFT = BitUnit.BYTE.multOrDivShift();
+	public static final int BIT_SHIFT_BYTE_LIMIT_MASK = BitUnit.BYTE.limitMask();
+	public static final int BITS_PER_UNIT = BitUnit.LONG.bits();// 64
+	public static final int BITS_PER_UNIT_SHIFT = BitUnit.LONG.multOrDivShift();
+	public static final int BIT_SHIFT_UNIT_LIMIT_MASK = BitUnit.LONG.limitMask();
+
+	private final MemorySegment bits;
+	private final long size;
+	private final long words;
+
+	/**
+	 * Allocates a zeroed bit array
+	 *
+	 * @param size  the number of bits
+	 * @param arena the arena that owns the memory
+	 */
+	public OffHeapLongQuickBitArray(long size, Arena arena) {
+		this(arena.allocate(SegmentArrayShift.bytesFor(size), Long.BYTES), size);
+	}
+
+	private OffHeapLongQuickBitArray(MemorySegment bits, long size) {
+		if (size < 0 || SegmentArrayShift.bytesFor(size) > bits.byteSize()) {
+			throw new IllegalArgumentException("a segment of " + bits.byteSize() + " bytes cannot hold " + size + " bits");
+		}
+		this.bits = bits;
+		this.size = size;
+		this.words = (size + BIT_SHIFT_UNIT_LIMIT_MASK) >>> BITS_PER_UNIT_SHIFT;
+	}
+
+	/**
+	 * @param segment the memory to use, bit <code>i</code> is in byte
+	 *                <code>i/8</code>
+	 * @param size    the number of bits <code>segment</code> represents
+	 * @return an instance in which any mutations are directly written to the given
+	 *         segment
+	 */
+	public static OffHeapLongQuickBitArray wrap(MemorySegment segment, long size) {
+		return new OffHeapLongQuickBitArray(segment, size);
+	}
+
+	/**
+	 * @param lqba  the bits to copy
+	 * @param arena the arena that owns the memory of the copy
+	 * @return an off-heap copy of <code>lqba</code>
+	 */
+	public static OffHeapLongQuickBitArray from(LongQuickBitArray lqba, Arena arena) {
+		OffHeapLongQuickBitArray result = new OffHeapLongQuickBitArray(lqba.getSize(), arena);
+		long[] src = lqba.getBitArray();
+		for (int i = 0; i < result.words; i++) {
+			SegmentArrayShift.setWord(result.bits, i, src[i]);
+		}
+		return result;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public long getSizeInBytes() {
+		return (size + BIT_SHIFT_BYTE_LIMIT_MASK) >>> BITS_PER_BYTE_SHIFT;
+	}
+
+	/**
+	 * @return the underlying segment. Bit <code>i</code> is in byte
+	 *         <code>i/8</code>, use {@link SegmentArrayShift#WORD} to read whole
+	 *         words.
+	 */
+	public MemorySegment getSegment() {
+		return bits;
+	}
+
+	private long word(long idx) {
+		return SegmentArrayShift.getWord(bits, idx);
+	}
+
+	private void word(long idx, long value) {
+		SegmentArrayShift.setWord(bits, idx, value);
+	}
+
+	/**
+	 * @param i bit to get
+	 * @return true iff bit i is set
+	 */
+	public boolean get(long i) {
+		return (word(i >>> BITS_PER_UNIT_SHIFT) & (1l << (i & BIT_SHIFT_UNIT_LIMIT_MASK))) != 0;
+	}
+
+	/**
+	 * Sets bit i.
+	 *
+	 * @param i bit to set
+	 */
+	public void set(long i) {
+		long idx = i >>> BITS_PER_UNIT_SHIFT;
+		word(idx, word(idx) | (1l << (i & BIT_SHIFT_UNIT_LIMIT_MASK)));
+	}
+
+	/**
+	 * Clears bit i.
+	 *
+	 * @param i bit to clear
+	 */
+	public void unset(long i) {
+		long idx = i >>> BITS_PER_UNIT_SHIFT;
+		word(idx, word(idx) & ~(1l << (i & BIT_SHIFT_UNIT_LIMIT_MASK)));
+	}
+
+	/**
+	 * Flips bit i.
+	 *
+	 * @param i bit to set
+	 */
+	public void flip(long i) {
+		long idx = i >>> BITS_PER_UNIT_SHIFT;
+		word(idx, word(idx) ^ (1l << (i & BIT_SHIFT_UNIT_LIMIT_MASK)));
+	}
+
+	private long normalizeCyclic(long i) {
+		return LongArrayShift.normalizeCyclic(i, size);
+	}
+
+	public boolean getCyclic(long i) {
+		return get(normalizeCyclic(i));
+	}
+
+	public void setCyclic(long i) {
+		set(normalizeCyclic(i));
+	}
+
+	public void unsetCyclic(long i) {
+		unset(normalizeCyclic(i));
+	}
+
+	public void flipCyclic(long i) {
+		flip(normalizeCyclic(i));
+	}
+
+	/**
+	 * @param from first bit to check
+	 * @return index of first bit that is set, starting from the given index, or
+	 *         size if none are set at or beyond this given index
+	 * @see #getNextUnset(long)
+	 */
+	public long getNextSet(long from) {
+		if (from >= size) {
+			return size;
+		}
+		long bitsOffset = from >>> BITS_PER_UNIT_SHIFT;
+		long currentBits = word(bitsOffset);
+		// mask off lesser bits first
+		currentBits &= -(1l << (from & BIT_SHIFT_UNIT_LIMIT_MASK));
+		while (currentBits == 0) {
+			if (++bitsOffset == words) {
+				return size;
+			}
+			currentBits = word(bitsOffset);
+		}
+		long result = (bitsOffset << BITS_PER_UNIT_SHIFT) + Long.numberOfTrailingZeros(currentBits);
+		return Math.min(result, size);
+	}
+
+	/**
+	 * @param from index to start looking for unset bit
+	 * @return index of next unset bit, or {@code size} if none are unset until the
+	 *         end
+	 * @see #getNextSet(long)
+	 */
+	public long getNextUnset(long from) {
+		if (from >= size) {
+			return size;
+		}
+		long bitsOffset = from >>> BITS_PER_UNIT_SHIFT;
+		long currentBits = ~word(bitsOffset);
+		// mask off lesser bits first
+		currentBits &= -(1l << (from & BIT_SHIFT_UNIT_LIMIT_MASK));
+		while (currentBits == 0) {
+			if (++bitsOffset == words) {
+				return size;
+			}
+			currentBits = ~word(bitsOffset);
+		}
+		long result = (bitsOffset << BITS_PER_UNIT_SHIFT) + Long.numberOfTrailingZeros(currentBits);
+		return Math.min(result, size);
+	}
+
+	/**
+	 * Sets a block of 64 bits, starting at bit i.
+	 *
+	 * @param i       first bit to set, a multiple of 64
+	 * @param newBits the new value of the next 64 bits
+	 */
+	public void setBulk(long i, long newBits) {
+		word(i >>> BITS_PER_UNIT_SHIFT, newBits);
+	}
+
+	/**
+	 * Sets a range of bits.
+	 *
+	 * @param start start of range, inclusive.
+	 * @param end   end of range, exclusive
+	 */
+	public void setRange(long start, long end) {
+		if (end < start || start < 0 || end > size) {
+			throw new IllegalArgumentException();
+		}
+		if (end == start) {
+			return;
+		}
+		end--; // will be easier to treat this as the last actually set bit -- inclusive
+		long firstWord = start >>> BITS_PER_UNIT_SHIFT;
+		long lastWord = end >>> BITS_PER_UNIT_SHIFT;
+		for (long i = firstWord; i <= lastWord; i++) {
+			int firstBit = i > firstWord ? 0 : (int) (start & BIT_SHIFT_UNIT_LIMIT_MASK);
+			int lastBit = i < lastWord ? BIT_SHIFT_UNIT_LIMIT_MASK : (int) (end & BIT_SHIFT_UNIT_LIMIT_MASK);
+			// Ones from firstBit to lastBit, inclusive
+			long mask = (2l << lastBit) - (1l << firstBit);
+			word(i, word(i) | mask);
+		}
+	}
+
+	/**
+	 * Clears all bits (sets to false).
+	 */
+	public void clear() {
+		bits.asSlice(0, words * Long.BYTES).fill((byte) 0);
+	}
+
+	/**
+	 * Efficient method to check if a range of bits is set, or not set.
+	 *
+	 * @param start start of range, inclusive.
+	 * @param end   end of range, exclusive
+	 * @param value if true, checks that bits in range are set, otherwise checks
+	 *              that they are not set
+	 * @return true iff all bits are set or not set in range, according to value
+	 *         argument
+	 * @throws IllegalArgumentException if end is less than start or the range is
+	 *                                  not contained in the array
+	 */
+	public boolean isRange(long start, long end, boolean value) {
+		if (end < start || start < 0 || end > size) {
+			throw new IllegalArgumentException();
+		}
+		if (end == start) {
+			return true; // empty range matches
+		}
+		end--; // will be easier to treat this as the last actually set bit -- inclusive
+		long firstWord = start >>> BITS_PER_UNIT_SHIFT;
+		long lastWord = end >>> BITS_PER_UNIT_SHIFT;
+		for (long i = firstWord; i <= lastWord; i++) {
+			int firstBit = i > firstWord ? 0 : (int) (start & BIT_SHIFT_UNIT_LIMIT_MASK);
+			int lastBit = i < lastWord ? BIT_SHIFT_UNIT_LIMIT_MASK : (int) (end & BIT_SHIFT_UNIT_LIMIT_MASK);
+			// Ones from firstBit to lastBit, inclusive
+			long mask = (2l << lastBit) - (1l << firstBit);
+			if ((word(i) & mask) != (value ? mask : 0l)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public void xor(OffHeapLongQuickBitArray other) {
+		if (size != other.size) {
+			throw new IllegalArgumentException("Sizes don't match");
+		}
+		for (long i = 0; i < words; i++) {
+			word(i, word(i) ^ other.word(i));
+		}
+	}
+
+	/**
+	 * Reverses all bits in the array, in place.
+	 */
+	public void reverse() {
+		SegmentArrayShift.reverseBits(bits, 0, size);
+	}
+
+	/**
+	 * @param amount if negative it rotates left, positive right
+	 * @return this instance
+	 */
+	public OffHeapLongQuickBitArray rotate(long amount) {
+		SegmentArrayShift.bitwiseRotate(bits, size, amount);
+		return this;
+	}
+
+	/**
+	 * @param amount if negative it shifts left, positive right...is cyclic
+	 * @return this instance
+	 */
+	public OffHeapLongQuickBitArray shift(long amount) {
+		return rotate(amount);
+	}
+
+	/**
+	 * @param arena the arena that owns the memory of the copy
+	 * @return a copy of this array allocated from <code>arena</code>
+	 */
+	public OffHeapLongQuickBitArray copy(Arena arena) {
+		OffHeapLongQuickBitArray result = new OffHeapLongQuickBitArray(size, arena);
+		MemorySegment.copy(bits, 0, result.bits, 0, words * Long.BYTES);
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof OffHeapLongQuickBitArray)) {
+			return false;
+		}
+		OffHeapLongQuickBitArray other = (OffHeapLongQuickBitArray) o;
+		if (size != other.size) {
+			return false;
+		}
+		for (long i = 0; i < words; i++) {
+			if (word(i) != other.word(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int result = 1;
+		for (long i = 0; i < words; i++) {
+			result = 31 * result + Long.hashCode(word(i));
+		}
+		return 31 * Long.hashCode(size) + result;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder((int) Math.min(Integer.MAX_VALUE - 8, size + (size >>> BITS_PER_BYTE_SHIFT) + 1));
+		for (long i = 0; i < size; i++) {
+			if ((i & BIT_SHIFT_BYTE_LIMIT_MASK) == 0) {
+				result.append(' ');
+			}
+			result.append(get(i) ? "█" : "_");
+		}
+		return result.toString();
+	}
+}
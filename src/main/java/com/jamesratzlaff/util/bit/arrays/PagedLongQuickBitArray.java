@@ -0,0 +1,347 @@
+package com.jamesratzlaff.util.bit.arrays;
+
+import com.jamesratzlaff.util.bit.BitUnit;
+
+/**
+ * A fixed size bit array stored in 4 KiB pages that are shared copy-on-write.
+ * {@link #snapshot()} only hands the page table to a new instance, and the
+ * first write to a page afterwards copies that page (and, once, the table).
+ * Pages that were never written share a single zero page.
+ * <p>
+ * Ownership is tracked with a token per instance: a page may be written in
+ * place only when its owner entry is this instance's token. Taking a snapshot
+ * gives both instances new tokens, so every page becomes shared at once
+ * without touching the table.
+ * </p>
+ * <p>
+ * A rotation by a whole number of pages over a range that starts and ends on
+ * page boundaries only remaps the table, the pages stay shared. Other ranges
+ * are rotated in place by a {@link BitRotationEngine} over a store that copies
+ * each page the first time it writes to it, and a whole-array rotation that
+ * cannot be remapped is written into fresh pages in one pass instead of
+ * copying and then rotating, target pages that stay all zero keep sharing the
+ * zero page.
+ * </p>
+ * <p>
+ * Instances are not thread safe, but a snapshot can be handed to another
+ * thread (published safely) and read while the original keeps being modified,
+ * neither ever writes to a page the other can see.
+ * </p>
+ */
+public class PagedLongQuickBitArray {
+
+	private static final BitUnit unit = BitUnit.LONG;
+
+	public static final int PAGE_WORDS_SHIFT = 9;
+	/**
+	 * <code>long</code>s per page, 4 KiB
+	 */
+	public static final int PAGE_WORDS = 1 << PAGE_WORDS_SHIFT;
+	public static final int PAGE_BITS_SHIFT = PAGE_WORDS_SHIFT + unit.multOrDivShift();
+	public static final int PAGE_BITS = 1 << PAGE_BITS_SHIFT;
+
+	private static final long[] ZERO_PAGE = new long[PAGE_WORDS];
+
+	private final int size;
+	private long[][] pages;
+	private Object[] owners;
+	private boolean tableShared;
+	private Object token = new Object();
+	private final PagedStore store = new PagedStore();
+
+	public PagedLongQuickBitArray(int size) {
+		this.size = size;
+		int pageCount = (int) ((size + (long) PAGE_BITS - 1) >>> PAGE_BITS_SHIFT);
+		this.pages = new long[pageCount][];
+		this.owners = new Object[pageCount];
+		for (int p = 0; p < pageCount; p++) {
+			pages[p] = ZERO_PAGE;
+		}
+	}
+
+	private PagedLongQuickBitArray(int size, long[][] pages, Object[] owners) {
+		this.size = size;
+		this.pages = pages;
+		this.owners = owners;
+		this.tableShared = true;
+	}
+
+	/**
+	 * @param lqba the bits to copy
+	 * @return a paged copy of <code>lqba</code>
+	 */
+	public static PagedLongQuickBitArray from(LongQuickBitArray lqba) {
+		PagedLongQuickBitArray result = new PagedLongQuickBitArray(lqba.getSize());
+		long[] source = lqba.getBitArray();
+		int words = (lqba.getSize() + unit.limitMask()) >>> unit.multOrDivShift();
+		for (int w = 0; w < words; w++) {
+			if (source[w] != 0) {
+				result.setWord(w, source[w]);
+			}
+		}
+		result.clearPastSize();
+		return result;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @param i bit to get
+	 * @return true iff bit i is set
+	 */
+	public boolean get(int i) {
+		return ((getWord(i >>> unit.multOrDivShift()) >>> (i & unit.limitMask())) & 1) != 0;
+	}
+
+	/**
+	 * Sets bit i.
+	 *
+	 * @param i bit to set
+	 */
+	public void set(int i) {
+		int w = i >>> unit.multOrDivShift();
+		setWord(w, getWord(w) | (1l << (i & unit.limitMask())));
+	}
+
+	public void unset(int i) {
+		int w = i >>> unit.multOrDivShift();
+		setWord(w, getWord(w) & ~(1l << (i & unit.limitMask())));
+	}
+
+	/**
+	 * Flips bit i.
+	 *
+	 * @param i bit to flip
+	 */
+	public void flip(int i) {
+		int w = i >>> unit.multOrDivShift();
+		setWord(w, getWord(w) ^ (1l << (i & unit.limitMask())));
+	}
+
+	/**
+	 * @return a copy of these bits that costs nothing until either side writes,
+	 *         after which only the written pages are copied
+	 */
+	public PagedLongQuickBitArray snapshot() {
+		tableShared = true;
+		token = new Object();
+		return new PagedLongQuickBitArray(size, pages, owners);
+	}
+
+	/**
+	 * @param amount if negative it rotates left, positive right
+	 * @return this instance
+	 */
+	public PagedLongQuickBitArray rotate(int amount) {
+		if (size < 2) {
+			return this;
+		}
+		long amt = LongArrayShift.normalizeCyclic(amount, size);
+		if (amt == 0) {
+			return this;
+		}
+		if (((size | amt) & (PAGE_BITS - 1)) == 0) {
+			remapPages(0, pages.length, (int) (amt >>> PAGE_BITS_SHIFT));
+			return this;
+		}
+		// a page is only allocated by its first nonzero word, the rest stay the zero page
+		long[][] rotated = new long[pages.length][];
+		Object[] rotatedOwners = new Object[pages.length];
+		for (int p = 0; p < rotated.length; p++) {
+			rotated[p] = ZERO_PAGE;
+		}
+		int words = (size + unit.limitMask()) >>> unit.multOrDivShift();
+		long sourceBit = size - amt;
+		for (int w = 0; w < words; w++) {
+			int len = Math.min(unit.bits(), size - (w << unit.multOrDivShift()));
+			long value = BitRotationEngine.readBitsCyclic(store, size, sourceBit, len);
+			if (value != 0) {
+				int page = w >>> PAGE_WORDS_SHIFT;
+				if (rotatedOwners[page] != token) {
+					rotated[page] = new long[PAGE_WORDS];
+					rotatedOwners[page] = token;
+				}
+				rotated[page][w & (PAGE_WORDS - 1)] = value;
+			}
+			sourceBit += len;
+			if (sourceBit >= size) {
+				sourceBit -= size;
+			}
+		}
+		pages = rotated;
+		owners = rotatedOwners;
+		tableShared = false;
+		return this;
+	}
+
+	/**
+	 * Rotates only the bits in <code>[from, toExcl)</code>, copying just the
+	 * pages that overlap the range (none when the range and the amount are whole
+	 * pages)
+	 *
+	 * @param from   the first bit of the range (inclusive)
+	 * @param toExcl the end of the range (exclusive)
+	 * @param amount if negative it rotates left, positive right
+	 */
+	public void rotateRange(int from, int toExcl, int amount) {
+		long len = toExcl - from;
+		if (len < 2) {
+			return;
+		}
+		long amt = LongArrayShift.normalizeCyclic(amount, len);
+		if (((from | toExcl | amt) & (PAGE_BITS - 1)) == 0) {
+			remapPages(from >>> PAGE_BITS_SHIFT, toExcl >>> PAGE_BITS_SHIFT, (int) (amt >>> PAGE_BITS_SHIFT));
+			return;
+		}
+		BitRotationEngine.rotateRange(store, from, toExcl, amt);
+	}
+
+	/**
+	 * @return a plain copy of the bits
+	 */
+	public LongQuickBitArray toLongQuickBitArray() {
+		int words = (size + unit.limitMask()) >>> unit.multOrDivShift();
+		long[] copy = new long[words];
+		for (int p = 0; p < pages.length; p++) {
+			int start = p << PAGE_WORDS_SHIFT;
+			System.arraycopy(pages[p], 0, copy, start, Math.min(PAGE_WORDS, words - start));
+		}
+		return new LongQuickBitArray(copy, size);
+	}
+
+	/**
+	 * @return the number of pages this instance has its own copy of, the rest
+	 *         are shared with snapshots or are the zero page
+	 */
+	public int getOwnedPageCount() {
+		int owned = 0;
+		for (Object owner : owners) {
+			if (owner == token) {
+				owned++;
+			}
+		}
+		return owned;
+	}
+
+	private long getWord(int wordIndex) {
+		return pages[wordIndex >>> PAGE_WORDS_SHIFT][wordIndex & (PAGE_WORDS - 1)];
+	}
+
+	private void setWord(int wordIndex, long value) {
+		writablePage(wordIndex >>> PAGE_WORDS_SHIFT)[wordIndex & (PAGE_WORDS - 1)] = value;
+	}
+
+	private long[] writablePage(int page) {
+		if (owners[page] == token) {
+			return pages[page];
+		}
+		ownTable();
+		long[] copy = pages[page].clone();
+		pages[page] = copy;
+		owners[page] = token;
+		return copy;
+	}
+
+	private void ownTable() {
+		if (tableShared) {
+			pages = pages.clone();
+			owners = owners.clone();
+			tableShared = false;
+		}
+	}
+
+	/**
+	 * Moves page <code>p</code> of <code>[fromPage, toPageExcl)</code> to
+	 * <code>p + shift</code>, cyclically within the range
+	 */
+	private void remapPages(int fromPage, int toPageExcl, int shift) {
+		if (shift == 0) {
+			return;
+		}
+		ownTable();
+		int count = toPageExcl - fromPage;
+		long[][] movedPages = new long[count][];
+		Object[] movedOwners = new Object[count];
+		for (int p = 0; p < count; p++) {
+			int target = p + shift < count ? p + shift : p + shift - count;
+			movedPages[target] = pages[fromPage + p];
+			movedOwners[target] = owners[fromPage + p];
+		}
+		System.arraycopy(movedPages, 0, pages, fromPage, count);
+		System.arraycopy(movedOwners, 0, owners, fromPage, count);
+	}
+
+	private void clearPastSize() {
+		int end = size & unit.limitMask();
+		if (end != 0) {
+			int last = size >>> unit.multOrDivShift();
+			long value = getWord(last);
+			if ((value >>> end) != 0) {
+				setWord(last, value & ((1l << end) - 1));
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return toLongQuickBitArray().toString();
+	}
+
+	/**
+	 * The pages as a {@link BitStore}, writes copy a page the first time they
+	 * touch it
+	 */
+	private final class PagedStore extends BitStore {
+
+		PagedStore() {
+			super(unit);
+		}
+
+		@Override
+		public long getWord(long wordIndex) {
+			return wordIndex < ((long) pages.length << PAGE_WORDS_SHIFT)
+					? PagedLongQuickBitArray.this.getWord((int) wordIndex)
+					: 0;
+		}
+
+		@Override
+		public void setWord(long wordIndex, long value) {
+			PagedLongQuickBitArray.this.setWord((int) wordIndex, value);
+		}
+
+		@Override
+		public void reverseUnits(long from, long toExcl) {
+			for (int i = (int) from, j = (int) toExcl - 1; i < j; i++, j--) {
+				long tmp = PagedLongQuickBitArray.this.getWord(i);
+				PagedLongQuickBitArray.this.setWord(i, PagedLongQuickBitArray.this.getWord(j));
+				PagedLongQuickBitArray.this.setWord(j, tmp);
+			}
+		}
+
+		@Override
+		public void carryShiftLeft(long from, long toExcl, int amt) {
+			int carryShift = unit.bits() - amt;
+			long carry = PagedLongQuickBitArray.this.getWord((int) toExcl - 1) >>> carryShift;
+			for (int i = (int) from; i < toExcl; i++) {
+				long current = PagedLongQuickBitArray.this.getWord(i);
+				PagedLongQuickBitArray.this.setWord(i, (current << amt) | carry);
+				carry = current >>> carryShift;
+			}
+		}
+
+		@Override
+		public void reverseBits(long from, long toExcl) {
+			while (toExcl - from > 1) {
+				int len = (int) Math.min(unit.bits(), (toExcl - from) >>> 1);
+				long low = readBits(from, len);
+				long high = readBits(toExcl - len, len);
+				writeBits(from, len, Long.reverse(high) >>> (unit.bits() - len));
+				writeBits(toExcl - len, len, Long.reverse(low) >>> (unit.bits() - len));
+				from += len;
+				toExcl -= len;
+			}
+		}
+	}
+}
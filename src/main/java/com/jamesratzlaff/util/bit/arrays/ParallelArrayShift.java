@@ -0,0 +1,351 @@
+package com.jamesratzlaff.util.bit.arrays;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.jamesratzlaff.util.bit.BitUnit;
+
+/**
+ * Fork/join version of {@link LongArrayShift#bitwiseRotate(long[], long, long)}
+ * for very large bit arrays. The destination is split into chunks of
+ * {@link #CHUNK_WORDS} <code>long</code>s and every destination word is read
+ * straight out of the source at the rotated bit offset, so the chunks do not
+ * depend on each other.
+ * <p>
+ * The in-place overloads run the passes of
+ * {@link BitRotationEngine#rotate(BitStore, long, long)} over chunks of the
+ * array itself instead, so they only need a <code>long</code> of scratch per
+ * chunk.
+ * </p>
+ */
+public class ParallelArrayShift {
+
+	private static final BitUnit unit = BitUnit.LONG;
+
+	/**
+	 * Number of <code>long</code>s (256 KiB) each task writes, small enough for
+	 * the source and destination of a chunk to stay in L2
+	 */
+	public static final int CHUNK_WORDS = 1 << 15;
+
+	/**
+	 * Arrays with fewer <code>long</code>s than this (4 Mbit) are rotated
+	 * sequentially
+	 */
+	public static final int DEFAULT_THRESHOLD_WORDS = 1 << 16;
+
+	/**
+	 * Rotates <code>bits</code> in place, in parallel once it has at least
+	 * {@link #DEFAULT_THRESHOLD_WORDS} <code>long</code>s
+	 * 
+	 * @param bits an <code>long[]</code> that represents bits
+	 * @param size the number of <i>bit</i> this <code>long[]</code> represents
+	 * @param amt  the amount to rotate the bits, a positive value will rotate
+	 *             right, a negative value will rotate left
+	 * @return the passed in <code>bits</code> parameter with its bits rotated
+	 */
+	public static long[] bitwiseRotate(long[] bits, long size, long amt) {
+		return bitwiseRotate(bits, size, amt, DEFAULT_THRESHOLD_WORDS, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Rotates <code>bits</code> in place. When <code>size</code> is a multiple of
+	 * 64 the whole-word reversals and the final carry pass are split into chunks,
+	 * otherwise the three bit reversals are, in two rounds so that chunks sharing
+	 * a boundary word never run at the same time.
+	 * 
+	 * @param bits           an <code>long[]</code> that represents bits
+	 * @param size           the number of <i>bit</i> this <code>long[]</code>
+	 *                       represents
+	 * @param amt            the amount to rotate the bits, a positive value will
+	 *                       rotate right, a negative value will rotate left
+	 * @param thresholdWords arrays with fewer <code>long</code>s than this are
+	 *                       rotated with
+	 *                       {@link LongArrayShift#bitwiseRotate(long[], long, long)}
+	 * @param pool           the pool to run the chunks in
+	 * @return the passed in <code>bits</code> parameter with its bits rotated
+	 */
+	public static long[] bitwiseRotate(long[] bits, long size, long amt, int thresholdWords, ForkJoinPool pool) {
+		int words = wordsFor(size);
+		if (words < thresholdWords) {
+			return LongArrayShift.bitwiseRotate(bits, size, amt);
+		}
+		if (size == 0) {
+			return bits;
+		}
+		amt = LongArrayShift.normalizeCyclic(amt, size);
+		if (amt == 0) {
+			return bits;
+		}
+		if ((size & unit.limitMask()) == 0) {
+			int wordShifts = (int) (amt >>> unit.multOrDivShift());
+			int bitShifts = (int) (amt & unit.limitMask());
+			if (wordShifts != 0) {
+				reverseWords(bits, 0, words, pool);
+				reverseWords(bits, 0, wordShifts, pool);
+				reverseWords(bits, wordShifts, words, pool);
+			}
+			if (bitShifts != 0) {
+				carryShiftLeft(bits, words, bitShifts, pool);
+			}
+			return bits;
+		}
+		reverseBits(bits, 0, size, pool);
+		reverseBits(bits, 0, amt, pool);
+		reverseBits(bits, amt, size, pool);
+		return bits;
+	}
+
+	/**
+	 * Writes the rotation of <code>source</code> into <code>destination</code>
+	 * without modifying <code>source</code>. Every word is written once, which is
+	 * fewer passes than the in-place {@link #bitwiseRotate(long[], long, long)}
+	 * for callers that can spare the second array.
+	 * 
+	 * @param source         an <code>long[]</code> that represents bits
+	 * @param destination    where the rotated bits are written, must not be
+	 *                       <code>source</code>
+	 * @param size           the number of <i>bit</i> <code>source</code>
+	 *                       represents
+	 * @param amt            the amount to rotate the bits, a positive value will
+	 *                       rotate right, a negative value will rotate left
+	 * @param thresholdWords arrays with fewer <code>long</code>s than this are
+	 *                       rotated on the calling thread
+	 * @param pool           the pool to run the chunks in
+	 * @return <code>destination</code>
+	 */
+	public static long[] bitwiseRotate(long[] source, long[] destination, long size, long amt, int thresholdWords,
+			ForkJoinPool pool) {
+		if (source == destination) {
+			throw new IllegalArgumentException("source and destination must be different arrays");
+		}
+		int words = wordsFor(size);
+		if (size == 0) {
+			return destination;
+		}
+		long shift = LongArrayShift.normalizeCyclic(amt, size);
+		RotateTask task = new RotateTask(source, destination, size, shift, 0, words);
+		if (words < thresholdWords) {
+			task.compute();
+		} else {
+			pool.invoke(task);
+		}
+		return destination;
+	}
+
+	private static int wordsFor(long size) {
+		return (int) ((size + unit.limitMask()) >>> unit.multOrDivShift());
+	}
+
+	private static int chunksFor(long units) {
+		return (int) ((units + CHUNK_WORDS - 1) / CHUNK_WORDS);
+	}
+
+	private static void reverseWords(long[] bits, int from, int toExcl, ForkJoinPool pool) {
+		pool.invoke(new ReverseWordsTask(bits, from, toExcl, 0, (toExcl - from) >>> 1));
+	}
+
+	/**
+	 * {@link BitStore#carryShiftLeft(long, long, int)} over all of
+	 * <code>bits</code>, with the bits each chunk carries in read up front
+	 */
+	private static void carryShiftLeft(long[] bits, int words, int amt, ForkJoinPool pool) {
+		int chunks = chunksFor(words);
+		long[] carries = new long[chunks];
+		for (int c = 0; c < chunks; c++) {
+			carries[c] = bits[c == 0 ? words - 1 : c * CHUNK_WORDS - 1] >>> (unit.bits() - amt);
+		}
+		pool.invoke(new CarryShiftTask(bits, words, amt, carries, 0, chunks));
+	}
+
+	/**
+	 * {@link LongArrayShift#reverseBits(long[], long, long)} split into chunks
+	 * of {@link #CHUNK_WORDS} swaps, the even chunks run first and then the odd
+	 * ones
+	 */
+	private static void reverseBits(long[] bits, long from, long toExcl, ForkJoinPool pool) {
+		long half = (toExcl - from) >>> 1;
+		long steps = (half + unit.limitMask()) >>> unit.multOrDivShift();
+		int chunks = chunksFor(steps);
+		pool.invoke(new ReverseBitsTask(bits, from, toExcl, half, 0, 0, chunks));
+		pool.invoke(new ReverseBitsTask(bits, from, toExcl, half, 1, 0, chunks));
+	}
+
+	private static final class RotateTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final long[] source;
+		private final long[] destination;
+		private final long size;
+		private final long shift;
+		private final int fromWord;
+		private final int toWordExcl;
+
+		RotateTask(long[] source, long[] destination, long size, long shift, int fromWord, int toWordExcl) {
+			this.source = source;
+			this.destination = destination;
+			this.size = size;
+			this.shift = shift;
+			this.fromWord = fromWord;
+			this.toWordExcl = toWordExcl;
+		}
+
+		@Override
+		protected void compute() {
+			int words = toWordExcl - fromWord;
+			// outside of a pool invokeAll would fork into the common pool
+			if (words <= CHUNK_WORDS || getPool() == null) {
+				rotateChunk();
+				return;
+			}
+			int mid = fromWord + (words >>> 1);
+			invokeAll(new RotateTask(source, destination, size, shift, fromWord, mid),
+					new RotateTask(source, destination, size, shift, mid, toWordExcl));
+		}
+
+		private void rotateChunk() {
+			long destinationBit = (long) fromWord << unit.multOrDivShift();
+			long sourceBit = destinationBit - shift;
+			if (sourceBit < 0) {
+				sourceBit += size;
+			}
+			for (int i = fromWord; i < toWordExcl; i++) {
+				int len = (int) Math.min(unit.bits(), size - destinationBit);
+				long value = LongArrayShift.readBitsCyclic(source, size, sourceBit, len);
+				if (len == unit.bits()) {
+					destination[i] = value;
+				} else {
+					LongArrayShift.writeBits(destination, destinationBit, len, value);
+				}
+				destinationBit += len;
+				sourceBit += len;
+				if (sourceBit >= size) {
+					sourceBit -= size;
+				}
+			}
+		}
+	}
+
+	private static final class ReverseWordsTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final long[] bits;
+		private final int from;
+		private final int toExcl;
+		private final int fromPair;
+		private final int toPairExcl;
+
+		ReverseWordsTask(long[] bits, int from, int toExcl, int fromPair, int toPairExcl) {
+			this.bits = bits;
+			this.from = from;
+			this.toExcl = toExcl;
+			this.fromPair = fromPair;
+			this.toPairExcl = toPairExcl;
+		}
+
+		@Override
+		protected void compute() {
+			int pairs = toPairExcl - fromPair;
+			if (pairs <= CHUNK_WORDS || getPool() == null) {
+				for (int i = from + fromPair, j = toExcl - 1 - fromPair; i < from + toPairExcl; i++, j--) {
+					long tmp = bits[i];
+					bits[i] = bits[j];
+					bits[j] = tmp;
+				}
+				return;
+			}
+			int mid = fromPair + (pairs >>> 1);
+			invokeAll(new ReverseWordsTask(bits, from, toExcl, fromPair, mid),
+					new ReverseWordsTask(bits, from, toExcl, mid, toPairExcl));
+		}
+	}
+
+	private static final class CarryShiftTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final long[] bits;
+		private final int words;
+		private final int amt;
+		private final long[] carries;
+		private final int fromChunk;
+		private final int toChunkExcl;
+
+		CarryShiftTask(long[] bits, int words, int amt, long[] carries, int fromChunk, int toChunkExcl) {
+			this.bits = bits;
+			this.words = words;
+			this.amt = amt;
+			this.carries = carries;
+			this.fromChunk = fromChunk;
+			this.toChunkExcl = toChunkExcl;
+		}
+
+		@Override
+		protected void compute() {
+			int chunks = toChunkExcl - fromChunk;
+			if (chunks <= 1 || getPool() == null) {
+				BitStore store = BitStore.of(bits);
+				for (int c = fromChunk; c < toChunkExcl; c++) {
+					int from = c * CHUNK_WORDS;
+					store.carryShiftLeft(from, Math.min(words, from + CHUNK_WORDS), amt);
+					// the chunk carried its own last word in, swap in the one before it
+					bits[from] = (bits[from] & (-1l << amt)) | carries[c];
+				}
+				return;
+			}
+			int mid = fromChunk + (chunks >>> 1);
+			invokeAll(new CarryShiftTask(bits, words, amt, carries, fromChunk, mid),
+					new CarryShiftTask(bits, words, amt, carries, mid, toChunkExcl));
+		}
+	}
+
+	private static final class ReverseBitsTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final long[] bits;
+		private final long from;
+		private final long toExcl;
+		private final long half;
+		private final int parity;
+		private final int fromChunk;
+		private final int toChunkExcl;
+
+		ReverseBitsTask(long[] bits, long from, long toExcl, long half, int parity, int fromChunk, int toChunkExcl) {
+			this.bits = bits;
+			this.from = from;
+			this.toExcl = toExcl;
+			this.half = half;
+			this.parity = parity;
+			this.fromChunk = fromChunk;
+			this.toChunkExcl = toChunkExcl;
+		}
+
+		@Override
+		protected void compute() {
+			int chunks = toChunkExcl - fromChunk;
+			if (chunks <= 1 || getPool() == null) {
+				for (int c = fromChunk; c < toChunkExcl; c++) {
+					if ((c & 1) == parity) {
+						reverseChunk(c);
+					}
+				}
+				return;
+			}
+			int mid = fromChunk + (chunks >>> 1);
+			invokeAll(new ReverseBitsTask(bits, from, toExcl, half, parity, fromChunk, mid),
+					new ReverseBitsTask(bits, from, toExcl, half, parity, mid, toChunkExcl));
+		}
+
+		/**
+		 * The swaps {@link LongArrayShift#reverseBits(long[], long, long)} makes
+		 * from the <code>c * CHUNK_WORDS</code>th on
+		 */
+		private void reverseChunk(int c) {
+			long done = ((long) c * CHUNK_WORDS) << unit.multOrDivShift();
+			long end = Math.min(half, done + ((long) CHUNK_WORDS << unit.multOrDivShift()));
+			while (done < end) {
+				int len = (int) Math.min(unit.bits(), end - done);
+				long low = LongArrayShift.readBits(bits, from + done, len);
+				long high = LongArrayShift.readBits(bits, toExcl - done - len, len);
+				LongArrayShift.writeBits(bits, from + done, len, Long.reverse(high) >>> (unit.bits() - len));
+				LongArrayShift.writeBits(bits, toExcl - done - len, len, Long.reverse(low) >>> (unit.bits() - len));
+				done += len;
+			}
+		}
+	}
+}
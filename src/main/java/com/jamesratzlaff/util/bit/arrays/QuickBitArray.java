@@ -276,14 +276,203 @@ public class QuickBitArray {
 		}
 	}
 
+	/**
+	 * <code>this &amp;= other</code>. Bits past the end of <code>other</code> count
+	 * as unset, so they are cleared.
+	 */
+	public void and(QuickBitArray other) {
+		applyInto(BitwiseOp.AND, other, this);
+	}
+
+	/**
+	 * <code>this |= other</code>, bits past the end of <code>other</code> are left
+	 * as they are
+	 */
+	public void or(QuickBitArray other) {
+		applyInto(BitwiseOp.OR, other, this);
+	}
+
+	/**
+	 * <code>this ^= other</code>, bits past the end of <code>other</code> are left
+	 * as they are
+	 */
 	public void xor(QuickBitArray other) {
+		applyInto(BitwiseOp.XOR, other, this);
+	}
+
+	/**
+	 * <code>this &amp;= ~other</code>, bits past the end of <code>other</code> are
+	 * left as they are
+	 */
+	public void andNot(QuickBitArray other) {
+		applyInto(BitwiseOp.AND_NOT, other, this);
+	}
+
+	/**
+	 * Flips every bit
+	 */
+	public void not() {
+		not(0, size);
+	}
+
+	/**
+	 * Flips every bit in a range
+	 *
+	 * @param start start of range, inclusive.
+	 * @param end   end of range, exclusive
+	 */
+	public void not(int start, int end) {
+		checkRange(start, end, size);
+		BulkBitOps.not(bits, bits, start, end);
+	}
+
+	/**
+	 * <code>this &amp;= other</code> for the bits in <code>[start, end)</code>
+	 *
+	 * @param other the bits to combine with, at the same positions
+	 * @param start start of range, inclusive.
+	 * @param end   end of range, exclusive
+	 */
+	public void and(QuickBitArray other, int start, int end) {
+		applyRange(BitwiseOp.AND, other, start, end);
+	}
+
+	/**
+	 * @see #and(QuickBitArray, int, int)
+	 */
+	public void or(QuickBitArray other, int start, int end) {
+		applyRange(BitwiseOp.OR, other, start, end);
+	}
+
+	/**
+	 * @see #and(QuickBitArray, int, int)
+	 */
+	public void xor(QuickBitArray other, int start, int end) {
+		applyRange(BitwiseOp.XOR, other, start, end);
+	}
+
+	/**
+	 * @see #and(QuickBitArray, int, int)
+	 */
+	public void andNot(QuickBitArray other, int start, int end) {
+		applyRange(BitwiseOp.AND_NOT, other, start, end);
+	}
+
+	/**
+	 * Writes <code>this &amp; other</code> to <code>dest</code> without modifying
+	 * this array
+	 *
+	 * @param other the bits to combine with
+	 * @param dest  where the first {@link #getSize()} bits of the result are
+	 *              written, may be this array or <code>other</code>
+	 * @return <code>dest</code>
+	 */
+	public QuickBitArray andInto(QuickBitArray other, QuickBitArray dest) {
+		return applyInto(BitwiseOp.AND, other, dest);
+	}
+
+	/**
+	 * @see #andInto(QuickBitArray, QuickBitArray)
+	 */
+	public QuickBitArray orInto(QuickBitArray other, QuickBitArray dest) {
+		return applyInto(BitwiseOp.OR, other, dest);
+	}
+
+	/**
+	 * @see #andInto(QuickBitArray, QuickBitArray)
+	 */
+	public QuickBitArray xorInto(QuickBitArray other, QuickBitArray dest) {
+		return applyInto(BitwiseOp.XOR, other, dest);
+	}
+
+	/**
+	 * @see #andInto(QuickBitArray, QuickBitArray)
+	 */
+	public QuickBitArray andNotInto(QuickBitArray other, QuickBitArray dest) {
+		return applyInto(BitwiseOp.AND_NOT, other, dest);
+	}
+
+	/**
+	 * Writes <code>~this</code> to <code>dest</code> without modifying this array
+	 *
+	 * @return <code>dest</code>
+	 */
+	public QuickBitArray notInto(QuickBitArray dest) {
+		checkDestination(dest);
+		BulkBitOps.not(bits, dest.bits, 0, size);
+		return dest;
+	}
+
+	/**
+	 * @return the number of bits set in both arrays, without building their
+	 *         intersection
+	 */
+	public int andCardinality(QuickBitArray other) {
+		return (int) BulkBitOps.andCardinality(bits, other.bits, 0, Math.min(size, other.size));
+	}
+
+	/**
+	 * <code>this ^= other</code> rotated by <code>amount</code>, reading
+	 * <code>other</code> at the rotated offset instead of rotating a copy of it.
+	 * <code>other</code> is not modified.
+	 *
+	 * @param other  the bits to rotate and combine with, the same size as this
+	 *               array
+	 * @param amount if negative it rotates left, positive right
+	 * @return this instance
+	 */
+	public QuickBitArray xorRotated(QuickBitArray other, int amount) {
+		checkSameSize(other);
+		// other may be this array, and the kernel can't write over what it still has to read
+		IntArrayShift.xorRotated(bits, other == this ? bits.clone() : other.bits, size, amount, bits);
+		return this;
+	}
+
+	/**
+	 * The number of bits set both in this array and in <code>other</code> rotated
+	 * by <code>amount</code>, without rotating or copying <code>other</code>
+	 *
+	 * @param other  the bits to rotate, the same size as this array
+	 * @param amount if negative it rotates left, positive right
+	 * @return <code>bitCount(this &amp; rotate(other, amount))</code>
+	 */
+	public int andRotatedCardinality(QuickBitArray other, int amount) {
+		checkSameSize(other);
+		return (int) IntArrayShift.andRotatedCardinality(bits, other.bits, size, amount);
+	}
+
+	private void applyRange(BitwiseOp op, QuickBitArray other, int start, int end) {
+		checkRange(start, end, Math.min(size, other.size));
+		BulkBitOps.apply(op, bits, other.bits, bits, start, end);
+	}
+
+	private QuickBitArray applyInto(BitwiseOp op, QuickBitArray other, QuickBitArray dest) {
+		checkDestination(dest);
+		int overlap = Math.min(size, other.size);
+		BulkBitOps.apply(op, bits, other.bits, dest.bits, 0, overlap);
+		if (!op.keepsUnmatched()) {
+			BulkBitOps.clear(dest.bits, overlap, size);
+		} else if (dest != this) {
+			BulkBitOps.copy(bits, dest.bits, overlap, size);
+		}
+		return dest;
+	}
+
+	private void checkSameSize(QuickBitArray other) {
 		if (size != other.size) {
 			throw new IllegalArgumentException("Sizes don't match");
 		}
-		for (int i = 0; i < bits.length; i++) {
-			// The last int could be incomplete (i.e. not have 32 bits in
-			// it) but there is no problem since 0 XOR 0 == 0.
-			bits[i] ^= other.bits[i];
+	}
+
+	private void checkDestination(QuickBitArray dest) {
+		if (dest.size < size) {
+			throw new IllegalArgumentException("the destination has " + dest.size + " bits, " + size + " are needed");
+		}
+	}
+
+	private static void checkRange(int start, int end, int size) {
+		if (end < start || start < 0 || end > size) {
+			throw new IllegalArgumentException();
 		}
 	}
 
@@ -348,72 +537,23 @@ public class QuickBitArray {
 	}
 
 	/**
+	 * Cyclically shifts the bits at word level with
+	 * {@link IntArrayShift#bitwiseRotate(int[], int, int)}, so the
+	 * cost is O(size/32) however large the amount is
 	 * 
 	 * @param amount if negative it shifts left, positive right...is cyclic
 	 */
 	public QuickBitArray shift(int amount) {
-		int absAmt = Math.abs(amount);
-		if (amount != 0) {
-			if (amount < 0) {
-				for (int i = 0; i < absAmt; i++) {
-					shiftLeft();
-				}
-			} else {
-				for (int i = 0; i < absAmt; i++) {
-					shiftRight();
-				}
-			}
-		}
+		IntArrayShift.bitwiseRotate(bits, size, amount);
 		return this;
-//		amount=amount%this.getSize();
-//		if(amount!=0) {
-//			int discreteAmt =amount<0?-1:1;
-//			int times=discreteAmt*amount;
-//			IntBinaryOperator op = amount<0?SHIFT_LEFT:SHIFT_RIGHT;
-//			for(int i=0;i<times;i++) {
-//				int[] carryMasks=getCarryMasksForOring(amount, this);
-//				for(int j=0;j<this.bits.length;j++) {
-//					int shifted=op.applyAsInt(this.bits[j], discreteAmt);
-//					int carryMask=carryMasks[j];
-//					int shiftedWithCarry=(shifted|carryMask);
-//					this.bits[j]=shiftedWithCarry;
-//				}
-//			}
-//		}
-//		return this;
 	}
 
 	public QuickBitArray shiftRight() {
-		QuickBitArray clone = new QuickBitArray(this.getSize());
-		for (int i = 0; i < this.size - 1; i++) {
-			if (this.get(i)) {
-				clone.set(i + 1);
-			}
-		}
-		if (this.get(this.size - 1)) {
-			clone.set(0);
-		}
-		for (int i = 0; i < clone.getBitArray().length; i++) {
-			this.getBitArray()[i] = clone.getBitArray()[i];
-		}
-
-		return this;
+		return shift(1);
 	}
 
 	public QuickBitArray shiftLeft() {
-		QuickBitArray clone = new QuickBitArray(this.getSize());
-		if (this.get(0)) {
-			clone.set(clone.getSize() - 1);
-		}
-		for (int i = 1; i < this.size; i++) {
-			if (this.get(i)) {
-				clone.set(i - 1);
-			}
-		}
-		for (int i = 0; i < clone.getBitArray().length; i++) {
-			this.getBitArray()[i] = clone.getBitArray()[i];
-		}
-		return this;
+		return shift(-1);
 	}
 
 //	private static final int rightShiftNeedsCarryMask=1;
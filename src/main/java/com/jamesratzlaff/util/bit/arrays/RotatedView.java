@@ -0,0 +1,216 @@
+package com.jamesratzlaff.util.bit.arrays;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * A rotation of a {@link LongQuickBitArray} that is never carried out unless
+ * asked for. The view only keeps the rotation offset and translates every read
+ * to the unrotated bits, so {@link #rotate(int)} is O(1) and any number of
+ * rotations collapse into one offset. {@link #materialize()} applies the offset
+ * to the backing array with {@link LongQuickBitArray#rotate(int)}, which also
+ * marks a {@link RankSelectIndex} over it as stale, when the rotated bits are
+ * really needed.
+ * <p>
+ * View bit <code>i</code> is backing bit <code>i - offset</code> (mod size),
+ * matching {@link LongQuickBitArray#rotate(int)} where a positive amount
+ * rotates right. Changes made directly to the backing array are visible through
+ * the view.
+ * </p>
+ */
+public class RotatedView {
+
+	private final LongQuickBitArray bits;
+	private int offset;
+
+	public RotatedView(LongQuickBitArray bits) {
+		this(bits, 0);
+	}
+
+	public RotatedView(LongQuickBitArray bits, int offset) {
+		this.bits = bits;
+		this.offset = normalize(offset);
+	}
+
+	private int normalize(long amount) {
+		if (bits.getSize() == 0) {
+			return 0;
+		}
+		return LongArrayShift.normalizeCyclicI(amount, bits.getSize());
+	}
+
+	private int toBacking(int i) {
+		int backing = i - offset;
+		return backing < 0 ? backing + bits.getSize() : backing;
+	}
+
+	private int toView(int backing) {
+		int i = backing + offset;
+		return i >= bits.getSize() ? i - bits.getSize() : i;
+	}
+
+	public int getSize() {
+		return bits.getSize();
+	}
+
+	/**
+	 * @return the amount the backing array would have to be rotated by to match
+	 *         this view (0 &lt;= offset &lt; size)
+	 */
+	public int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * @return the unrotated bits this view reads from
+	 */
+	public LongQuickBitArray getBacking() {
+		return bits;
+	}
+
+	/**
+	 * @param amount if negative it rotates left, positive right
+	 * @return this view
+	 */
+	public RotatedView rotate(int amount) {
+		offset = normalize((long) offset + amount);
+		return this;
+	}
+
+	/**
+	 * @param i bit to get
+	 * @return true iff bit i of the rotated bits is set
+	 */
+	public boolean get(int i) {
+		return bits.get(toBacking(i));
+	}
+
+	public boolean getCyclic(int i) {
+		return get(normalize(i));
+	}
+
+	/**
+	 * @param from first bit to check
+	 * @return index of first bit that is set, starting from the given index, or
+	 *         size if none are set at or beyond this given index
+	 * @see LongQuickBitArray#getNextSet(int)
+	 */
+	public int getNextSet(int from) {
+		return getNext(from, true);
+	}
+
+	/**
+	 * @param from index to start looking for unset bit
+	 * @return index of next unset bit, or {@code size} if none are unset until the
+	 *         end
+	 * @see LongQuickBitArray#getNextUnset(int)
+	 */
+	public int getNextUnset(int from) {
+		return getNext(from, false);
+	}
+
+	/**
+	 * The view range <code>[from, size)</code> is at most two backing ranges: from
+	 * the translated start up to the end of the backing array, then from 0 up to
+	 * the backing index of view bit <code>size</code>. The second range is
+	 * checked with {@link LongQuickBitArray#isRange(int, int, boolean)} first so
+	 * the scan never runs past its end.
+	 */
+	private int getNext(int from, boolean set) {
+		int size = bits.getSize();
+		if (from >= size) {
+			return size;
+		}
+		int start = toBacking(from);
+		int end = toBacking(0);
+		if (end <= start) {
+			int found = set ? bits.getNextSet(start) : bits.getNextUnset(start);
+			if (found < size) {
+				return toView(found);
+			}
+			if (end == 0) {
+				return size;
+			}
+			start = 0;
+		}
+		if (bits.isRange(start, end, !set)) {
+			return size;
+		}
+		return toView(set ? bits.getNextSet(start) : bits.getNextUnset(start));
+	}
+
+	/**
+	 * @param start start of range, inclusive.
+	 * @param end   end of range, exclusive
+	 * @param value if true, checks that bits in range are set, otherwise checks
+	 *              that they are not set
+	 * @return true iff all bits are set or not set in range, according to value
+	 *         argument
+	 * @see LongQuickBitArray#isRange(int, int, boolean)
+	 */
+	public boolean isRange(int start, int end, boolean value) {
+		int size = bits.getSize();
+		if (end < start || start < 0 || end > size) {
+			throw new IllegalArgumentException();
+		}
+		if (end == start) {
+			return true;
+		}
+		int backingStart = toBacking(start);
+		int backingEnd = backingStart + (end - start);
+		if (backingEnd <= size) {
+			return bits.isRange(backingStart, backingEnd, value);
+		}
+		return bits.isRange(backingStart, size, value) && bits.isRange(0, backingEnd - size, value);
+	}
+
+	/**
+	 * @return the indices of the set bits of the rotated bits, in increasing order
+	 */
+	public PrimitiveIterator.OfInt setBitIterator() {
+		return new PrimitiveIterator.OfInt() {
+			private int next = getNextSet(0);
+
+			@Override
+			public boolean hasNext() {
+				return next < bits.getSize();
+			}
+
+			@Override
+			public int nextInt() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				int current = next;
+				next = getNextSet(current + 1);
+				return current;
+			}
+		};
+	}
+
+	/**
+	 * Rotates the backing array by the pending offset and resets the offset to 0
+	 *
+	 * @return the backing array, now holding the rotated bits
+	 */
+	public LongQuickBitArray materialize() {
+		if (offset != 0) {
+			bits.rotate(offset);
+			offset = 0;
+		}
+		return bits;
+	}
+
+	@Override
+	public String toString() {
+		int size = bits.getSize();
+		StringBuilder result = new StringBuilder(size + (size >>> LongQuickBitArray.BITS_PER_BYTE_SHIFT) + 1);
+		for (int i = 0; i < size; i++) {
+			if ((i & LongQuickBitArray.BIT_SHIFT_BYTE_LIMIT_MASK) == 0) {
+				result.append(' ');
+			}
+			result.append(get(i) ? "█" : "_");
+		}
+		return result.toString();
+	}
+}
@@ -0,0 +1,163 @@
+package com.jamesratzlaff.util.bit.arrays;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+import com.jamesratzlaff.util.bit.BitUnit;
+
+/**
+ * The {@link BitRotationEngine} in-place rotation for bits stored in a
+ * {@link MemorySegment}. The segment is read as little-endian
+ * <code>long</code>s so bit <code>i</code> lives in byte <code>i/8</code>
+ * regardless of the platform, which keeps segments that are backed by files
+ * portable. Bit indices are <code>long</code>s so segments may hold more than
+ * <code>Integer.MAX_VALUE</code> bits.
+ */
+public class SegmentArrayShift {
+
+	private static final BitUnit unit = BitUnit.LONG;
+
+	/**
+	 * the layout every word of a bit segment is accessed with
+	 */
+	public static final ValueLayout.OfLong WORD = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+	/**
+	 *
+	 * @param size the number of bits
+	 * @return the number of bytes a segment needs to hold <code>size</code> bits
+	 */
+	public static long bytesFor(long size) {
+		return ((size + unit.limitMask()) >>> unit.multOrDivShift()) * Long.BYTES;
+	}
+
+	public static long getWord(MemorySegment bits, long wordIndex) {
+		return bits.getAtIndex(WORD, wordIndex);
+	}
+
+	public static void setWord(MemorySegment bits, long wordIndex, long value) {
+		bits.setAtIndex(WORD, wordIndex, value);
+	}
+
+	/**
+	 *
+	 * @param bits a {@link MemorySegment} that represents bits
+	 * @param size the number of <i>bit</i> this segment represents
+	 * @param amt  the amount to rotate the bits, a positive value will rotate
+	 *             right, a negative value will rotate left
+	 * @return the passed in <code>bits</code> parameter with its bits rotated
+	 * @see LongArrayShift#bitwiseRotateInPlace(long[], long, long)
+	 */
+	public static MemorySegment bitwiseRotate(MemorySegment bits, long size, long amt) {
+		BitRotationEngine.rotate(new SegmentStore(bits), size, amt);
+		return bits;
+	}
+
+	/**
+	 * @see LongArrayShift#reverseBits(long[], long, long)
+	 */
+	public static void reverseBits(MemorySegment bits, long from, long toExcl) {
+		while (toExcl - from > 1) {
+			int len = (int) Math.min(unit.bits(), (toExcl - from) >>> 1);
+			long low = readBits(bits, from, len);
+			long high = readBits(bits, toExcl - len, len);
+			writeBits(bits, from, len, Long.reverse(high) >>> (unit.bits() - len));
+			writeBits(bits, toExcl - len, len, Long.reverse(low) >>> (unit.bits() - len));
+			from += len;
+			toExcl -= len;
+		}
+	}
+
+	/**
+	 * @see LongArrayShift#readBits(long[], long, int)
+	 */
+	public static long readBits(MemorySegment bits, long bitIndex, int len) {
+		long idx = bitIndex >>> unit.multOrDivShift();
+		int offset = (int) (bitIndex & unit.limitMask());
+		long value = getWord(bits, idx) >>> offset;
+		if (offset + len > unit.bits()) {
+			value |= getWord(bits, idx + 1) << (unit.bits() - offset);
+		}
+		return value & (-1l >>> (unit.bits() - len));
+	}
+
+	/**
+	 * @see LongArrayShift#readBitsCyclic(long[], long, long, int)
+	 */
+	public static long readBitsCyclic(MemorySegment bits, long size, long bitIndex, int len) {
+		long untilEnd = size - bitIndex;
+		if (len <= untilEnd) {
+			return readBits(bits, bitIndex, len);
+		}
+		int lowLen = (int) untilEnd;
+		return readBits(bits, bitIndex, lowLen) | (readBits(bits, 0, len - lowLen) << lowLen);
+	}
+
+	/**
+	 * @see LongArrayShift#writeBits(long[], long, int, long)
+	 */
+	public static void writeBits(MemorySegment bits, long bitIndex, int len, long value) {
+		long idx = bitIndex >>> unit.multOrDivShift();
+		int offset = (int) (bitIndex & unit.limitMask());
+		long mask = -1l >>> (unit.bits() - len);
+		value &= mask;
+		setWord(bits, idx, (getWord(bits, idx) & ~(mask << offset)) | (value << offset));
+		if (offset + len > unit.bits()) {
+			int spill = unit.bits() - offset;
+			setWord(bits, idx + 1, (getWord(bits, idx + 1) & ~(mask >>> spill)) | (value >>> spill));
+		}
+	}
+
+	/**
+	 * A {@link BitStore} over a segment, kept here rather than in
+	 * {@link BitStore} so only the segment classes need the FFM API
+	 */
+	static final class SegmentStore extends BitStore {
+		private final MemorySegment bits;
+		private final long words;
+
+		SegmentStore(MemorySegment bits) {
+			super(word);
+			this.bits = bits;
+			this.words = bits.byteSize() / Long.BYTES;
+		}
+
+		@Override
+		public long getWord(long wordIndex) {
+			return wordIndex < words ? SegmentArrayShift.getWord(bits, wordIndex) : 0;
+		}
+
+		@Override
+		public void setWord(long wordIndex, long value) {
+			if (wordIndex < words) {
+				SegmentArrayShift.setWord(bits, wordIndex, value);
+			}
+		}
+
+		@Override
+		public void reverseUnits(long from, long toExcl) {
+			for (long i = from, j = toExcl - 1; i < j; i++, j--) {
+				long tmp = SegmentArrayShift.getWord(bits, i);
+				SegmentArrayShift.setWord(bits, i, SegmentArrayShift.getWord(bits, j));
+				SegmentArrayShift.setWord(bits, j, tmp);
+			}
+		}
+
+		@Override
+		public void carryShiftLeft(long from, long toExcl, int amt) {
+			int carryShift = word.bits() - amt;
+			long carry = SegmentArrayShift.getWord(bits, toExcl - 1) >>> carryShift;
+			for (long i = from; i < toExcl; i++) {
+				long current = SegmentArrayShift.getWord(bits, i);
+				SegmentArrayShift.setWord(bits, i, (current << amt) | carry);
+				carry = current >>> carryShift;
+			}
+		}
+
+		@Override
+		public void reverseBits(long from, long toExcl) {
+			SegmentArrayShift.reverseBits(bits, from, toExcl);
+		}
+	}
+}
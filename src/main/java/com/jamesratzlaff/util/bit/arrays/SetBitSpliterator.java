@@ -0,0 +1,132 @@
+package com.jamesratzlaff.util.bit.arrays;
+
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+import com.jamesratzlaff.util.bit.BitUnit;
+
+/**
+ * The indices of the set bits of a {@link LongQuickBitArray} in ascending
+ * order, one <code>numberOfTrailingZeros</code> per bit. It splits by halving
+ * the range of words it has not read yet, so a parallel stream gives each
+ * thread a contiguous block of words. Like the collections, it fails with a
+ * {@link ConcurrentModificationException} (at the latest when it is done) if
+ * the array is modified through its own methods while it is being traversed.
+ */
+final class SetBitSpliterator implements Spliterator.OfInt {
+
+	private static final BitUnit unit = BitUnit.LONG;
+	/**
+	 * Ranges of fewer words are not worth handing to another thread
+	 */
+	private static final int MIN_SPLIT_WORDS = 64;
+
+	private final LongQuickBitArray owner;
+	private final long[] bits;
+	private final int size;
+	private final int expectedModCount;
+	private final int endWord;
+	/**
+	 * The next word to read
+	 */
+	private int word;
+	/**
+	 * What is left of word <code>word - 1</code>
+	 */
+	private long pending;
+
+	SetBitSpliterator(LongQuickBitArray owner) {
+		this(owner, owner.getModCount(), 0, (owner.getSize() + unit.limitMask()) >>> unit.multOrDivShift(), 0);
+	}
+
+	private SetBitSpliterator(LongQuickBitArray owner, int expectedModCount, int word, int endWord, long pending) {
+		this.owner = owner;
+		this.bits = owner.getBitArray();
+		this.size = owner.getSize();
+		this.expectedModCount = expectedModCount;
+		this.word = word;
+		this.endWord = endWord;
+		this.pending = pending;
+	}
+
+	/**
+	 * @return word <code>w</code> without the bits past <code>size</code>
+	 */
+	private long read(int w) {
+		long value = bits[w];
+		return w == endWord - 1 && (long) endWord << unit.multOrDivShift() > size ? value & (-1l >>> -size) : value;
+	}
+
+	@Override
+	public boolean tryAdvance(IntConsumer action) {
+		while (pending == 0) {
+			if (word >= endWord) {
+				checkForComodification();
+				return false;
+			}
+			pending = read(word++);
+		}
+		int bit = ((word - 1) << unit.multOrDivShift()) + Long.numberOfTrailingZeros(pending);
+		pending &= pending - 1;
+		action.accept(bit);
+		return true;
+	}
+
+	@Override
+	public void forEachRemaining(IntConsumer action) {
+		long current = pending;
+		int w = word;
+		pending = 0;
+		word = endWord;
+		for (;;) {
+			int base = (w - 1) << unit.multOrDivShift();
+			for (; current != 0; current &= current - 1) {
+				action.accept(base + Long.numberOfTrailingZeros(current));
+			}
+			if (w >= endWord) {
+				break;
+			}
+			current = read(w++);
+		}
+		checkForComodification();
+	}
+
+	@Override
+	public Spliterator.OfInt trySplit() {
+		int mid = (word + endWord) >>> 1;
+		if (mid - word < MIN_SPLIT_WORDS) {
+			return null;
+		}
+		// the prefix keeps the partly read word, this keeps [mid, endWord)
+		SetBitSpliterator prefix = new SetBitSpliterator(owner, expectedModCount, word, mid, pending);
+		word = mid;
+		pending = 0;
+		return prefix;
+	}
+
+	/**
+	 * @return an upper bound, every bit left to read being set
+	 */
+	@Override
+	public long estimateSize() {
+		return ((long) (endWord - word) << unit.multOrDivShift()) + Long.bitCount(pending);
+	}
+
+	@Override
+	public int characteristics() {
+		return ORDERED | DISTINCT | SORTED | NONNULL;
+	}
+
+	@Override
+	public Comparator<? super Integer> getComparator() {
+		return null;
+	}
+
+	private void checkForComodification() {
+		if (owner.getModCount() != expectedModCount) {
+			throw new ConcurrentModificationException();
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package com.jamesratzlaff.util.bit.arrays;
+
+import com.jamesratzlaff.util.bit.BitUnit;
+
+/**
+ * Bit rotation for <code>short[]</code>s without converting them to
+ * <code>long[]</code>s first. Bit <code>i</code> is bit <code>i%16</code> of
+ * short <code>i/16</code>. There is no <code>long</code> view of a
+ * <code>short[]</code>, so bits are read and written by packing 4 shorts at a
+ * time into a <code>long</code>. The rotation itself is done by
+ * {@link BitRotationEngine}.
+ */
+public class ShortArrayShift {
+
+	private static final BitUnit unit = BitUnit.LONG;
+	private static final BitUnit shortUnit = BitUnit.SHORT;
+	private static final int SHORTS_PER_LONG = shortUnit.per(unit);
+
+	/**
+	 *
+	 * @param bits an <code>short[]</code> that represents bits
+	 * @param size the number of <i>bit</i> this <code>short[]</code> represents
+	 * @param amt  the amount to rotate the bits, a positive value will rotate
+	 *             right, a negative value will rotate left
+	 * @return a copy of the passed in <code>bits</code> parameter with the copy's
+	 *         bits rotated
+	 */
+	public static short[] nonMutatingBitwiseRotate(short[] bits, long size, long amt) {
+		short[] copy = bits.clone();
+		return bitwiseRotate(copy, size, amt);
+	}
+
+	/**
+	 * Rotates in place with O(1) extra memory, see {@link BitRotationEngine}
+	 *
+	 * @param bits an <code>short[]</code> that represents bits
+	 * @param size the number of <i>bit</i> this <code>short[]</code> represents
+	 * @param amt  the amount to rotate the bits, a positive value will rotate
+	 *             right, a negative value will rotate left
+	 * @return the passed in <code>bits</code> parameter with its bits rotated
+	 */
+	public static short[] bitwiseRotate(short[] bits, long size, long amt) {
+		BitRotationEngine.rotate(BitStore.of(bits), size, amt);
+		return bits;
+	}
+
+	public static short[] nonMutatingBitwiseRotateInnerBits(short[] bits, long size, long amt, long innerOffset,
+			long innerEndOffsetExcl) {
+		short[] clone = bits.clone();
+		return bitwiseRotateInnerBits(clone, size, amt, innerOffset, innerEndOffsetExcl);
+	}
+
+	/**
+	 * Rotates only the bits in <code>[innerOffset, innerEndOffsetExcl)</code>,
+	 * leaving every bit outside of that range as it was
+	 *
+	 * @param bits               an <code>short[]</code> that represents bits
+	 * @param size               the number of <i>bit</i> this <code>short[]</code>
+	 *                           represents
+	 * @param amt                the amount to rotate the range, a positive value
+	 *                           will rotate right, a negative value will rotate
+	 *                           left
+	 * @param innerOffset        the first bit of the range (inclusive)
+	 * @param innerEndOffsetExcl the end of the range (exclusive)
+	 * @return the passed in <code>bits</code> parameter with the range rotated
+	 */
+	public static short[] bitwiseRotateInnerBits(short[] bits, long size, long amt, long innerOffset,
+			long innerEndOffsetExcl) {
+		BitRotationEngine.rotateRange(BitStore.of(bits), innerOffset, innerEndOffsetExcl, amt);
+		return bits;
+	}
+
+	private static long getLong(short[] bits, int idx) {
+		long value = 0;
+		for (int i = 0; i < SHORTS_PER_LONG; i++) {
+			value |= (bits[idx + i] & 0xFFFFl) << (i << shortUnit.multOrDivShift());
+		}
+		return value;
+	}
+
+	private static void setLong(short[] bits, int idx, long value) {
+		for (int i = 0; i < SHORTS_PER_LONG; i++) {
+			bits[idx + i] = (short) (value >>> (i << shortUnit.multOrDivShift()));
+		}
+	}
+
+	/**
+	 * @see LongArrayShift#reverseBits(long[], long, long)
+	 */
+	public static void reverseBits(short[] bits, long from, long toExcl) {
+		while (toExcl - from > 1) {
+			int len = (int) Math.min(unit.bits(), (toExcl - from) >>> 1);
+			long low = readBits(bits, from, len);
+			long high = readBits(bits, toExcl - len, len);
+			writeBits(bits, from, len, Long.reverse(high) >>> (unit.bits() - len));
+			writeBits(bits, toExcl - len, len, Long.reverse(low) >>> (unit.bits() - len));
+			from += len;
+			toExcl -= len;
+		}
+	}
+
+	/**
+	 * @see LongArrayShift#readBits(long[], long, int)
+	 */
+	public static long readBits(short[] bits, long bitIndex, int len) {
+		int idx = (int) (bitIndex >>> shortUnit.multOrDivShift());
+		int offset = (int) (bitIndex & shortUnit.limitMask());
+		long value;
+		if (idx + SHORTS_PER_LONG <= bits.length) {
+			value = getLong(bits, idx) >>> offset;
+			if (offset + len > unit.bits()) {
+				value |= (bits[idx + SHORTS_PER_LONG] & 0xFFFFl) << (unit.bits() - offset);
+			}
+		} else {
+			value = 0;
+			for (int i = 0; idx + i < bits.length && (i << shortUnit.multOrDivShift()) < offset + len; i++) {
+				value |= (bits[idx + i] & 0xFFFFl) << (i << shortUnit.multOrDivShift());
+			}
+			value >>>= offset;
+		}
+		return value & (-1l >>> (unit.bits() - len));
+	}
+
+	/**
+	 * @see LongArrayShift#writeBits(long[], long, int, long)
+	 */
+	public static void writeBits(short[] bits, long bitIndex, int len, long value) {
+		int idx = (int) (bitIndex >>> shortUnit.multOrDivShift());
+		int offset = (int) (bitIndex & shortUnit.limitMask());
+		long mask = -1l >>> (unit.bits() - len);
+		value &= mask;
+		if (idx + SHORTS_PER_LONG <= bits.length) {
+			long current = getLong(bits, idx);
+			setLong(bits, idx, (current & ~(mask << offset)) | (value << offset));
+			if (offset + len > unit.bits()) {
+				int spill = unit.bits() - offset;
+				int spillIdx = idx + SHORTS_PER_LONG;
+				bits[spillIdx] = (short) ((bits[spillIdx] & ~(mask >>> spill)) | (value >>> spill));
+			}
+			return;
+		}
+		int end = offset + len;
+		for (int i = 0; (i << shortUnit.multOrDivShift()) < end; i++) {
+			int shift = (i << shortUnit.multOrDivShift()) - offset;
+			long shortMask = shift < 0 ? mask << -shift : mask >>> shift;
+			long shortValue = shift < 0 ? value << -shift : value >>> shift;
+			bits[idx + i] = (short) ((bits[idx + i] & ~shortMask) | (shortValue & shortMask));
+		}
+	}
+}
@@ -0,0 +1,353 @@
+package com.jamesratzlaff.util.bit.arrays;
+
+import java.util.Arrays;
+
+import com.jamesratzlaff.util.bit.BitUnit;
+
+/**
+ * A bit array of up to <code>Long.MAX_VALUE</code> bits that stores the sorted
+ * positions of its set bits, so memory and {@link #rotate(long)} cost
+ * O(cardinality) rather than O(size). A rotation adds the amount to every
+ * position; the positions that pass the end wrap to the front, so the sorted
+ * order is restored by one split and concatenate.
+ * <p>
+ * When more than one bit in {@value #DENSE_DIVISOR} is set the positions take
+ * more memory than plain words, so (if the size fits an <code>int</code>) the
+ * bits move into a {@link LongQuickBitArray}. They move back once fewer than
+ * one in {@value #SPARSE_DIVISOR} are set, the gap keeps a bit flipping back
+ * and forth at the threshold from converting every time.
+ * </p>
+ */
+public class SparseBitArray {
+
+	private static final BitUnit unit = BitUnit.LONG;
+
+	/**
+	 * A position takes as much memory as <code>unit.bits()</code> dense bits
+	 */
+	public static final int DENSE_DIVISOR = 64;
+	public static final int SPARSE_DIVISOR = DENSE_DIVISOR << 1;
+
+	private static final long[] EMPTY = new long[0];
+
+	private final long size;
+	private int cardinality;
+	/**
+	 * The set positions in <code>[0, cardinality)</code>, unused while dense
+	 */
+	private long[] positions = EMPTY;
+	/**
+	 * <code>null</code> while sparse
+	 */
+	private LongQuickBitArray dense;
+
+	public SparseBitArray(long size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("size must not be negative");
+		}
+		this.size = size;
+	}
+
+	/**
+	 * @param lqba the bits to copy
+	 * @return a copy of <code>lqba</code>, dense or sparse depending on how many
+	 *         bits are set
+	 */
+	public static SparseBitArray from(LongQuickBitArray lqba) {
+		SparseBitArray result = new SparseBitArray(lqba.getSize());
+		int size = lqba.getSize();
+		long[] words = lqba.getBitArray();
+		int wordCount = (size + unit.limitMask()) >>> unit.multOrDivShift();
+		int cardinality = 0;
+		for (int w = 0; w < wordCount; w++) {
+			cardinality += Long.bitCount(maskedWord(words, w, size));
+		}
+		result.cardinality = cardinality;
+		if (result.shouldBeDense()) {
+			long[] copy = new long[Math.max(wordCount, 1)];
+			System.arraycopy(words, 0, copy, 0, wordCount);
+			if (wordCount > 0) {
+				copy[wordCount - 1] = maskedWord(words, wordCount - 1, size);
+			}
+			result.dense = new LongQuickBitArray(copy, size);
+		} else {
+			result.positions = new long[cardinality];
+			int n = 0;
+			for (int w = 0; w < wordCount; w++) {
+				for (long bits = maskedWord(words, w, size); bits != 0; bits &= bits - 1) {
+					result.positions[n++] = ((long) w << unit.multOrDivShift()) + Long.numberOfTrailingZeros(bits);
+				}
+			}
+		}
+		return result;
+	}
+
+	private static long maskedWord(long[] words, int w, int size) {
+		int end = size - (w << unit.multOrDivShift());
+		return end < unit.bits() ? words[w] & ((1l << end) - 1) : words[w];
+	}
+
+	/**
+	 * @return a plain copy of the bits
+	 * @throws IllegalStateException if the size does not fit an <code>int</code>
+	 */
+	public LongQuickBitArray toLongQuickBitArray() {
+		if (size > Integer.MAX_VALUE) {
+			throw new IllegalStateException("size " + size + " is too large for a LongQuickBitArray");
+		}
+		if (dense != null) {
+			return new LongQuickBitArray(dense.getBitArray().clone(), (int) size);
+		}
+		return toDense();
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the number of set bits
+	 */
+	public int cardinality() {
+		return cardinality;
+	}
+
+	/**
+	 * @return true iff the bits are currently held in a {@link LongQuickBitArray}
+	 */
+	public boolean isDense() {
+		return dense != null;
+	}
+
+	/**
+	 * @return the positions of the set bits in ascending order
+	 */
+	public long[] getPositions() {
+		if (dense == null) {
+			return Arrays.copyOf(positions, cardinality);
+		}
+		long[] result = new long[cardinality];
+		int n = 0;
+		for (int i = dense.getNextSet(0); i < size; i = dense.getNextSet(i + 1)) {
+			result[n++] = i;
+		}
+		return result;
+	}
+
+	/**
+	 * @param i bit to get
+	 * @return true iff bit i is set
+	 */
+	public boolean get(long i) {
+		checkIndex(i);
+		return dense != null ? dense.get((int) i) : indexOf(i) >= 0;
+	}
+
+	public boolean getCyclic(long i) {
+		return get(LongArrayShift.normalizeCyclic(i, size));
+	}
+
+	/**
+	 * Sets bit i.
+	 *
+	 * @param i bit to set
+	 */
+	public void set(long i) {
+		checkIndex(i);
+		if (dense != null) {
+			if (!dense.get((int) i)) {
+				dense.set((int) i);
+				cardinality++;
+			}
+			return;
+		}
+		int idx = indexOf(i);
+		if (idx >= 0) {
+			return;
+		}
+		idx = -idx - 1;
+		if (cardinality == positions.length) {
+			positions = Arrays.copyOf(positions, Math.max(4, positions.length + (positions.length >>> 1)));
+		}
+		System.arraycopy(positions, idx, positions, idx + 1, cardinality - idx);
+		positions[idx] = i;
+		cardinality++;
+		if (shouldBeDense()) {
+			dense = toDense();
+			positions = EMPTY;
+		}
+	}
+
+	/**
+	 * Unsets bit i.
+	 *
+	 * @param i bit to unset
+	 */
+	public void unset(long i) {
+		checkIndex(i);
+		if (dense != null) {
+			if (dense.get((int) i)) {
+				dense.flip((int) i);
+				cardinality--;
+				if (shouldBeSparse()) {
+					positions = getPositions();
+					dense = null;
+				}
+			}
+			return;
+		}
+		int idx = indexOf(i);
+		if (idx >= 0) {
+			System.arraycopy(positions, idx + 1, positions, idx, cardinality - idx - 1);
+			cardinality--;
+		}
+	}
+
+	/**
+	 * Flips bit i.
+	 *
+	 * @param i bit to flip
+	 */
+	public void flip(long i) {
+		if (get(i)) {
+			unset(i);
+		} else {
+			set(i);
+		}
+	}
+
+	/**
+	 * @param from first bit to check
+	 * @return index of first bit that is set, starting from the given index, or
+	 *         size if none are set at or beyond this given index
+	 */
+	public long getNextSet(long from) {
+		if (from >= size) {
+			return size;
+		}
+		if (dense != null) {
+			return dense.getNextSet((int) from);
+		}
+		int idx = lowerBound(from);
+		return idx < cardinality ? positions[idx] : size;
+	}
+
+	/**
+	 * @param from index to start looking for unset bit
+	 * @return index of next unset bit, or {@code size} if none are unset until the
+	 *         end
+	 */
+	public long getNextUnset(long from) {
+		if (from >= size) {
+			return size;
+		}
+		if (dense != null) {
+			return dense.getNextUnset((int) from);
+		}
+		long position = from;
+		for (int idx = lowerBound(from); idx < cardinality && positions[idx] == position; idx++) {
+			position++;
+		}
+		return Math.min(position, size);
+	}
+
+	/**
+	 * @param start start of range, inclusive.
+	 * @param end   end of range, exclusive
+	 * @param value if true, checks that bits in range are set, otherwise checks
+	 *              that they are not set
+	 * @return true iff all bits are set or not set in range, according to value
+	 *         argument
+	 */
+	public boolean isRange(long start, long end, boolean value) {
+		if (end < start || start < 0 || end > size) {
+			throw new IllegalArgumentException();
+		}
+		long first = value ? getNextUnset(start) : getNextSet(start);
+		return first >= end;
+	}
+
+	/**
+	 * Rotates in O(cardinality) while sparse, see the class description
+	 *
+	 * @param amount if negative it rotates left, positive right
+	 * @return this instance
+	 */
+	public SparseBitArray rotate(long amount) {
+		if (size < 2) {
+			return this;
+		}
+		long amt = LongArrayShift.normalizeCyclic(amount, size);
+		if (amt == 0) {
+			return this;
+		}
+		if (dense != null) {
+			dense.rotate((int) amt);
+			return this;
+		}
+		// positions at or past wrap end up at the front
+		long wrap = size - amt;
+		int split = lowerBound(wrap);
+		int count = cardinality;
+		long[] rotated = new long[positions.length];
+		for (int i = split; i < count; i++) {
+			rotated[i - split] = positions[i] - wrap;
+		}
+		for (int i = 0; i < split; i++) {
+			rotated[count - split + i] = positions[i] + amt;
+		}
+		positions = rotated;
+		return this;
+	}
+
+	private LongQuickBitArray toDense() {
+		LongQuickBitArray result = new LongQuickBitArray((int) size);
+		long[] words = result.getBitArray();
+		for (int i = 0; i < cardinality; i++) {
+			words[(int) (positions[i] >>> unit.multOrDivShift())] |= 1l << positions[i];
+		}
+		return result;
+	}
+
+	private boolean shouldBeDense() {
+		return size <= Integer.MAX_VALUE && cardinality > size / DENSE_DIVISOR;
+	}
+
+	private boolean shouldBeSparse() {
+		return cardinality < size / SPARSE_DIVISOR;
+	}
+
+	private int indexOf(long position) {
+		return Arrays.binarySearch(positions, 0, cardinality, position);
+	}
+
+	private int lowerBound(long position) {
+		int idx = indexOf(position);
+		return idx < 0 ? -idx - 1 : idx;
+	}
+
+	private void checkIndex(long i) {
+		if (i < 0 || i >= size) {
+			throw new IndexOutOfBoundsException("index " + i + " is out of bounds for size " + size);
+		}
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof SparseBitArray)) {
+			return false;
+		}
+		SparseBitArray other = (SparseBitArray) o;
+		return size == other.size && Arrays.equals(getPositions(), other.getPositions());
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(size) * 31 + Arrays.hashCode(getPositions());
+	}
+
+	@Override
+	public String toString() {
+		return size + " " + Arrays.toString(getPositions());
+	}
+}
@@ -0,0 +1,17 @@
+package com.jamesratzlaff.util.bit.arrays;
+
+/**
+ * Tells the shift engines whether the <code>jdk.incubator.vector</code> module
+ * was resolved at startup. The vector kernels are only touched when it was, so
+ * running without <code>--add-modules=jdk.incubator.vector</code> falls back to
+ * the scalar loops instead of failing with a {@link NoClassDefFoundError}.
+ */
+final class VectorSupport {
+
+	static final boolean PRESENT = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+	static final boolean LONGS = PRESENT && LongVectorKernels.isUsable();
+	static final boolean INTS = PRESENT && IntVectorKernels.isUsable();
+
+	private VectorSupport() {
+	}
+}
@@ -0,0 +1,84 @@
+package com.jamesratzlaff.util.bit;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.jamesratzlaff.util.bit.arrays.BitRotationEngine;
+import com.jamesratzlaff.util.bit.arrays.BitStore;
+
+public class BitRotationEngineTest {
+
+	private static final Random r = new Random();
+
+	/**
+	 * <code>[from, toExcl)</code> rotated bit by bit, everything else copied
+	 */
+	private static long[] rotateRangeBitByBit(long[] bits, int from, int toExcl, long amt) {
+		long[] result = bits.clone();
+		int len = toExcl - from;
+		for (int i = 0; i < len; i++) {
+			int src = from + i;
+			int dst = from + (int) Math.floorMod(i + amt, (long) len);
+			long bit = 1l << dst;
+			if ((bits[src >>> 6] >>> src & 1) != 0) {
+				result[dst >>> 6] |= bit;
+			} else {
+				result[dst >>> 6] &= ~bit;
+			}
+		}
+		return result;
+	}
+
+	private static int[] toInts(long[] bits) {
+		int[] result = new int[bits.length << 1];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = (int) (bits[i >>> 1] >>> ((i & 1) << 5));
+		}
+		return result;
+	}
+
+	private static void check(long[] bits, int from, int toExcl, long amt) {
+		long[] expected = rotateRangeBitByBit(bits, from, toExcl, amt);
+		String message = "range [" + from + ", " + toExcl + ") rotating " + amt;
+		long[] longs = bits.clone();
+		BitRotationEngine.rotateRange(BitStore.of(longs), from, toExcl, amt);
+		assertArrayEquals(message, expected, longs);
+		int[] ints = toInts(bits);
+		BitRotationEngine.rotateRange(BitStore.of(ints), from, toExcl, amt);
+		assertArrayEquals(message, toInts(expected), ints);
+	}
+
+	@Test
+	public void testRotateRangeEdgeCases() {
+		long[] bits = r.longs(5).toArray();
+		for (long amt : new long[] { 0, 1, -1, 7, -64, 65 }) {
+			// empty and single bit ranges leave everything alone
+			check(bits, 0, 0, amt);
+			check(bits, 100, 100, amt);
+			check(bits, 37, 38, amt);
+			check(bits, 64, 65, amt);
+			// aligned on both ends, one end and neither end
+			check(bits, 64, 192, amt);
+			check(bits, 64, 150, amt);
+			check(bits, 13, 192, amt);
+			check(bits, 13, 150, amt);
+			check(bits, 3, 60, amt);
+			check(bits, 0, 320, amt);
+		}
+	}
+
+	@Test
+	public void testRotateRangeMatchesBitByBit() {
+		for (int n = 0; n < 2000; n++) {
+			long[] bits = r.longs(r.nextInt(1, 8)).toArray();
+			int size = bits.length << 6;
+			int from = r.nextInt(size + 1);
+			int toExcl = r.nextInt(from, size + 1);
+			long amt = r.nextLong(-3l * size, 3l * size + 1);
+			check(bits, from, toExcl, amt);
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package com.jamesratzlaff.util.bit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.jamesratzlaff.util.bit.arrays.BitwiseOp;
+import com.jamesratzlaff.util.bit.arrays.BulkBitOps;
+import com.jamesratzlaff.util.bit.arrays.LongQuickBitArray;
+
+public class BulkBitOpsTest {
+
+	private static final Random r = new Random();
+
+	private static boolean apply(BitwiseOp op, boolean a, boolean b) {
+		return op.apply(a ? 1l : 0l, b ? 1l : 0l) != 0;
+	}
+
+	private static boolean get(long[] bits, int i) {
+		return (bits[i >>> 6] >>> i & 1) != 0;
+	}
+
+	private static boolean get(int[] bits, int i) {
+		return (bits[i >>> 5] >>> i & 1) != 0;
+	}
+
+	@Test
+	public void testLongRanges() {
+		for (int n = 0; n < 500; n++) {
+			int words = r.nextInt(1, 40);
+			long[] a = r.longs(words).toArray();
+			long[] b = r.longs(words).toArray();
+			long[] dest = r.longs(words).toArray();
+			int from = r.nextInt(words << 6);
+			int toExcl = r.nextInt(from, (words << 6) + 1);
+			for (BitwiseOp op : BitwiseOp.values()) {
+				long[] result = dest.clone();
+				BulkBitOps.apply(op, a, b, result, from, toExcl);
+				for (int i = 0; i < words << 6; i++) {
+					boolean expected = i >= from && i < toExcl ? apply(op, get(a, i), get(b, i)) : get(dest, i);
+					assertEquals(op + " bit " + i + " of [" + from + ", " + toExcl + ")", expected, get(result, i));
+				}
+			}
+			long[] result = dest.clone();
+			BulkBitOps.not(a, result, from, toExcl);
+			long cardinality = 0;
+			for (int i = 0; i < words << 6; i++) {
+				boolean inRange = i >= from && i < toExcl;
+				assertEquals(inRange ? !get(a, i) : get(dest, i), get(result, i));
+				if (inRange && get(a, i) && get(b, i)) {
+					cardinality++;
+				}
+			}
+			assertEquals(cardinality, BulkBitOps.andCardinality(a, b, from, toExcl));
+		}
+	}
+
+	@Test
+	public void testIntRanges() {
+		for (int n = 0; n < 500; n++) {
+			int words = r.nextInt(1, 40);
+			int[] a = r.ints(words).toArray();
+			int[] b = r.ints(words).toArray();
+			int[] dest = r.ints(words).toArray();
+			int from = r.nextInt(words << 5);
+			int toExcl = r.nextInt(from, (words << 5) + 1);
+			for (BitwiseOp op : BitwiseOp.values()) {
+				int[] result = dest.clone();
+				BulkBitOps.apply(op, a, b, result, from, toExcl);
+				for (int i = 0; i < words << 5; i++) {
+					boolean expected = i >= from && i < toExcl ? apply(op, get(a, i), get(b, i)) : get(dest, i);
+					assertEquals(op + " bit " + i + " of [" + from + ", " + toExcl + ")", expected, get(result, i));
+				}
+			}
+			int[] result = dest.clone();
+			BulkBitOps.not(a, result, from, toExcl);
+			long cardinality = 0;
+			for (int i = 0; i < words << 5; i++) {
+				boolean inRange = i >= from && i < toExcl;
+				assertEquals(inRange ? !get(a, i) : get(dest, i), get(result, i));
+				if (inRange && get(a, i) && get(b, i)) {
+					cardinality++;
+				}
+			}
+			assertEquals(cardinality, BulkBitOps.andCardinality(a, b, from, toExcl));
+		}
+	}
+
+	/**
+	 * Bits past the end of the shorter <code>other</code> count as unset
+	 */
+	private static void assertOp(BitwiseOp op, LongQuickBitArray a, LongQuickBitArray other, LongQuickBitArray result) {
+		for (int i = 0; i < a.getSize(); i++) {
+			boolean b = i < other.getSize() && other.get(i);
+			assertEquals(op + " bit " + i, apply(op, a.get(i), b), result.get(i));
+		}
+	}
+
+	@Test
+	public void testLongQuickBitArrayOps() {
+		for (int[] sizes : new int[][] { { 100, 100 }, { 130, 77 }, { 77, 130 }, { 1000, 64 }, { 13, 1000 } }) {
+			LongQuickBitArray a = LongQuickBitArray.createRandomArrayOfLength(sizes[0]);
+			LongQuickBitArray other = LongQuickBitArray.createRandomArrayOfLength(sizes[1]);
+			System.out.println("testing bulk ops of len " + sizes[0] + " with len " + sizes[1]);
+
+			LongQuickBitArray result = a.clone();
+			result.and(other);
+			assertOp(BitwiseOp.AND, a, other, result);
+			result = a.clone();
+			result.or(other);
+			assertOp(BitwiseOp.OR, a, other, result);
+			result = a.clone();
+			result.xor(other);
+			assertOp(BitwiseOp.XOR, a, other, result);
+			result = a.clone();
+			result.andNot(other);
+			assertOp(BitwiseOp.AND_NOT, a, other, result);
+
+			LongQuickBitArray dest = LongQuickBitArray.createRandomArrayOfLength(sizes[0] + 70);
+			LongQuickBitArray before = dest.clone();
+			assertOp(BitwiseOp.AND, a, other, a.andInto(other, dest));
+			assertOp(BitwiseOp.OR, a, other, a.orInto(other, dest));
+			assertOp(BitwiseOp.XOR, a, other, a.xorInto(other, dest));
+			assertOp(BitwiseOp.AND_NOT, a, other, a.andNotInto(other, dest));
+			for (int i = sizes[0]; i < dest.getSize(); i++) {
+				assertEquals("bit " + i + " past the result", before.get(i), dest.get(i));
+			}
+			a.notInto(dest);
+			for (int i = 0; i < sizes[0]; i++) {
+				assertEquals(!a.get(i), dest.get(i));
+			}
+
+			int cardinality = 0;
+			for (int i = 0; i < Math.min(sizes[0], sizes[1]); i++) {
+				if (a.get(i) && other.get(i)) {
+					cardinality++;
+				}
+			}
+			assertEquals(cardinality, a.andCardinality(other));
+
+			int overlap = Math.min(sizes[0], sizes[1]);
+			int start = r.nextInt(overlap);
+			int end = r.nextInt(start, overlap + 1);
+			result = a.clone();
+			result.xor(other, start, end);
+			result.not(start, end);
+			for (int i = 0; i < sizes[0]; i++) {
+				boolean expected = i >= start && i < end ? !(a.get(i) ^ other.get(i)) : a.get(i);
+				assertEquals("range [" + start + ", " + end + ") bit " + i, expected, result.get(i));
+			}
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.jamesratzlaff.util.bit;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.jamesratzlaff.util.bit.arrays.ByteArrayShift;
+import com.jamesratzlaff.util.bit.arrays.LongArrayShift;
+import com.jamesratzlaff.util.bit.arrays.ShortArrayShift;
+
+public class ByteShortArrayShiftTest {
+
+	private static final Random r = new Random();
+	private static final int[] SIZES = { 1, 7, 13, 15, 17, 63, 77, 130, 1003 };
+
+	private static long[] randomBits(int size) {
+		long[] bits = r.longs((size + 63) >>> 6).toArray();
+		if ((size & 63) != 0) {
+			bits[bits.length - 1] &= -1l >>> -size;
+		}
+		return bits;
+	}
+
+	private static byte[] toBytes(long[] bits, int size) {
+		byte[] result = new byte[(size + 7) >>> 3];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = (byte) (bits[i >>> 3] >>> ((i & 7) << 3));
+		}
+		return result;
+	}
+
+	private static short[] toShorts(long[] bits, int size) {
+		short[] result = new short[(size + 15) >>> 4];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = (short) (bits[i >>> 2] >>> ((i & 3) << 4));
+		}
+		return result;
+	}
+
+	private static long[] fromBytes(byte[] bytes, int size) {
+		long[] result = new long[(size + 63) >>> 6];
+		for (int i = 0; i < size; i++) {
+			result[i >>> 6] |= (long) (bytes[i >>> 3] >>> (i & 7) & 1) << i;
+		}
+		return result;
+	}
+
+	private static long[] fromShorts(short[] shorts, int size) {
+		long[] result = new long[(size + 63) >>> 6];
+		for (int i = 0; i < size; i++) {
+			result[i >>> 6] |= (long) (shorts[i >>> 4] >>> (i & 15) & 1) << i;
+		}
+		return result;
+	}
+
+	@Test
+	public void testBitwiseRotateMatchesLongs() {
+		for (int size : SIZES) {
+			for (long shiftAmt : new long[] { 0, 1, -1, 8, -16, 17, size + 3, r.nextLong(-3l * size, 3l * size) }) {
+				long[] bits = randomBits(size);
+				long[] expected = LongArrayShift.bitwiseRotate(bits.clone(), size, shiftAmt);
+				System.out.println("testing byte and short rotate of len " + size + " shifting " + shiftAmt);
+				assertArrayEquals(expected, fromBytes(ByteArrayShift.bitwiseRotate(toBytes(bits, size), size, shiftAmt), size));
+				assertArrayEquals(expected,
+						fromShorts(ShortArrayShift.bitwiseRotate(toShorts(bits, size), size, shiftAmt), size));
+			}
+		}
+	}
+
+	@Test
+	public void testBitwiseRotateInnerBitsMatchesLongs() {
+		for (int size : SIZES) {
+			for (int n = 0; n < 20; n++) {
+				int from = r.nextInt(size + 1);
+				int toExcl = r.nextInt(from, size + 1);
+				long shiftAmt = r.nextLong(-2l * size - 1, 2l * size + 1);
+				long[] bits = randomBits(size);
+				long[] expected = LongArrayShift.bitwiseRotateInnerBits(bits.clone(), size, shiftAmt, from, toExcl);
+				assertArrayEquals(expected, fromBytes(
+						ByteArrayShift.bitwiseRotateInnerBits(toBytes(bits, size), size, shiftAmt, from, toExcl), size));
+				assertArrayEquals(expected, fromShorts(
+						ShortArrayShift.bitwiseRotateInnerBits(toShorts(bits, size), size, shiftAmt, from, toExcl), size));
+			}
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package com.jamesratzlaff.util.bit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.jamesratzlaff.util.bit.arrays.LongQuickBitArray;
+
+public class CanonicalRotationTest {
+
+	private static final Random r = new Random();
+
+	private static LongQuickBitArray fromString(String bits) {
+		LongQuickBitArray lqba = new LongQuickBitArray(bits.length());
+		for (int i = 0; i < bits.length(); i++) {
+			if (bits.charAt(i) == '1') {
+				lqba.set(i);
+			}
+		}
+		return lqba;
+	}
+
+	private static String toString(LongQuickBitArray lqba, int offset) {
+		int size = lqba.getSize();
+		StringBuilder result = new StringBuilder(size);
+		for (int i = 0; i < size; i++) {
+			result.append(lqba.get((offset + i) % size) ? '1' : '0');
+		}
+		return result.toString();
+	}
+
+	/**
+	 * The smallest offset whose cyclic reading, from bit 0 upwards, is the
+	 * smallest
+	 */
+	private static int naiveMinimalRotationOffset(LongQuickBitArray lqba) {
+		int best = 0;
+		String bestBits = toString(lqba, 0);
+		for (int offset = 1; offset < lqba.getSize(); offset++) {
+			String bits = toString(lqba, offset);
+			if (bits.compareTo(bestBits) < 0) {
+				best = offset;
+				bestBits = bits;
+			}
+		}
+		return best;
+	}
+
+	private static void check(LongQuickBitArray lqba) {
+		int size = lqba.getSize();
+		int expected = naiveMinimalRotationOffset(lqba);
+		assertEquals(toString(lqba, 0), expected, lqba.minimalRotationOffset());
+		LongQuickBitArray canonical = lqba.clone().canonicalRotation();
+		assertEquals(toString(lqba, expected), toString(canonical, 0));
+		int hash = lqba.rotationInvariantHashCode();
+		for (int amount : new int[] { 1, -1, 64, size / 2 + 1, r.nextInt(-3 * size, 3 * size + 1) }) {
+			LongQuickBitArray rotated = lqba.clone().rotate(amount);
+			assertEquals(true, lqba.isRotationOf(rotated));
+			assertEquals(true, rotated.isRotationOf(lqba));
+			assertEquals(hash, rotated.rotationInvariantHashCode());
+			assertEquals(canonical, rotated.clone().canonicalRotation());
+		}
+	}
+
+	@Test
+	public void testRandom() {
+		for (int size : new int[] { 1, 2, 63, 64, 65, 128, 200, 1000 }) {
+			check(LongQuickBitArray.createRandomArrayOfLength(size));
+		}
+	}
+
+	@Test
+	public void testPeriodic() {
+		for (String period : new String[] { "0", "1", "01", "110", "0110", "1000000001" }) {
+			for (int repeats : new int[] { 1, 2, 7, 64, 65 }) {
+				check(fromString(period.repeat(repeats)));
+			}
+		}
+		LongQuickBitArray word = LongQuickBitArray.createRandomArrayOfLength(64);
+		LongQuickBitArray repeated = new LongQuickBitArray(64 * 5);
+		for (int i = 0; i < repeated.getSize(); i++) {
+			if (word.get(i & 63)) {
+				repeated.set(i);
+			}
+		}
+		check(repeated);
+		// every offset gives the same bits, so 0 has to win
+		assertEquals(0, fromString("0".repeat(300)).minimalRotationOffset());
+		assertEquals(0, fromString("1".repeat(300)).minimalRotationOffset());
+		assertEquals(3, fromString("1110".repeat(100)).minimalRotationOffset());
+	}
+
+	@Test
+	public void testNotRotations() {
+		assertEquals(false, fromString("0011").isRotationOf(fromString("0101")));
+		assertEquals(false, fromString("0011").isRotationOf(fromString("00110")));
+		assertEquals(false, fromString("00111").isRotationOf(fromString("00110")));
+		assertEquals(true, new LongQuickBitArray(0).isRotationOf(new LongQuickBitArray(0)));
+		LongQuickBitArray lqba = LongQuickBitArray.createRandomArrayOfLength(500);
+		LongQuickBitArray other = lqba.clone().rotate(100);
+		int set = other.getNextSet(0);
+		int unset = other.getNextUnset(0);
+		other.flip(set);
+		other.flip(unset);
+		assertEquals(lqba.andCardinality(lqba), other.andCardinality(other));
+		assertEquals(naiveMinimalRotationOffset(other), other.minimalRotationOffset());
+		assertEquals(toString(lqba, naiveMinimalRotationOffset(lqba)).equals(
+				toString(other, naiveMinimalRotationOffset(other))), lqba.isRotationOf(other));
+	}
+}
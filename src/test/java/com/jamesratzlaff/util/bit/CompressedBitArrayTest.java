@@ -0,0 +1,91 @@
+package com.jamesratzlaff.util.bit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.jamesratzlaff.util.bit.arrays.CompressedBitArray;
+import com.jamesratzlaff.util.bit.arrays.LongQuickBitArray;
+
+public class CompressedBitArrayTest {
+
+	private static final Random r = new Random();
+
+	private static LongQuickBitArray mixed(int size) {
+		LongQuickBitArray lqba = new LongQuickBitArray(size);
+		int chunk = 0;
+		for (int start = 0; start < size; start += CompressedBitArray.CHUNK_BITS, chunk++) {
+			int end = Math.min(size, start + CompressedBitArray.CHUNK_BITS);
+			switch (chunk % 4) {
+			case 0:
+				// sparse
+				for (int i = 0; i < 100; i++) {
+					lqba.set(r.nextInt(start, end));
+				}
+				break;
+			case 1:
+				// dense
+				for (int i = start; i < end; i++) {
+					if (r.nextBoolean()) {
+						lqba.set(i);
+					}
+				}
+				break;
+			case 2:
+				// runs
+				for (int i = 0; i < 20; i++) {
+					int from = r.nextInt(start, end);
+					lqba.setRange(from, Math.min(end, from + r.nextInt(1, 3000)));
+				}
+				break;
+			default:
+				// empty
+			}
+		}
+		return lqba;
+	}
+
+	@Test
+	public void testRotateMatchesUncompressed() {
+		int chunk = CompressedBitArray.CHUNK_BITS;
+		for (int size : new int[] { 4 * chunk, 5 * chunk + 1234, 3 * chunk - 7, 999 }) {
+			for (int amount : new int[] { chunk, -2 * chunk, 1, -63, 64, r.nextInt(-3 * size, 3 * size) }) {
+				LongQuickBitArray lqba = mixed(size);
+				CompressedBitArray compressed = CompressedBitArray.from(lqba);
+				System.out.println("testing compressed array of len " + size + " rotating " + amount);
+				lqba.rotate(amount);
+				compressed.rotate(amount);
+				assertEquals(lqba, compressed.toLongQuickBitArray());
+				assertEquals(lqba.andCardinality(lqba), compressed.cardinality());
+			}
+		}
+	}
+
+	@Test
+	public void testScanAndMutate() {
+		int size = 3 * CompressedBitArray.CHUNK_BITS + 500;
+		LongQuickBitArray lqba = mixed(size);
+		CompressedBitArray compressed = CompressedBitArray.from(lqba);
+		for (int n = 0; n < 20000; n++) {
+			int i = r.nextInt(size);
+			if (r.nextBoolean()) {
+				lqba.set(i);
+				compressed.set(i);
+			} else {
+				if (lqba.get(i)) {
+					lqba.flip(i);
+				}
+				compressed.unset(i);
+			}
+		}
+		for (int n = 0; n < 2000; n++) {
+			int i = r.nextInt(size);
+			assertEquals(lqba.get(i), compressed.get(i));
+			assertEquals(lqba.getNextSet(i), compressed.getNextSet(i));
+			assertEquals(lqba.getNextUnset(i), compressed.getNextUnset(i));
+		}
+		assertEquals(lqba, compressed.toLongQuickBitArray());
+	}
+}
@@ -0,0 +1,181 @@
+package com.jamesratzlaff.util.bit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.jamesratzlaff.util.bit.arrays.ConcurrentLongQuickBitArray;
+import com.jamesratzlaff.util.bit.arrays.LongQuickBitArray;
+
+public class ConcurrentLongQuickBitArrayTest {
+
+	private static final Random r = new Random();
+	private static final int WRITERS = 4;
+
+	private static void runAll(List<Thread> threads) throws InterruptedException {
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+	}
+
+	/**
+	 * Rotation preserves the number of set bits and nothing is unset, so every
+	 * <code>testAndSet</code> that set a bit has to still be counted at the end
+	 */
+	@Test
+	public void testNoSetBitIsLost() throws InterruptedException {
+		int size = 100_000 + 13;
+		ConcurrentLongQuickBitArray bits = new ConcurrentLongQuickBitArray(size);
+		AtomicLong setByWriters = new AtomicLong();
+		AtomicBoolean done = new AtomicBoolean();
+		List<Thread> writers = new ArrayList<>();
+		for (int w = 0; w < WRITERS; w++) {
+			long seed = r.nextLong();
+			writers.add(new Thread(() -> {
+				Random random = new Random(seed);
+				long set = 0;
+				for (int n = 0; n < 50_000; n++) {
+					if (!bits.testAndSet(random.nextInt(size))) {
+						set++;
+					}
+				}
+				setByWriters.addAndGet(set);
+			}));
+		}
+		Thread rotator = new Thread(() -> {
+			Random random = new Random();
+			while (!done.get()) {
+				bits.rotate(random.nextInt(-size, size));
+			}
+		});
+		rotator.start();
+		runAll(writers);
+		done.set(true);
+		rotator.join();
+		LongQuickBitArray result = bits.snapshot();
+		assertEquals(setByWriters.get(), result.andCardinality(result));
+	}
+
+	/**
+	 * Writers set their bits in rounds while the rotator rotates by whole turns,
+	 * real rotations happen between rounds, so the result is known exactly
+	 */
+	@Test
+	public void testMatchesSequentialReplay() throws Exception {
+		int size = 5000 + 7;
+		int rounds = 20;
+		ConcurrentLongQuickBitArray bits = new ConcurrentLongQuickBitArray(size);
+		int[][][] positions = new int[rounds][WRITERS][200];
+		int[] amounts = new int[rounds];
+		for (int round = 0; round < rounds; round++) {
+			amounts[round] = r.nextInt(-size, size);
+			for (int w = 0; w < WRITERS; w++) {
+				for (int n = 0; n < positions[round][w].length; n++) {
+					positions[round][w][n] = r.nextInt(size);
+				}
+			}
+		}
+		ForkJoinPool pool = new ForkJoinPool(2);
+		CyclicBarrier roundStart = new CyclicBarrier(WRITERS + 1);
+		CyclicBarrier roundEnd = new CyclicBarrier(WRITERS + 1);
+		List<Thread> threads = new ArrayList<>();
+		for (int w = 0; w < WRITERS; w++) {
+			int writer = w;
+			threads.add(new Thread(() -> {
+				try {
+					for (int round = 0; round < rounds; round++) {
+						roundStart.await();
+						for (int position : positions[round][writer]) {
+							bits.set(position);
+						}
+						roundEnd.await();
+					}
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			}));
+		}
+		threads.add(new Thread(() -> {
+			try {
+				for (int round = 0; round < rounds; round++) {
+					roundStart.await();
+					for (int n = 0; n < 20; n++) {
+						bits.rotate(size * (n - 10), n % 2 == 0 ? null : pool);
+					}
+					roundEnd.await();
+					bits.rotate(amounts[round], round % 2 == 0 ? null : pool);
+				}
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		}));
+		try {
+			runAll(threads);
+		} finally {
+			pool.shutdown();
+		}
+		LongQuickBitArray expected = new LongQuickBitArray(size);
+		for (int round = 0; round < rounds; round++) {
+			for (int w = 0; w < WRITERS; w++) {
+				for (int position : positions[round][w]) {
+					expected.set(position);
+				}
+			}
+			expected.rotate(amounts[round]);
+		}
+		assertEquals(expected, bits.snapshot());
+	}
+
+	@Test
+	public void testOrIntoFromManyWriters() throws InterruptedException {
+		int size = 20_000 + 9;
+		ConcurrentLongQuickBitArray bits = new ConcurrentLongQuickBitArray(size);
+		LongQuickBitArray expected = new LongQuickBitArray(size);
+		List<Thread> writers = new ArrayList<>();
+		for (int w = 0; w < WRITERS; w++) {
+			List<LongQuickBitArray> batches = new ArrayList<>();
+			for (int n = 0; n < 50; n++) {
+				// shorter batches leave the end of the array alone
+				LongQuickBitArray batch = LongQuickBitArray.createRandomArrayOfLength(n % 2 == 0 ? size : size / 3);
+				batches.add(batch);
+				expected.or(batch, 0, batch.getSize());
+			}
+			writers.add(new Thread(() -> {
+				for (LongQuickBitArray batch : batches) {
+					bits.orInto(batch, bits);
+				}
+			}));
+		}
+		runAll(writers);
+		assertEquals(expected, bits.snapshot());
+	}
+
+	@Test
+	public void testOrIntoOtherDestination() {
+		int size = 1000 + 3;
+		LongQuickBitArray a = LongQuickBitArray.createRandomArrayOfLength(size);
+		LongQuickBitArray b = LongQuickBitArray.createRandomArrayOfLength(size / 2);
+		ConcurrentLongQuickBitArray source = ConcurrentLongQuickBitArray.from(a);
+		ConcurrentLongQuickBitArray dest = ConcurrentLongQuickBitArray
+				.from(LongQuickBitArray.createRandomArrayOfLength(size + 70));
+		LongQuickBitArray destBefore = dest.snapshot();
+		assertEquals(dest, source.orInto(b, dest));
+		LongQuickBitArray result = dest.snapshot();
+		for (int i = 0; i < result.getSize(); i++) {
+			boolean bit = i < size ? a.get(i) || (i < b.getSize() && b.get(i)) : destBefore.get(i);
+			assertEquals("bit " + i, bit, result.get(i));
+		}
+		assertEquals(a, source.snapshot());
+	}
+}
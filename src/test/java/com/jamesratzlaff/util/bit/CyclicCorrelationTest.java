@@ -0,0 +1,80 @@
+package com.jamesratzlaff.util.bit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.jamesratzlaff.util.bit.arrays.CyclicCorrelation;
+import com.jamesratzlaff.util.bit.arrays.LongQuickBitArray;
+
+public class CyclicCorrelationTest {
+
+	/**
+	 * <code>bitCount(a ^ rotate(b, k))</code> with a rotated copy for every
+	 * <code>k</code>
+	 */
+	private static int[] naiveProfile(LongQuickBitArray a, LongQuickBitArray b) {
+		int n = a.getSize();
+		int[] profile = new int[n];
+		for (int k = 0; k < n; k++) {
+			LongQuickBitArray rotated = b.clone().rotate(k);
+			for (int i = 0; i < n; i++) {
+				if (a.get(i) != rotated.get(i)) {
+					profile[k]++;
+				}
+			}
+		}
+		return profile;
+	}
+
+	@Test
+	public void testMatchesNaiveProfile() {
+		for (int size : new int[] { 1, 2, 63, 64, 65, 200, 517 }) {
+			LongQuickBitArray a = LongQuickBitArray.createRandomArrayOfLength(size);
+			LongQuickBitArray b = LongQuickBitArray.createRandomArrayOfLength(size);
+			System.out.println("testing hamming profile of len " + size);
+			int[] expected = naiveProfile(a, b);
+			assertArrayEquals(expected, CyclicCorrelation.hammingProfile(a, b, null));
+			assertArrayEquals(expected, CyclicCorrelation.hammingProfile(a, b, ForkJoinPool.commonPool()));
+			assertArrayEquals(expected, CyclicCorrelation.hammingProfileFFT(a, b));
+			assertArrayEquals(expected, CyclicCorrelation.hammingProfile(a, b));
+			for (int k = -size; k < 2 * size; k += Math.max(1, size / 7)) {
+				assertEquals(expected[Math.floorMod(k, size)], CyclicCorrelation.hammingDistance(a, b, k));
+			}
+		}
+	}
+
+	@Test
+	public void testFFTMatchesDirectAroundThreshold() {
+		for (int size : new int[] { CyclicCorrelation.FFT_THRESHOLD_BITS - 1, CyclicCorrelation.FFT_THRESHOLD_BITS,
+				CyclicCorrelation.FFT_THRESHOLD_BITS + 13 }) {
+			LongQuickBitArray a = LongQuickBitArray.createRandomArrayOfLength(size);
+			LongQuickBitArray b = LongQuickBitArray.createRandomArrayOfLength(size);
+			System.out.println("testing FFT hamming profile of len " + size);
+			int[] direct = CyclicCorrelation.hammingProfile(a, b, ForkJoinPool.commonPool());
+			assertArrayEquals(direct, CyclicCorrelation.hammingProfileFFT(a, b));
+			assertArrayEquals(direct, CyclicCorrelation.hammingProfile(a, b));
+		}
+	}
+
+	@Test
+	public void testBestAlignments() {
+		int[] profile = { 3, 1, 4, 1, 0, 1, 3, 4 };
+		assertArrayEquals(new int[] { 4 }, CyclicCorrelation.bestAlignments(profile, 1));
+		// ties go to the smaller rotation
+		assertArrayEquals(new int[] { 4, 1, 3 }, CyclicCorrelation.bestAlignments(profile, 3));
+		assertArrayEquals(new int[] { 4, 1, 3, 5, 0 }, CyclicCorrelation.bestAlignments(profile, 5));
+		assertArrayEquals(new int[] { 4, 1, 3, 5, 0, 6, 2, 7 }, CyclicCorrelation.bestAlignments(profile, 8));
+		assertArrayEquals(new int[] { 4, 1, 3, 5, 0, 6, 2, 7 }, CyclicCorrelation.bestAlignments(profile, 100));
+		assertArrayEquals(new int[0], CyclicCorrelation.bestAlignments(profile, 0));
+		assertArrayEquals(new int[0], CyclicCorrelation.bestAlignments(new int[0], 3));
+
+		LongQuickBitArray a = LongQuickBitArray.createRandomArrayOfLength(300);
+		LongQuickBitArray b = a.clone().rotate(-77);
+		assertEquals(77, CyclicCorrelation.bestAlignments(a, b, 1)[0]);
+		assertEquals(0, CyclicCorrelation.hammingDistance(a, b, 77));
+	}
+}
@@ -0,0 +1,113 @@
+package com.jamesratzlaff.util.bit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.jamesratzlaff.util.bit.arrays.LongArrayShift;
+import com.jamesratzlaff.util.bit.arrays.LongQuickBitArray;
+
+public class IndexOfTest {
+
+	private static final Random r = new Random();
+
+	/**
+	 * The <code>len</code> bits of <code>text</code> starting at
+	 * <code>position</code>, read cyclically
+	 */
+	private static LongQuickBitArray slice(LongQuickBitArray text, int position, int len) {
+		LongQuickBitArray pattern = new LongQuickBitArray(len);
+		for (int i = 0; i < len; i++) {
+			if (text.get((position + i) % text.getSize())) {
+				pattern.set(i);
+			}
+		}
+		return pattern;
+	}
+
+	private static int naiveIndexOf(LongQuickBitArray text, LongQuickBitArray pattern, int from, boolean cyclic) {
+		int size = text.getSize();
+		int last = cyclic ? size - 1 : size - pattern.getSize();
+		if (cyclic && pattern.getSize() > size) {
+			return -1;
+		}
+		for (int position = Math.max(from, 0); position <= last; position++) {
+			boolean match = true;
+			for (int i = 0; i < pattern.getSize() && match; i++) {
+				match = text.get((position + i) % size) == pattern.get(i);
+			}
+			if (match) {
+				return position;
+			}
+		}
+		return -1;
+	}
+
+	private static void check(LongQuickBitArray text, LongQuickBitArray pattern) {
+		int size = text.getSize();
+		for (int from = -1; from <= size + 1; from++) {
+			String message = "pattern of len " + pattern.getSize() + " in len " + size + " from " + from;
+			assertEquals(message, naiveIndexOf(text, pattern, from, false), text.indexOf(pattern, from));
+			assertEquals(message, naiveIndexOf(text, pattern, from, true), text.cyclicIndexOf(pattern, from));
+		}
+	}
+
+	@Test
+	public void testPatternsTakenFromText() {
+		for (int size : new int[] { 1, 15, 16, 17, 64, 100, 300 }) {
+			LongQuickBitArray text = LongQuickBitArray.createRandomArrayOfLength(size);
+			// shorter than, equal to and longer than SEARCH_FILTER_BITS, and longer than a word
+			for (int len : new int[] { 1, 5, 15, 16, 17, 40, 64, 65, 130 }) {
+				if (len > size) {
+					continue;
+				}
+				// crossing a word boundary, at the end, and wrapping around
+				for (int position : new int[] { 0, 60, size - len, size - len / 2 - 1, r.nextInt(size) }) {
+					if (position >= 0) {
+						check(text, slice(text, position, len));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testPeriodicText() {
+		// every position is a candidate after the filter
+		LongQuickBitArray text = new LongQuickBitArray(500);
+		for (int i = 0; i < text.getSize(); i += 3) {
+			text.set(i);
+		}
+		check(text, slice(text, 0, 12));
+		check(text, slice(text, 1, 40));
+		LongQuickBitArray pattern = slice(text, 2, 80);
+		pattern.flip(79);
+		check(text, pattern);
+	}
+
+	@Test
+	public void testNoMatchAndEdgeCases() {
+		LongQuickBitArray text = new LongQuickBitArray(200);
+		LongQuickBitArray ones = new LongQuickBitArray(20);
+		ones.setRange(0, 20);
+		check(text, ones);
+		text.setRange(190, 200);
+		text.setRange(0, 10);
+		// only the wrapped match exists
+		assertEquals(-1, text.indexOf(ones, 0));
+		assertEquals(190, text.cyclicIndexOf(ones, 0));
+		assertEquals(-1, text.cyclicIndexOf(ones, 191));
+		check(text, ones);
+		// longer than the text
+		LongQuickBitArray longer = new LongQuickBitArray(201);
+		assertEquals(-1, text.indexOf(longer, 0));
+		assertEquals(-1, text.cyclicIndexOf(longer, 0));
+		assertEquals(-1, LongArrayShift.indexOf(text.getBitArray(), 200, longer.getBitArray(), 201, 0));
+		// empty pattern matches wherever the search starts
+		LongQuickBitArray empty = new LongQuickBitArray(0);
+		assertEquals(7, text.indexOf(empty, 7));
+		assertEquals(7, text.cyclicIndexOf(empty, 7));
+	}
+}
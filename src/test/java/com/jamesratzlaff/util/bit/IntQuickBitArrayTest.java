@@ -38,7 +38,6 @@ public class IntQuickBitArrayTest {
 	private static final Random r;
 	private static final ObjIntConsumer<QuickBitArray> normal = createFunctor("bitwiseRotate", IntArrayShift::bitwiseRotate);
 	private static final ObjIntConsumer<QuickBitArray> subArr = createFunctor("bitwiseRotateUsingSubArrays",IntArrayShift::bitwiseRotateUsingSubArrays);
-	private static final ObjIntConsumer<QuickBitArray> old  = createFunctor("bitwiseRotateOld",IntArrayShift::bitwiseRotateOld);
 	@SuppressWarnings("unchecked")
 	@SafeVarargs
 	private void testShift(QuickBitArray lqba, int shiftAmt, ObjIntConsumer<QuickBitArray>...funcs) {
@@ -61,11 +60,23 @@ public class IntQuickBitArrayTest {
 	}
 	private void shiftAndCheckEquality(int shiftAmt, QuickBitArray manual, QuickBitArray lqba2, ObjIntConsumer<QuickBitArray> currentFunc) {
 		currentFunc.accept(lqba2, shiftAmt);
-		manual.shift(shiftAmt);
+		shiftBitByBit(manual, shiftAmt);
 		assertEquals(manual, lqba2);
 		
 	}
 	
+	private static void shiftBitByBit(QuickBitArray qba, int shiftAmt) {
+		int size = qba.getSize();
+		int amt = Math.floorMod(shiftAmt, size);
+		QuickBitArray shifted = new QuickBitArray(size);
+		for (int i = 0; i < size; i++) {
+			if (qba.get(i)) {
+				shifted.set((i + amt) % size);
+			}
+		}
+		System.arraycopy(shifted.getBitArray(), 0, qba.getBitArray(), 0, shifted.getBitArray().length);
+	}
+	
 	
 	
 	private static int getRandomPowerOf2() {
@@ -1,9 +1,13 @@
 package com.jamesratzlaff.util.bit;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.PrimitiveIterator;
 import java.util.Random;
 import java.util.function.ObjIntConsumer;
 
@@ -60,11 +64,23 @@ public class LongQuickBitArrayTest {
 	}
 	private void shiftAndCheckEquality(int shiftAmt, LongQuickBitArray manual, LongQuickBitArray lqba2, ObjIntConsumer<LongQuickBitArray> currentFunc) {
 		currentFunc.accept(lqba2, shiftAmt);
-		manual.shift(shiftAmt);
+		shiftBitByBit(manual, shiftAmt);
 		assertEquals(manual, lqba2);
 		
 	}
 	
+	private static void shiftBitByBit(LongQuickBitArray qba, int shiftAmt) {
+		int size = qba.getSize();
+		int amt = Math.floorMod(shiftAmt, size);
+		LongQuickBitArray shifted = new LongQuickBitArray(size);
+		for (int i = 0; i < size; i++) {
+			if (qba.get(i)) {
+				shifted.set((i + amt) % size);
+			}
+		}
+		System.arraycopy(shifted.getBitArray(), 0, qba.getBitArray(), 0, shifted.getBitArray().length);
+	}
+	
 	
 	
 	private static int getRandomPowerOf2() {
@@ -106,7 +122,75 @@ public class LongQuickBitArrayTest {
 		
 	}
 	
+	@Test
+	public void testBitwiseRotateInPlace() {
+		for(int size : new int[] {1, 2, 63, 64, 65, 100, 128, 191, 256, 1000}) {
+			for(int shiftAmt : new int[] {0, 1, -1, 5, -5, 63, -63, 64, -64, 128, -128, 130, -130, size, -size, 3*size+7, -3*size-7}) {
+				LongQuickBitArray lqba = LongQuickBitArray.createRandomArrayOfLength(size);
+				LongQuickBitArray manual = lqba.clone();
+				LongArrayShift.bitwiseRotateInPlace(lqba.getBitArray(), size, shiftAmt);
+				shiftBitByBit(manual, shiftAmt);
+				assertEquals("size "+size+" shifting "+shiftAmt, manual, lqba);
+			}
+		}
+	}
+
+	@Test
+	public void testSetBitsMatchesGetNextSet() {
+		for(int i=100000;i>0;i/=10) {
+			LongQuickBitArray lqba = LongQuickBitArray.createRandomArrayOfLength(i+13);
+			int[] expected = new int[lqba.getSize()];
+			int count = 0;
+			for(int bit=lqba.getNextSet(0);bit<lqba.getSize();bit=lqba.getNextSet(bit+1)) {
+				expected[count++]=bit;
+			}
+			expected = Arrays.copyOf(expected, count);
+			System.out.println("testing setBits of array of len "+lqba.getSize());
+			assertArrayEquals(expected, lqba.setBits().toArray());
+			assertArrayEquals(expected, lqba.setBits().parallel().toArray());
+			int[] decoded = new int[count];
+			int[] buffer = new int[7];
+			int total = 0;
+			int written;
+			do {
+				written = lqba.decodeSetBits(buffer, total==0?0:decoded[total-1]+1);
+				System.arraycopy(buffer, 0, decoded, total, written);
+				total+=written;
+			} while(written==buffer.length);
+			assertArrayEquals(expected, decoded);
+		}
+	}
+
+	@Test
+	public void testDecodeSetBitsStopsWhenAWordFillsTheBuffer() {
+		LongQuickBitArray lqba = new LongQuickBitArray(200);
+		lqba.setRange(60, 64);
+		lqba.set(130);
+		int[] buffer = new int[4];
+		assertEquals(4, lqba.decodeSetBits(buffer, 0));
+		assertArrayEquals(new int[] {60, 61, 62, 63}, buffer);
+		assertEquals(1, lqba.decodeSetBits(buffer, 64));
+		assertEquals(130, buffer[0]);
+	}
+
+	@Test(expected = ConcurrentModificationException.class)
+	public void testSetBitsIteratorFailsOnModification() {
+		LongQuickBitArray lqba = new LongQuickBitArray(300);
+		lqba.set(3);
+		lqba.set(150);
+		PrimitiveIterator.OfInt it = lqba.setBits().iterator();
+		assertEquals(3, it.nextInt());
+		lqba.set(299);
+		while (it.hasNext()) {
+			it.nextInt();
+		}
+	}
+
+	@Test(expected = ConcurrentModificationException.class)
+	public void testSetBitsForEachFailsOnModification() {
+		LongQuickBitArray lqba = LongQuickBitArray.createRandomArrayOfLength(1000);
+		lqba.setBits().forEach(bit -> lqba.flip(bit));
+	}
+
 
-	
-	
 }
@@ -0,0 +1,119 @@
+package com.jamesratzlaff.util.bit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.jamesratzlaff.util.bit.arrays.ParallelArrayShift;
+
+public class LongQuickBitMatrixTest {
+
+	private static final Random r = new Random();
+
+	private static LongQuickBitMatrix createRandomMatrix(int width, int height) {
+		LongQuickBitMatrix matrix = new LongQuickBitMatrix(width, height);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (r.nextBoolean()) {
+					matrix.set(x, y);
+				}
+			}
+		}
+		return matrix;
+	}
+
+	@Test
+	public void testTranspose() {
+		for (int[] dims : new int[][] { { 64, 64 }, { 1, 200 }, { 130, 7 }, { 100, 257 } }) {
+			LongQuickBitMatrix matrix = createRandomMatrix(dims[0], dims[1]);
+			LongQuickBitMatrix transposed = matrix.clone();
+			transposed.transpose();
+			assertEquals(matrix.getHeight(), transposed.getWidth());
+			assertEquals(matrix.getWidth(), transposed.getHeight());
+			for (int y = 0; y < matrix.getHeight(); y++) {
+				for (int x = 0; x < matrix.getWidth(); x++) {
+					assertEquals("bit " + x + "," + y, matrix.get(x, y), transposed.get(y, x));
+				}
+			}
+			transposed.transpose();
+			assertEquals(matrix, transposed);
+		}
+	}
+
+	@Test
+	public void testRotateColumnsCyclic() {
+		for (int[] dims : new int[][] { { 64, 64 }, { 70, 3 }, { 129, 200 } }) {
+			int width = dims[0];
+			int height = dims[1];
+			LongQuickBitMatrix matrix = createRandomMatrix(width, height);
+			LongQuickBitMatrix expected = matrix.clone();
+			int amount = r.nextInt(-3 * height, 3 * height);
+			System.out.println("testing " + width + "x" + height + " rotating columns " + amount);
+			for (int x = 0; x < width; x++) {
+				expected.rotateColumnCyclic(amount, x);
+			}
+			matrix.rotateColumnsCyclic(amount);
+			assertEquals(expected, matrix);
+		}
+	}
+
+	@Test
+	public void testRotate() {
+		LongQuickBitMatrix destination = new LongQuickBitMatrix(1);
+		for (int[] dims : new int[][] { { 64, 64 }, { 1, 200 }, { 130, 7 }, { 100, 257 } }) {
+			int width = dims[0];
+			int height = dims[1];
+			LongQuickBitMatrix matrix = createRandomMatrix(width, height);
+			for (int degrees : new int[] { 90, 180, 270 }) {
+				LongQuickBitMatrix rotated = matrix.clone();
+				rotated.rotate(degrees);
+				assertEquals(rotated, matrix.rotate(degrees, destination));
+				for (int y = 0; y < height; y++) {
+					for (int x = 0; x < width; x++) {
+						boolean expected = matrix.get(x, y);
+						switch (degrees) {
+						case 90:
+							assertEquals(expected, rotated.get(y, width - 1 - x));
+							break;
+						case 180:
+							assertEquals(expected, rotated.get(width - 1 - x, height - 1 - y));
+							break;
+						default:
+							assertEquals(expected, rotated.get(height - 1 - y, x));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testRotateRowsCyclicInPool() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			// the last one is above ParallelArrayShift.DEFAULT_THRESHOLD_WORDS
+			int wideRows = ParallelArrayShift.DEFAULT_THRESHOLD_WORDS / 65 + 10;
+			for (int[] dims : new int[][] { { 64, 64 }, { 130, 7 }, { 4096 + 13, wideRows } }) {
+				int width = dims[0];
+				int height = dims[1];
+				LongQuickBitMatrix matrix = createRandomMatrix(width, height);
+				LongQuickBitMatrix expected = matrix.clone();
+				int amount = r.nextInt(-3 * width, 3 * width);
+				int startRow = r.nextInt(-height, height);
+				int numberOfRows = height - r.nextInt(3);
+				System.out.println("testing " + width + "x" + height + " rotating " + numberOfRows + " rows from "
+						+ startRow + " by " + amount);
+				for (int y = startRow; y < startRow + numberOfRows; y++) {
+					expected.rotateRowCyclic(amount, y);
+				}
+				matrix.rotateRowsCyclic(amount, startRow, numberOfRows, pool);
+				assertEquals(expected, matrix);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
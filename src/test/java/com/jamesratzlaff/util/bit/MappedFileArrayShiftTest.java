@@ -0,0 +1,52 @@
+package com.jamesratzlaff.util.bit;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.jamesratzlaff.util.bit.arrays.LongArrayShift;
+import com.jamesratzlaff.util.bit.arrays.LongQuickBitArray;
+import com.jamesratzlaff.util.bit.arrays.MappedFileArrayShift;
+
+public class MappedFileArrayShiftTest {
+
+	private static final Random r = new Random();
+
+	private static byte[] toBytes(long[] words) {
+		ByteBuffer buffer = ByteBuffer.allocate(words.length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.asLongBuffer().put(words);
+		return buffer.array();
+	}
+
+	private static long[] toWords(byte[] bytes) {
+		long[] words = new long[bytes.length / Long.BYTES];
+		ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(words);
+		return words;
+	}
+
+	@Test
+	public void testRotateFileMatchesLongArrayShift() throws IOException {
+		Path file = Files.createTempFile("bits", ".bin");
+		try {
+			for (int size : new int[] { 64, 640, 4096, 65, 1000, 4096 + 13 }) {
+				for (long shiftAmt : new long[] { 1, -1, 64, -130, r.nextLong(-3l * size, 3l * size) }) {
+					long[] bits = LongQuickBitArray.createRandomArrayOfLength(size).getBitArray();
+					Files.write(file, toBytes(bits));
+					System.out.println("testing mapped rotate of len " + size + " shifting " + shiftAmt);
+					MappedFileArrayShift.bitwiseRotate(file, size, shiftAmt);
+					long[] expected = LongArrayShift.bitwiseRotate(bits.clone(), size, shiftAmt);
+					assertArrayEquals(expected, toWords(Files.readAllBytes(file)));
+				}
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+}
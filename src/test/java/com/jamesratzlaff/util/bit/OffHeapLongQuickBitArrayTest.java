@@ -0,0 +1,65 @@
+package com.jamesratzlaff.util.bit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.foreign.Arena;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.jamesratzlaff.util.bit.arrays.LongQuickBitArray;
+import com.jamesratzlaff.util.bit.arrays.OffHeapLongQuickBitArray;
+
+public class OffHeapLongQuickBitArrayTest {
+
+	private static final Random r = new Random();
+
+	private static void assertSameBits(LongQuickBitArray expected, OffHeapLongQuickBitArray actual) {
+		assertEquals(expected.getSize(), actual.getSize());
+		for (int i = 0; i < expected.getSize(); i++) {
+			assertEquals("bit " + i, expected.get(i), actual.get(i));
+		}
+	}
+
+	@Test
+	public void testRotateMatchesOnHeap() {
+		try (Arena arena = Arena.ofConfined()) {
+			for (int i = 1024; i > 0; i >>>= 1) {
+				for (int size : new int[] { i, i + 13 }) {
+					LongQuickBitArray lqba = LongQuickBitArray.createRandomArrayOfLength(size);
+					OffHeapLongQuickBitArray offHeap = OffHeapLongQuickBitArray.from(lqba, arena);
+					int shiftAmt = r.nextInt(-3 * size, 3 * size);
+					System.out.println("testing array of len " + size + " rotating " + shiftAmt);
+					lqba.rotate(shiftAmt);
+					offHeap.rotate(shiftAmt);
+					assertSameBits(lqba, offHeap);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testScanAndRanges() {
+		try (Arena arena = Arena.ofConfined()) {
+			int size = 333;
+			LongQuickBitArray lqba = new LongQuickBitArray(size);
+			OffHeapLongQuickBitArray offHeap = new OffHeapLongQuickBitArray(size, arena);
+			lqba.setRange(60, 130);
+			offHeap.setRange(60, 130);
+			lqba.set(300);
+			offHeap.set(300);
+			offHeap.flip(301);
+			offHeap.flip(301);
+			assertSameBits(lqba, offHeap);
+			for (int i = 0; i < size; i++) {
+				assertEquals(lqba.getNextSet(i), offHeap.getNextSet(i));
+				assertEquals(lqba.getNextUnset(i), offHeap.getNextUnset(i));
+			}
+			assertEquals(true, offHeap.isRange(60, 130, true));
+			assertEquals(true, offHeap.isRange(130, 300, false));
+			offHeap.unset(300);
+			assertEquals(size, offHeap.getNextSet(130));
+		}
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.jamesratzlaff.util.bit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.jamesratzlaff.util.bit.arrays.LongQuickBitArray;
+import com.jamesratzlaff.util.bit.arrays.PagedLongQuickBitArray;
+
+public class PagedLongQuickBitArrayTest {
+
+	private static final Random r = new Random();
+
+	/**
+	 * Rotates <code>[from, toExcl)</code> of <code>lqba</code> a bit at a time,
+	 * a positive amount moving bit <code>i</code> towards <code>toExcl</code>
+	 */
+	private static void naiveRotateRange(LongQuickBitArray lqba, int from, int toExcl, int amount) {
+		int len = toExcl - from;
+		if (len < 2) {
+			return;
+		}
+		boolean[] range = new boolean[len];
+		for (int i = 0; i < len; i++) {
+			range[Math.floorMod(i + amount, len)] = lqba.get(from + i);
+		}
+		for (int i = 0; i < len; i++) {
+			if (lqba.get(from + i) != range[i]) {
+				lqba.flip(from + i);
+			}
+		}
+	}
+
+	@Test
+	public void testSnapshotIsUnchangedByLiveWrites() {
+		int size = PagedLongQuickBitArray.PAGE_BITS * 3 + 77;
+		LongQuickBitArray reference = LongQuickBitArray.createRandomArrayOfLength(size);
+		PagedLongQuickBitArray live = PagedLongQuickBitArray.from(reference);
+		PagedLongQuickBitArray snapshot = live.snapshot();
+		LongQuickBitArray before = reference.clone();
+		for (int n = 0; n < 1000; n++) {
+			int i = r.nextInt(size);
+			live.set(i);
+			reference.set(i);
+		}
+		int amount = r.nextInt(-size, size);
+		live.rotate(amount);
+		reference.rotate(amount);
+		int from = r.nextInt(size / 2);
+		int toExcl = from + r.nextInt(size - from);
+		amount = r.nextInt(-size, size);
+		live.rotateRange(from, toExcl, amount);
+		naiveRotateRange(reference, from, toExcl, amount);
+		assertEquals(before, snapshot.toLongQuickBitArray());
+		assertEquals(reference, live.toLongQuickBitArray());
+	}
+
+	@Test
+	public void testPageAlignedRotateCopiesNoPages() {
+		int size = PagedLongQuickBitArray.PAGE_BITS * 4;
+		LongQuickBitArray reference = LongQuickBitArray.createRandomArrayOfLength(size);
+		PagedLongQuickBitArray live = PagedLongQuickBitArray.from(reference);
+		PagedLongQuickBitArray snapshot = live.snapshot();
+		assertEquals(0, live.getOwnedPageCount());
+		live.rotate(PagedLongQuickBitArray.PAGE_BITS * 3);
+		reference.rotate(PagedLongQuickBitArray.PAGE_BITS * 3);
+		assertEquals(0, live.getOwnedPageCount());
+		assertEquals(reference, live.toLongQuickBitArray());
+		live.set(0);
+		assertEquals(1, live.getOwnedPageCount());
+		assertEquals(0, snapshot.getOwnedPageCount());
+	}
+
+	@Test
+	public void testUnalignedRotateKeepsZeroPagesShared() {
+		int size = PagedLongQuickBitArray.PAGE_BITS * 8 + 5;
+		PagedLongQuickBitArray live = new PagedLongQuickBitArray(size);
+		LongQuickBitArray reference = new LongQuickBitArray(size);
+		// one set bit in a page interior lands on one page after the rotation
+		live.set(PagedLongQuickBitArray.PAGE_BITS + 100);
+		reference.set(PagedLongQuickBitArray.PAGE_BITS + 100);
+		live.rotate(1000);
+		reference.rotate(1000);
+		assertEquals(1, live.getOwnedPageCount());
+		assertEquals(reference, live.toLongQuickBitArray());
+	}
+}
@@ -0,0 +1,42 @@
+package com.jamesratzlaff.util.bit;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.jamesratzlaff.util.bit.arrays.LongArrayShift;
+import com.jamesratzlaff.util.bit.arrays.LongQuickBitArray;
+import com.jamesratzlaff.util.bit.arrays.ParallelArrayShift;
+
+public class ParallelArrayShiftTest {
+
+	private static final Random r = new Random();
+
+	@Test
+	public void testMatchesSequentialRotate() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			// several chunks of whole words, and of bit swaps with the middle in the last chunk
+			for (int size : new int[] { 1, 64, 100, 4096, 4096 + 13, ParallelArrayShift.CHUNK_WORDS * 64 * 3,
+					ParallelArrayShift.CHUNK_WORDS * 64 * 3 + 5, ParallelArrayShift.CHUNK_WORDS * 64 * 5 + 77 }) {
+				for (long shiftAmt : new long[] { 0, 1, -1, 64, -64, 65, -130, r.nextLong(-3l * size, 3l * size) }) {
+					long[] bits = LongQuickBitArray.createRandomArrayOfLength(size).getBitArray();
+					long[] expected = LongArrayShift.bitwiseRotate(bits.clone(), size, shiftAmt);
+					System.out.println("testing parallel rotate of len " + size + " shifting " + shiftAmt);
+					long[] inPlace = ParallelArrayShift.bitwiseRotate(bits.clone(), size, shiftAmt, 1, pool);
+					assertArrayEquals(expected, inPlace);
+					long[] source = bits.clone();
+					long[] destination = ParallelArrayShift.bitwiseRotate(source, new long[bits.length], size, shiftAmt, 1,
+							pool);
+					assertArrayEquals(expected, destination);
+					assertArrayEquals(bits, source);
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package com.jamesratzlaff.util.bit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.jamesratzlaff.util.bit.arrays.LongQuickBitArray;
+import com.jamesratzlaff.util.bit.arrays.RankSelectIndex;
+import com.jamesratzlaff.util.bit.arrays.RotatedView;
+
+public class RankSelectIndexTest {
+
+	private static final Random r = new Random();
+
+	private static LongQuickBitArray withDensity(int size, int percent) {
+		LongQuickBitArray lqba = new LongQuickBitArray(size);
+		for (int i = 0; i < size; i++) {
+			if (r.nextInt(100) < percent) {
+				lqba.set(i);
+			}
+		}
+		return lqba;
+	}
+
+	private static void assertMatches(RankSelectIndex index) {
+		LongQuickBitArray lqba = index.getBits();
+		int size = lqba.getSize();
+		int rank = 0;
+		for (int i = 0; i <= size; i++) {
+			assertEquals("rank1 " + i, rank, index.rank1(i));
+			assertEquals("rank0 " + i, i - rank, index.rank0(i));
+			if (i < size && lqba.get(i)) {
+				assertEquals("select1 " + rank, i, index.select1(rank));
+				rank++;
+			}
+		}
+		assertEquals(rank, index.cardinality());
+	}
+
+	@Test
+	public void testAcrossSuperblocks() {
+		for (int size : new int[] { 1, 63, 64, 511, 512, 513, 1024 + 77, 5000 }) {
+			for (int percent : new int[] { 0, 1, 50, 99, 100 }) {
+				System.out.println("testing rank and select of len " + size + " with " + percent + "% set");
+				assertMatches(new RankSelectIndex(withDensity(size, percent)));
+			}
+		}
+	}
+
+	@Test
+	public void testIsCurrentAfterMutationAndRotation() {
+		LongQuickBitArray lqba = withDensity(3000, 30);
+		RankSelectIndex index = new RankSelectIndex(lqba);
+		assertEquals(true, index.isCurrent());
+		int bit = lqba.getNextUnset(0);
+		lqba.set(bit);
+		assertEquals(false, index.isCurrent());
+		assertMatches(index);
+		assertEquals(true, index.isCurrent());
+		lqba.flip(bit);
+		assertEquals(false, index.isCurrent());
+		assertMatches(index);
+		lqba.rotate(517);
+		assertEquals(false, index.isCurrent());
+		assertMatches(index);
+		assertEquals(true, index.isCurrent());
+		lqba.rotate(-3);
+		assertEquals(false, index.isCurrent());
+		index.rebuild();
+		assertEquals(true, index.isCurrent());
+		assertMatches(index);
+	}
+
+	@Test
+	public void testStaleAfterMaterialize() {
+		LongQuickBitArray lqba = withDensity(3000, 30);
+		RankSelectIndex index = new RankSelectIndex(lqba);
+		RotatedView view = new RotatedView(lqba).rotate(700);
+		assertEquals(true, index.isCurrent());
+		view.materialize();
+		assertEquals(false, index.isCurrent());
+		assertMatches(index);
+		assertEquals(true, index.isCurrent());
+	}
+}
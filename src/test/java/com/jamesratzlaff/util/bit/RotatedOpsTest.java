@@ -0,0 +1,77 @@
+package com.jamesratzlaff.util.bit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.jamesratzlaff.util.bit.arrays.IntArrayShift;
+import com.jamesratzlaff.util.bit.arrays.LongArrayShift;
+
+public class RotatedOpsTest {
+
+	private static final Random r = new Random();
+	private static final int[] SIZES = { 1, 31, 32, 33, 63, 64, 65, 200, 256, 1000 };
+
+	private static long[] amounts(int size) {
+		return new long[] { 0, 1, -1, 5, -5, 31, -32, 64, -64, 65, size, -size, size + 3, -3l * size - 7,
+				r.nextLong(-3l * size, 3l * size) };
+	}
+
+	@Test
+	public void testLongRotatedOpsMatchRotateThenOp() {
+		for (int size : SIZES) {
+			int words = (size + 63) >>> 6;
+			long tailMask = (size & 63) == 0 ? -1l : (1l << size) - 1;
+			for (long amt : amounts(size)) {
+				long[] a = r.longs(words).toArray();
+				long[] b = r.longs(words).toArray();
+				long[] bBefore = b.clone();
+				long[] rotated = LongArrayShift.bitwiseRotate(b.clone(), size, amt);
+				long[] expected = new long[words];
+				long cardinality = 0;
+				for (int w = 0; w < words; w++) {
+					long mask = w == words - 1 ? tailMask : -1l;
+					expected[w] = ((a[w] ^ rotated[w]) & mask) | (a[w] & ~mask);
+					cardinality += Long.bitCount(a[w] & rotated[w] & mask);
+				}
+				String message = "len " + size + " rotating " + amt;
+				assertArrayEquals(message, expected, LongArrayShift.xorRotated(a, b, size, amt, new long[words]));
+				assertEquals(message, cardinality, LongArrayShift.andRotatedCardinality(a, b, size, amt));
+				assertArrayEquals(bBefore, b);
+				LongArrayShift.xorRotated(a, b, size, amt, a);
+				assertArrayEquals(message, expected, a);
+			}
+		}
+	}
+
+	@Test
+	public void testIntRotatedOpsMatchRotateThenOp() {
+		for (int size : SIZES) {
+			int words = (size + 31) >>> 5;
+			int tailMask = (size & 31) == 0 ? -1 : (1 << size) - 1;
+			for (long amount : amounts(size)) {
+				int amt = (int) amount;
+				int[] a = r.ints(words).toArray();
+				int[] b = r.ints(words).toArray();
+				int[] bBefore = b.clone();
+				int[] rotated = IntArrayShift.bitwiseRotate(b.clone(), size, amt);
+				int[] expected = new int[words];
+				long cardinality = 0;
+				for (int w = 0; w < words; w++) {
+					int mask = w == words - 1 ? tailMask : -1;
+					expected[w] = ((a[w] ^ rotated[w]) & mask) | (a[w] & ~mask);
+					cardinality += Integer.bitCount(a[w] & rotated[w] & mask);
+				}
+				String message = "len " + size + " rotating " + amt;
+				assertArrayEquals(message, expected, IntArrayShift.xorRotated(a, b, size, amt, new int[words]));
+				assertEquals(message, cardinality, IntArrayShift.andRotatedCardinality(a, b, size, amt));
+				assertArrayEquals(bBefore, b);
+				IntArrayShift.xorRotated(a, b, size, amt, a);
+				assertArrayEquals(message, expected, a);
+			}
+		}
+	}
+}
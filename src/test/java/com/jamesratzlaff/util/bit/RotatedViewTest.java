@@ -0,0 +1,78 @@
+package com.jamesratzlaff.util.bit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.jamesratzlaff.util.bit.arrays.LongQuickBitArray;
+import com.jamesratzlaff.util.bit.arrays.RotatedView;
+
+public class RotatedViewTest {
+
+	private static final Random r = new Random();
+
+	private static LongQuickBitArray sparse(int size) {
+		LongQuickBitArray lqba = new LongQuickBitArray(size);
+		for (int i = 0; i < 3; i++) {
+			lqba.set(r.nextInt(size));
+		}
+		return lqba;
+	}
+
+	private static LongQuickBitArray dense(int size) {
+		LongQuickBitArray lqba = new LongQuickBitArray(size);
+		lqba.setRange(0, size);
+		for (int i = 0; i < 3; i++) {
+			int bit = r.nextInt(size);
+			if (lqba.get(bit)) {
+				lqba.flip(bit);
+			}
+		}
+		return lqba;
+	}
+
+	private static void assertMatches(RotatedView view, LongQuickBitArray expected) {
+		int size = expected.getSize();
+		for (int i = 0; i < size; i++) {
+			assertEquals("get " + i, expected.get(i), view.get(i));
+		}
+		for (int i = 0; i <= size; i++) {
+			assertEquals("getNextSet " + i, expected.getNextSet(i), view.getNextSet(i));
+			assertEquals("getNextUnset " + i, expected.getNextUnset(i), view.getNextUnset(i));
+		}
+		for (int n = 0; n < 50; n++) {
+			int start = r.nextInt(size + 1);
+			int end = r.nextInt(start, size + 1);
+			assertEquals(expected.isRange(start, end, true), view.isRange(start, end, true));
+			assertEquals(expected.isRange(start, end, false), view.isRange(start, end, false));
+		}
+		PrimitiveIterator.OfInt it = view.setBitIterator();
+		for (int i = expected.getNextSet(0); i < size; i = expected.getNextSet(i + 1)) {
+			assertEquals(i, it.nextInt());
+		}
+		assertEquals(false, it.hasNext());
+	}
+
+	@Test
+	public void testMatchesMaterialize() {
+		for (int size : new int[] { 1, 63, 64, 65, 200, 1000 }) {
+			for (LongQuickBitArray lqba : new LongQuickBitArray[] { LongQuickBitArray.createRandomArrayOfLength(size),
+					sparse(size), dense(size), new LongQuickBitArray(size) }) {
+				RotatedView view = new RotatedView(lqba.clone());
+				LongQuickBitArray expected = lqba.clone();
+				for (int amount : new int[] { 0, 5, -12, size, -size - 1, r.nextInt(-3 * size, 3 * size), 0 }) {
+					System.out.println("testing rotated view of len " + size + " rotating " + amount);
+					view.rotate(amount);
+					expected.rotate(amount);
+					assertMatches(view, expected);
+				}
+				assertEquals(expected, view.materialize());
+				assertEquals(0, view.getOffset());
+				assertMatches(view, expected);
+			}
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package com.jamesratzlaff.util.bit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.jamesratzlaff.util.bit.arrays.LongQuickBitArray;
+import com.jamesratzlaff.util.bit.arrays.SparseBitArray;
+
+public class SparseBitArrayTest {
+
+	private static final Random r = new Random();
+
+	@Test
+	public void testRotateMatchesDense() {
+		for (int i = 1024; i > 0; i >>>= 1) {
+			for (int size : new int[] { i, i + 13 }) {
+				LongQuickBitArray lqba = new LongQuickBitArray(size);
+				for (int n = 0; n < size / 100 + 1; n++) {
+					lqba.set(r.nextInt(size));
+				}
+				SparseBitArray sparse = SparseBitArray.from(lqba);
+				int shiftAmt = r.nextInt(-3 * size, 3 * size);
+				System.out.println("testing sparse array of len " + size + " rotating " + shiftAmt);
+				lqba.rotate(shiftAmt);
+				sparse.rotate(shiftAmt);
+				assertEquals(lqba, sparse.toLongQuickBitArray());
+			}
+		}
+	}
+
+	@Test
+	public void testDensityConversion() {
+		int size = 4096;
+		SparseBitArray sparse = new SparseBitArray(size);
+		for (int i = 0; i <= size / SparseBitArray.DENSE_DIVISOR; i++) {
+			sparse.set(i * 3);
+		}
+		assertEquals(true, sparse.isDense());
+		for (int i = size / SparseBitArray.SPARSE_DIVISOR - 1; i <= size / SparseBitArray.DENSE_DIVISOR; i++) {
+			sparse.unset(i * 3);
+		}
+		assertEquals(false, sparse.isDense());
+		assertEquals(size / SparseBitArray.SPARSE_DIVISOR - 1, sparse.cardinality());
+		assertEquals(3, sparse.getNextSet(1));
+		assertEquals(1, sparse.getNextUnset(0));
+	}
+
+	@Test
+	public void testRotateLargerThanInt() {
+		long size = 1l << 40;
+		SparseBitArray sparse = new SparseBitArray(size);
+		sparse.set(0);
+		sparse.set(size - 2);
+		sparse.set(size >>> 1);
+		sparse.rotate(3);
+		assertArrayEquals(new long[] { 1, 3, (size >>> 1) + 3 }, sparse.getPositions());
+		sparse.rotate(-4);
+		assertArrayEquals(new long[] { (size >>> 1) - 1, size - 3, size - 1 }, sparse.getPositions());
+	}
+}
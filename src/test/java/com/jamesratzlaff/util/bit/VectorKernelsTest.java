@@ -0,0 +1,106 @@
+package com.jamesratzlaff.util.bit;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.jamesratzlaff.util.bit.arrays.IntArrayShift;
+import com.jamesratzlaff.util.bit.arrays.IntVectorKernels;
+import com.jamesratzlaff.util.bit.arrays.LongArrayShift;
+import com.jamesratzlaff.util.bit.arrays.LongVectorKernels;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorSpecies;
+
+public class VectorKernelsTest {
+
+	private static final Random r = new Random();
+
+	@SuppressWarnings("unchecked")
+	private static final VectorSpecies<Long>[] LONG_SPECIES = new VectorSpecies[] { LongVector.SPECIES_64,
+			LongVector.SPECIES_128, LongVector.SPECIES_256, LongVector.SPECIES_512, LongVector.SPECIES_PREFERRED };
+	@SuppressWarnings("unchecked")
+	private static final VectorSpecies<Integer>[] INT_SPECIES = new VectorSpecies[] { IntVector.SPECIES_64,
+			IntVector.SPECIES_128, IntVector.SPECIES_256, IntVector.SPECIES_512, IntVector.SPECIES_PREFERRED };
+
+	/**
+	 * The words in <code>[from, toExcl)</code> shifted left as one ring, bit by
+	 * bit
+	 */
+	private static long[] carryShiftLeftBitByBit(long[] bits, int from, int toExcl, int amt) {
+		long[] result = bits.clone();
+		long start = (long) from << 6;
+		long size = (long) (toExcl - from) << 6;
+		for (int w = from; w < toExcl; w++) {
+			result[w] = 0;
+		}
+		for (long i = 0; i < size; i++) {
+			long src = start + i;
+			if ((bits[(int) (src >>> 6)] >>> src & 1) != 0) {
+				long dst = start + (i + amt) % size;
+				result[(int) (dst >>> 6)] |= 1l << dst;
+			}
+		}
+		return result;
+	}
+
+	private static int[] carryShiftLeftBitByBit(int[] bits, int from, int toExcl, int amt) {
+		int[] result = bits.clone();
+		int start = from << 5;
+		int size = (toExcl - from) << 5;
+		for (int w = from; w < toExcl; w++) {
+			result[w] = 0;
+		}
+		for (int i = 0; i < size; i++) {
+			int src = start + i;
+			if ((bits[src >>> 5] >>> src & 1) != 0) {
+				int dst = start + (i + amt) % size;
+				result[dst >>> 5] |= 1 << dst;
+			}
+		}
+		return result;
+	}
+
+	@Test
+	public void testLongCarryShiftLeftMatchesScalar() {
+		for (int words = 1; words <= 37; words++) {
+			long[] bits = r.longs(words + 3).toArray();
+			for (int from : new int[] { 0, 1, 3 }) {
+				int toExcl = Math.min(words + from, bits.length);
+				int amt = r.nextInt(1, 64);
+				long[] expected = carryShiftLeftBitByBit(bits, from, toExcl, amt);
+				long[] scalar = bits.clone();
+				LongArrayShift.carryShiftLeft(scalar, from, toExcl, amt);
+				assertArrayEquals(expected, scalar);
+				for (VectorSpecies<Long> species : LONG_SPECIES) {
+					long[] vector = bits.clone();
+					LongVectorKernels.carryShiftLeft(species, vector, from, toExcl, amt);
+					assertArrayEquals(species + " words " + words + " from " + from + " amt " + amt, expected, vector);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testIntCarryShiftLeftMatchesScalar() {
+		for (int words = 1; words <= 37; words++) {
+			int[] bits = r.ints(words + 3).toArray();
+			for (int from : new int[] { 0, 1, 3 }) {
+				int toExcl = Math.min(words + from, bits.length);
+				int amt = r.nextInt(1, 32);
+				int[] expected = carryShiftLeftBitByBit(bits, from, toExcl, amt);
+				int[] scalar = bits.clone();
+				IntArrayShift.carryShiftLeft(scalar, from, toExcl, amt);
+				assertArrayEquals(expected, scalar);
+				for (VectorSpecies<Integer> species : INT_SPECIES) {
+					int[] vector = bits.clone();
+					IntVectorKernels.carryShiftLeft(species, vector, from, toExcl, amt);
+					assertArrayEquals(species + " words " + words + " from " + from + " amt " + amt, expected, vector);
+				}
+			}
+		}
+	}
+}